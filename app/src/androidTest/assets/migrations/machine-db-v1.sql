@@ -0,0 +1,26 @@
+-- A version 1 database as Room created it: UUIDs as TEXT, no indexes.
+-- Two packages share tracking number TRK-1, which version 2 makes unique.
+CREATE TABLE IF NOT EXISTS `users` (`id` TEXT NOT NULL, `name` TEXT, `sync_status` TEXT, PRIMARY KEY(`id`));
+CREATE TABLE IF NOT EXISTS `locker_machines` (`id` TEXT NOT NULL, `machine_serial` TEXT, `name` TEXT, `location` TEXT, `ip_address` TEXT, `is_online` INTEGER, `is_active` INTEGER, `total_doors` INTEGER, `firmware_version` TEXT, `last_heartbeat` INTEGER, `created_at` INTEGER, `updated_at` INTEGER, `sync_status` TEXT, PRIMARY KEY(`id`));
+CREATE TABLE IF NOT EXISTS `doors` (`id` TEXT NOT NULL, `locker_machine_id` TEXT, `cu_id` INTEGER NOT NULL, `door_index` INTEGER NOT NULL, `label` TEXT, `is_locked` INTEGER, `is_occupied` INTEGER, `size_category` TEXT, `created_at` INTEGER, `updated_at` INTEGER, `sync_status` TEXT, PRIMARY KEY(`id`), FOREIGN KEY(`locker_machine_id`) REFERENCES `locker_machines`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE );
+CREATE TABLE IF NOT EXISTS `packages` (`id` TEXT NOT NULL, `tracking_number` TEXT, `recipient_name` TEXT, `delivery_pin` TEXT, `client_pin` TEXT, `return_pin` TEXT, `delivered_by` TEXT, `returned_by` TEXT, `door_id` TEXT, `status` TEXT, `delivery_timestamp` INTEGER, `picked_timestamp` INTEGER, `expiry_timestamp` INTEGER, `return_timestamp` INTEGER, `created_at` INTEGER, `updated_at` INTEGER, `sync_status` TEXT, PRIMARY KEY(`id`), FOREIGN KEY(`delivered_by`) REFERENCES `users`(`id`) ON UPDATE NO ACTION ON DELETE SET NULL , FOREIGN KEY(`returned_by`) REFERENCES `users`(`id`) ON UPDATE NO ACTION ON DELETE SET NULL , FOREIGN KEY(`door_id`) REFERENCES `doors`(`id`) ON UPDATE NO ACTION ON DELETE SET NULL );
+CREATE TABLE IF NOT EXISTS `payments` (`id` TEXT NOT NULL, `package_id` TEXT, `payment_method` TEXT, `payment_status` TEXT, `amount_required` REAL, `amount_paid` REAL, `change_given` REAL, `currency` TEXT, `transaction_id` TEXT, `payment_gateway` TEXT, `cash_denominations` TEXT, `machine_cash_balance` REAL, `initiated_at` INTEGER, `completed_at` INTEGER, `created_at` INTEGER, `updated_at` INTEGER, `sync_status` TEXT, PRIMARY KEY(`id`), FOREIGN KEY(`package_id`) REFERENCES `packages`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE );
+CREATE TABLE IF NOT EXISTS `audit_logs` (`id` TEXT NOT NULL, `entity_type` TEXT, `entity_id` TEXT, `action` TEXT, `user_id` TEXT, `timestamp` INTEGER, `details` TEXT, `source` TEXT, `sync_status` TEXT, PRIMARY KEY(`id`), FOREIGN KEY(`user_id`) REFERENCES `users`(`id`) ON UPDATE NO ACTION ON DELETE SET NULL );
+CREATE TABLE IF NOT EXISTS `machine_events` (`id` TEXT NOT NULL, `locker_machine_id` TEXT, `door_id` TEXT, `event_type` TEXT, `severity` TEXT, `timestamp` INTEGER, `details` TEXT, `is_resolved` INTEGER, `resolved_at` INTEGER, `sync_status` TEXT, PRIMARY KEY(`id`), FOREIGN KEY(`locker_machine_id`) REFERENCES `locker_machines`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE , FOREIGN KEY(`door_id`) REFERENCES `doors`(`id`) ON UPDATE NO ACTION ON DELETE SET NULL );
+
+INSERT INTO `users` VALUES ('11111111-1111-1111-1111-111111111111', 'Courier One', 'synced');
+INSERT INTO `locker_machines` VALUES ('22222222-2222-2222-2222-222222222222', 'SN-0001', 'Lobby', 'Ground floor', '192.168.1.50', 1, 1, 16, '1.0', 1700000000000, 1700000000000, 1700000000000, 'synced');
+INSERT INTO `doors` VALUES ('33333333-3333-3333-3333-000000000001', '22222222-2222-2222-2222-222222222222', 0, 0, 'A1', 1, 1, 'small', 1700000000000, 1700000000000, 'synced');
+INSERT INTO `doors` VALUES ('33333333-3333-3333-3333-000000000002', '22222222-2222-2222-2222-222222222222', 0, 1, 'A2', 1, 0, 'large', 1700000000000, 1700000000000, 'synced');
+INSERT INTO `packages` VALUES ('44444444-4444-4444-4444-000000000001', 'TRK-1', 'Old Recipient', '1111', '2222', '3333', '11111111-1111-1111-1111-111111111111', NULL, NULL, 'returned', 1690000000000, NULL, 1690259200000, 1690300000000, 1690000000000, 1690300000000, 'synced');
+INSERT INTO `packages` VALUES ('44444444-4444-4444-4444-000000000002', 'TRK-1', 'New Recipient', '4444', '5555', '6666', '11111111-1111-1111-1111-111111111111', NULL, '33333333-3333-3333-3333-000000000001', 'delivered', 1700000000000, NULL, 1700259200000, NULL, 1700000000000, 1700000000000, 'pending_sync');
+INSERT INTO `packages` VALUES ('44444444-4444-4444-4444-000000000003', 'TRK-2', 'Other Recipient', '7777', '8888', '9999', NULL, NULL, NULL, 'pending', NULL, NULL, NULL, NULL, 1700000000000, 1700000000000, 'local_only');
+INSERT INTO `payments` VALUES ('55555555-5555-5555-5555-000000000001', '44444444-4444-4444-4444-000000000002', 'cash', 'paid', 5.0, 10.0, 5.0, 'EUR', NULL, NULL, '{"10":1}', 120.0, 1700000000000, 1700000001000, 1700000000000, 1700000001000, 'pending_sync');
+INSERT INTO `audit_logs` VALUES ('66666666-6666-6666-6666-000000000001', 'Package', '44444444-4444-4444-4444-000000000001', 'deliver', '11111111-1111-1111-1111-111111111111', 1690000000000, '{}', 'tablet', 'synced');
+INSERT INTO `audit_logs` VALUES ('66666666-6666-6666-6666-000000000002', 'Package', '44444444-4444-4444-4444-000000000001', 'return', NULL, 1690300000000, '{}', 'tablet', 'synced');
+INSERT INTO `audit_logs` VALUES ('66666666-6666-6666-6666-000000000003', 'Package', '44444444-4444-4444-4444-000000000002', 'deliver', '11111111-1111-1111-1111-111111111111', 1700000000000, '{"door":"A1"}', 'tablet', 'pending_sync');
+INSERT INTO `machine_events` VALUES ('77777777-7777-7777-7777-000000000001', '22222222-2222-2222-2222-222222222222', NULL, 'heartbeat', 'info', 1700000000000, '{}', 0, NULL, 'synced');
+INSERT INTO `machine_events` VALUES ('77777777-7777-7777-7777-000000000002', '22222222-2222-2222-2222-222222222222', '33333333-3333-3333-3333-000000000001', 'door_opened', 'info', 1700000000100, '{}', 0, NULL, 'synced');
+INSERT INTO `machine_events` VALUES ('77777777-7777-7777-7777-000000000003', '22222222-2222-2222-2222-222222222222', '33333333-3333-3333-3333-000000000001', 'door_closed', 'info', 1700000004100, '{"open_ms":4000}', 0, NULL, 'synced');
+INSERT INTO `machine_events` VALUES ('77777777-7777-7777-7777-000000000004', '22222222-2222-2222-2222-222222222222', '33333333-3333-3333-3333-000000000002', 'sensor_triggered', 'warning', 1700000005000, '{}', 0, NULL, 'pending_sync');
+INSERT INTO `machine_events` VALUES ('77777777-7777-7777-7777-000000000005', '22222222-2222-2222-2222-222222222222', NULL, 'error', 'error', 1700000006000, '{"code":3}', 1, 1700000007000, 'pending_sync');
@@ -0,0 +1,210 @@
+package com.example.parcellocker;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * The app's shared background threads; repositories and services are handed
+ * these instead of creating pools of their own.
+ *
+ * - diskWrite: the single database writer, so writes never contend for
+ *   SQLite's one write lock and run in submission order.
+ * - diskRead: a small pool for queries; in WAL mode they run alongside the writer.
+ * - io: network and other blocking work that is not the database.
+ *
+ * Every executor counts its tasks, how many were queued at most and how long
+ * they waited for a thread; {@link #snapshot} reads those, e.g. for
+ * HardwareMetricsReporter. A growing wait on diskWrite means writes are being
+ * produced faster than SQLite commits them.
+ */
+public final class AppExecutors {
+
+    public static final int DEFAULT_READ_THREADS = 2;
+    public static final int DEFAULT_IO_THREADS = 2;
+
+    private static volatile AppExecutors instance;
+
+    private final InstrumentedExecutor diskWrite;
+    private final InstrumentedExecutor diskRead;
+    private final InstrumentedExecutor io;
+
+    /** The process-wide executors. */
+    public static AppExecutors get() {
+        if (instance == null) {
+            synchronized (AppExecutors.class) {
+                if (instance == null) instance = new AppExecutors(DEFAULT_READ_THREADS, DEFAULT_IO_THREADS);
+            }
+        }
+        return instance;
+    }
+
+    public AppExecutors(int readThreads, int ioThreads) {
+        this.diskWrite = new InstrumentedExecutor("db-write", 1);
+        this.diskRead = new InstrumentedExecutor("db-read", readThreads);
+        this.io = new InstrumentedExecutor("io", ioThreads);
+    }
+
+    public ExecutorService diskWrite() { return diskWrite; }
+
+    public ExecutorService diskRead() { return diskRead; }
+
+    public ExecutorService io() { return io; }
+
+    /** Runs {@code query} on the read pool. */
+    public <T> CompletableFuture<T> read(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(query, diskRead);
+    }
+
+    /**
+     * Runs {@code update} on the writer, after every write submitted before it.
+     * A failed write is logged here too, since many callers never look at the result.
+     */
+    public CompletableFuture<Void> write(Runnable update) {
+        CompletableFuture<Void> result = CompletableFuture.runAsync(update, diskWrite);
+        result.whenComplete((ignored, error) -> {
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                System.err.println("Database write failed: " + cause);
+            }
+        });
+        return result;
+    }
+
+    /** Queue and wait figures of every executor since the last reset. */
+    public List<Stats> snapshot(boolean reset) {
+        List<Stats> stats = new ArrayList<>(3);
+        stats.add(diskWrite.stats(reset));
+        stats.add(diskRead.stats(reset));
+        stats.add(io.stats(reset));
+        return stats;
+    }
+
+    /** Stops all threads; only for tests and process shutdown. */
+    public void shutdown() {
+        diskWrite.shutdown();
+        diskRead.shutdown();
+        io.shutdown();
+    }
+
+    /** One executor's figures over an interval. */
+    public static final class Stats {
+        public final String name;
+        public final int threads;
+        /** Tasks waiting when the snapshot was taken. */
+        public final int queued;
+        public final int maxQueued;
+        public final long tasks;
+        public final long totalWaitNanos;
+        public final long maxWaitNanos;
+
+        Stats(String name, int threads, int queued, int maxQueued, long tasks, long totalWaitNanos, long maxWaitNanos) {
+            this.name = name;
+            this.threads = threads;
+            this.queued = queued;
+            this.maxQueued = maxQueued;
+            this.tasks = tasks;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+        }
+
+        public double averageWaitMs() {
+            return tasks == 0 ? 0 : totalWaitNanos / 1e6 / tasks;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("executor", name);
+            map.put("threads", threads);
+            map.put("queued", queued);
+            map.put("max_queued", maxQueued);
+            map.put("tasks", tasks);
+            map.put("avg_wait_ms", averageWaitMs());
+            map.put("max_wait_ms", maxWaitNanos / 1e6);
+            return map;
+        }
+
+        @Override
+        public String toString() {
+            return "AppExecutors.Stats{" + name + ", tasks=" + tasks + ", queued=" + queued + ", maxQueued=" + maxQueued
+                    + ", avgWaitMs=" + String.format("%.2f", averageWaitMs()) + ", maxWaitMs="
+                    + String.format("%.2f", maxWaitNanos / 1e6) + "}";
+        }
+    }
+
+    /** A fixed pool of daemon threads that times how long each task queued. */
+    private static final class InstrumentedExecutor extends ThreadPoolExecutor {
+
+        private final String name;
+        private final AtomicInteger maxQueued = new AtomicInteger();
+        private final AtomicLong tasks = new AtomicLong();
+        private final AtomicLong totalWaitNanos = new AtomicLong();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+
+        InstrumentedExecutor(String name, int threads) {
+            super(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), threadFactory(name, threads));
+            this.name = name;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            int depth = getQueue().size() + 1;
+            maxQueued.accumulateAndGet(depth, Math::max);
+            super.execute(new Timed(command, System.nanoTime()));
+        }
+
+        @Override
+        protected void beforeExecute(Thread t, Runnable r) {
+            super.beforeExecute(t, r);
+            if (r instanceof Timed) {
+                long wait = System.nanoTime() - ((Timed) r).queuedAt;
+                tasks.incrementAndGet();
+                totalWaitNanos.addAndGet(wait);
+                maxWaitNanos.accumulateAndGet(wait, Math::max);
+            }
+        }
+
+        Stats stats(boolean reset) {
+            if (!reset) {
+                return new Stats(name, getCorePoolSize(), getQueue().size(), maxQueued.get(), tasks.get(),
+                        totalWaitNanos.get(), maxWaitNanos.get());
+            }
+            return new Stats(name, getCorePoolSize(), getQueue().size(), maxQueued.getAndSet(0), tasks.getAndSet(0),
+                    totalWaitNanos.getAndSet(0), maxWaitNanos.getAndSet(0));
+        }
+
+        private static ThreadFactory threadFactory(String name, int threads) {
+            AtomicInteger n = new AtomicInteger();
+            return r -> {
+                Thread t = new Thread(r, threads == 1 ? name : name + "-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            };
+        }
+    }
+
+    private static final class Timed implements Runnable {
+        final Runnable task;
+        final long queuedAt;
+
+        Timed(Runnable task, long queuedAt) {
+            this.task = task;
+            this.queuedAt = queuedAt;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.parcellocker;
+
+import android.app.Application;
+import android.content.pm.ApplicationInfo;
+import android.os.StrictMode;
+
+import com.example.parcellocker.db.MachineDatabase;
+
+/**
+ * Application entry point. Opens the database in the background as soon as the
+ * process starts, and in debuggable builds turns on StrictMode so any disk or
+ * network access that slips onto the main thread shows up in logcat. Room
+ * itself rejects main-thread queries in every build.
+ */
+public class ParcelLockerApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                    .detectDiskReads()
+                    .detectDiskWrites()
+                    .detectNetwork()
+                    .penaltyLog()
+                    .build());
+            StrictMode.setVmPolicy(new StrictMode.VmPolicy.Builder()
+                    .detectLeakedSqlLiteObjects()
+                    .detectLeakedClosableObjects()
+                    .penaltyLog()
+                    .build());
+        }
+        MachineDatabase.openAsync(this).whenComplete((db, error) -> {
+            if (error != null) System.err.println("Database open failed: " + error.getMessage());
+        });
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.parcellocker.cu16;
+
+import java.util.Objects;
+
+/**
+ * Settings pushed to a CU board by {@link CU16Provisioner}. A null field is left
+ * as the board has it. Values are the raw 16-bit words of CMD_SET_UNLOCK_TIME and
+ * CMD_SET_DELAY_OR_BAUD; their units depend on the board firmware.
+ */
+public final class CU16BoardConfig {
+
+    private final Integer unlockTime;
+    private final Integer delayOrBaud;
+
+    public CU16BoardConfig(Integer unlockTime, Integer delayOrBaud) {
+        this.unlockTime = unlockTime;
+        this.delayOrBaud = delayOrBaud;
+    }
+
+    public Integer getUnlockTime() { return unlockTime; }
+
+    public Integer getDelayOrBaud() { return delayOrBaud; }
+
+    /** True if every setting this config sets is also set to the same value in {@code applied}. */
+    public boolean isSatisfiedBy(CU16BoardConfig applied) {
+        if (applied == null) return unlockTime == null && delayOrBaud == null;
+        return (unlockTime == null || unlockTime.equals(applied.unlockTime))
+                && (delayOrBaud == null || delayOrBaud.equals(applied.delayOrBaud));
+    }
+
+    /** This config with the unset fields taken from {@code previous}. */
+    CU16BoardConfig over(CU16BoardConfig previous) {
+        if (previous == null) return this;
+        return new CU16BoardConfig(unlockTime != null ? unlockTime : previous.unlockTime,
+                delayOrBaud != null ? delayOrBaud : previous.delayOrBaud);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CU16BoardConfig)) return false;
+        CU16BoardConfig other = (CU16BoardConfig) o;
+        return Objects.equals(unlockTime, other.unlockTime)
+                && Objects.equals(delayOrBaud, other.delayOrBaud);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(unlockTime, delayOrBaud);
+    }
+
+    @Override
+    public String toString() {
+        return "CU16BoardConfig{unlockTime=" + unlockTime + ", delayOrBaud=" + delayOrBaud + "}";
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.parcellocker.cu16;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Command path to one BU: queues frames and completes a future with the matching
+ * response. Implemented by the blocking {@link CU16BusScheduler} and by the
+ * selector-driven {@link CU16NioBus}.
+ */
+public interface CU16Bus extends Closeable {
+
+    /** Queues a frame; the future completes with the matching status response. */
+    CompletableFuture<CU16Parser.Status> submit(byte[] frame);
+
+    /**
+     * Queues a frame whose answer carries a 16-bit value instead of a status, such
+     * as CMD_SET_UNLOCK_TIME; the future completes with that value.
+     */
+    CompletableFuture<Integer> submitForValue(byte[] frame);
+
+    /**
+     * Queues a frame the board does not answer, such as CMD_SET_DELAY_OR_BAUD; the
+     * future completes once it was written. Delivery cannot be confirmed.
+     */
+    CompletableFuture<Void> send(byte[] frame);
+
+    /**
+     * Queues several frames at once so they go out back to back, coalesced into as
+     * few writes as the in-flight window allows. One future per frame, in order.
+     */
+    default List<CompletableFuture<CU16Parser.Status>> submitAll(List<byte[]> frames) {
+        List<CompletableFuture<CU16Parser.Status>> futures = new ArrayList<>(frames.size());
+        for (byte[] frame : frames) futures.add(submit(frame));
+        return futures;
+    }
+
+    /**
+     * Queues a bus-wide CMD_GET_ALL_BUS frame; the future completes with every
+     * RESP_STATUS_ALL frame received once {@code expectedBoards} CUs answered
+     * (0 = unknown) or the bus went quiet.
+     */
+    CompletableFuture<CU16BusSnapshot> submitBusQuery(byte[] frame, int expectedBoards);
+
+    /** Response times seen on this bus; per-request timeouts are derived from it. */
+    CU16LatencyTracker getLatencyTracker();
+
+    /** Per-stage latency histograms of this bus. */
+    CU16Metrics getMetrics();
+
+    /** Requests written and waiting for a response plus those still queued. */
+    int pendingCount();
+
+    /** Fails anything still pending and releases the connection. */
+    @Override
+    void close();
+}
@@ -0,0 +1,360 @@
+package com.example.parcellocker.cu16;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Pipelined command queue for one BU connection or serial line ({@link CU16Transport}).
+ *
+ * Each CU has its own FIFO lane. A sender thread writes frames round-robin across
+ * lanes while up to {@code maxInFlight} of them (and {@code maxInFlightPerBoard}
+ * per CU) wait for an answer, so a slow board never blocks the others. Every
+ * frame that may be sent at that moment goes out in one write. Within a lane
+ * nothing is reordered, so each board sees its commands in submission order.
+ * A receiver thread matches each status response back to its request by
+ * ADDR/CMD and completes that request's future. Requests for the same CU are
+ * answered in order, so matching picks the exact ADDR first and falls back to
+ * the oldest request on the same CU.
+ * Bus-wide queries collect one RESP_STATUS_ALL frame per CU until every
+ * expected board answered or the bus goes quiet.
+ *
+ * Each board command waits as long as its {@link CU16LatencyTracker} says, so a
+ * lost frame is noticed after roughly the real round trip rather than the fixed
+ * response timeout, which only caps it.
+ */
+public class CU16BusScheduler implements CU16Bus {
+
+    private static final int POLL_MS = 50;
+    private static final int MAX_WRITE = 256;
+
+    private final CU16Transport client;
+    private final int maxInFlight;
+    private final int maxInFlightPerBoard;
+    // Guarded by inFlight, which is also the monitor both threads wait on.
+    private final List<CU16Request> inFlight = new ArrayList<>();
+    private final List<ArrayDeque<CU16Request>> lanes = new ArrayList<>(CU16Request.BUS_LANE + 1);
+    private final int[] laneInFlight = new int[CU16Request.BUS_LANE + 1];
+    private int nextLane;
+    private final byte[] writeBuf = new byte[MAX_WRITE]; // sender thread only
+    private final CU16LatencyTracker latency = new CU16LatencyTracker();
+    private final CU16Metrics metrics = new CU16Metrics();
+    private final Thread sender;
+    private final Thread receiver;
+
+    private volatile int responseTimeoutMs = 3000;
+    private volatile int busQuietMs = 100;
+    private volatile boolean running = true;
+
+    public CU16BusScheduler(CU16Transport client) {
+        this(client, 4);
+    }
+
+    public CU16BusScheduler(CU16Transport client, int maxInFlight) {
+        this(client, maxInFlight, maxInFlight);
+    }
+
+    public CU16BusScheduler(CU16Transport client, int maxInFlight, int maxInFlightPerBoard) {
+        if (maxInFlight < 1 || maxInFlightPerBoard < 1) throw new IllegalArgumentException("in-flight limits must be >= 1");
+        this.client = client;
+        client.setMetrics(metrics);
+        this.maxInFlight = maxInFlight;
+        this.maxInFlightPerBoard = maxInFlightPerBoard;
+        for (int i = 0; i <= CU16Request.BUS_LANE; i++) lanes.add(new ArrayDeque<>());
+        this.sender = new Thread(this::sendLoop, "cu16-bus-tx");
+        this.receiver = new Thread(this::receiveLoop, "cu16-bus-rx");
+        sender.setDaemon(true);
+        receiver.setDaemon(true);
+        sender.start();
+        receiver.start();
+    }
+
+    /**
+     * Longest a written frame may wait for its response before its future fails;
+     * board commands usually get the shorter adaptive timeout.
+     */
+    public void setResponseTimeoutMs(int ms) { this.responseTimeoutMs = ms; }
+
+    /** Gap after the last RESP_STATUS_ALL frame after which a bus query is considered complete. */
+    public void setBusQuietMs(int ms) { this.busQuietMs = ms; }
+
+    public int getMaxInFlight() { return maxInFlight; }
+
+    public int getMaxInFlightPerBoard() { return maxInFlightPerBoard; }
+
+    @Override
+    public CU16LatencyTracker getLatencyTracker() { return latency; }
+
+    @Override
+    public CU16Metrics getMetrics() { return metrics; }
+
+    @Override
+    public int pendingCount() {
+        synchronized (inFlight) {
+            int n = inFlight.size();
+            for (ArrayDeque<CU16Request> lane : lanes) n += lane.size();
+            return n;
+        }
+    }
+
+    @Override
+    public CompletableFuture<CU16Parser.Status> submit(byte[] frame) {
+        if (frame == null || frame.length < 5) throw new IllegalArgumentException("bad frame");
+        return enqueue(new CU16Request.Single(frame)).future;
+    }
+
+    /** {@inheritDoc} Fails with a timeout only if no board answered at all. */
+    @Override
+    public CompletableFuture<CU16BusSnapshot> submitBusQuery(byte[] frame, int expectedBoards) {
+        if (frame == null || frame.length < 5 || frame[2] != CU16Commands.CMD_GET_ALL_BUS) {
+            throw new IllegalArgumentException("not a bus query frame");
+        }
+        return enqueue(new CU16Request.Bus(frame, expectedBoards)).future;
+    }
+
+    @Override
+    public CompletableFuture<Integer> submitForValue(byte[] frame) {
+        if (frame == null || frame.length < 5) throw new IllegalArgumentException("bad frame");
+        return enqueue(new CU16Request.Value(frame)).future;
+    }
+
+    @Override
+    public CompletableFuture<Void> send(byte[] frame) {
+        if (frame == null || frame.length < 5) throw new IllegalArgumentException("bad frame");
+        return enqueue(new CU16Request.NoReply(frame)).future;
+    }
+
+    /** {@inheritDoc} The frames are queued atomically, so the sender sees them together. */
+    @Override
+    public List<CompletableFuture<CU16Parser.Status>> submitAll(List<byte[]> frames) {
+        List<CU16Request.Single> requests = new ArrayList<>(frames.size());
+        for (byte[] frame : frames) {
+            if (frame == null || frame.length < 5) throw new IllegalArgumentException("bad frame");
+            requests.add(new CU16Request.Single(frame));
+        }
+        boolean queued = false;
+        synchronized (inFlight) {
+            if (running) {
+                for (CU16Request r : requests) lanes.get(r.lane).add(r);
+                inFlight.notifyAll();
+                queued = true;
+            }
+        }
+        List<CompletableFuture<CU16Parser.Status>> futures = new ArrayList<>(requests.size());
+        for (CU16Request.Single r : requests) {
+            if (!queued) r.fail(new IllegalStateException("scheduler closed"));
+            futures.add(r.future);
+        }
+        return futures;
+    }
+
+    private <R extends CU16Request> R enqueue(R r) {
+        synchronized (inFlight) {
+            if (running) {
+                lanes.get(r.lane).add(r);
+                inFlight.notifyAll();
+                return r;
+            }
+        }
+        r.fail(new IllegalStateException("scheduler closed"));
+        return r;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        sender.interrupt();
+        receiver.interrupt();
+        CancellationException closed = new CancellationException("scheduler closed");
+        List<CU16Request> queued = new ArrayList<>();
+        synchronized (inFlight) {
+            for (ArrayDeque<CU16Request> lane : lanes) {
+                queued.addAll(lane);
+                lane.clear();
+            }
+        }
+        for (CU16Request r : queued) r.fail(closed);
+        failInFlight(closed);
+        client.close();
+    }
+
+    private void sendLoop() {
+        List<CU16Request> batch = new ArrayList<>();
+        while (running) {
+            int len = 0;
+            batch.clear();
+            synchronized (inFlight) {
+                CU16Request r;
+                try {
+                    while ((r = nextSendable()) == null) {
+                        if (!running) return;
+                        inFlight.wait();
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                // Drain whatever else the window allows into the same write.
+                long now = System.currentTimeMillis();
+                long sentAt = System.nanoTime();
+                do {
+                    r.deadline = now + timeoutFor(r);
+                    r.sentAt = sentAt;
+                    inFlight.add(r);
+                    laneInFlight[r.lane]++;
+                    batch.add(r);
+                    System.arraycopy(r.frame, 0, writeBuf, len, r.frame.length);
+                    len += r.frame.length;
+                } while (len + CU16FrameDecoder.MAX_FRAME <= MAX_WRITE && (r = nextSendable()) != null);
+                inFlight.notifyAll();
+            }
+            try {
+                long start = System.nanoTime();
+                client.write(writeBuf, 0, len);
+                metrics.record(CU16Metrics.Stage.WRITE, CU16Metrics.BUS, (byte) 0, System.nanoTime() - start);
+            } catch (IOException e) {
+                // Anything else in flight went out on the same dead connection.
+                failInFlight(e);
+                continue;
+            }
+            for (CU16Request r : batch) {
+                if (r.expect == 0 && retire(r)) {
+                    r.accept(CU16StatusWord.INVALID);
+                    r.finish();
+                }
+            }
+        }
+    }
+
+    private void receiveLoop() {
+        byte[] buf = new byte[256];
+        byte[] frame = new byte[CU16FrameDecoder.MAX_FRAME];
+        CU16FrameDecoder decoder = new CU16FrameDecoder();
+        while (running) {
+            if (!client.isConnected()) {
+                decoder.reset();
+                if (!awaitInFlight()) return;
+                expire();
+                continue;
+            }
+            int n;
+            try {
+                n = client.read(buf, 0, buf.length, POLL_MS);
+            } catch (IOException e) {
+                failInFlight(e);
+                continue;
+            }
+            if (n < 0) {
+                failInFlight(new EOFException("connection closed by BU"));
+                continue;
+            }
+            if (n > 0) {
+                decoder.feed(buf, 0, n);
+                int len;
+                while ((len = decoder.nextFrame(frame)) > 0) dispatch(frame, len);
+            }
+            expire();
+        }
+    }
+
+    /** Completes the request a decoded frame answers; frames nobody waits for are dropped. */
+    private void dispatch(byte[] frame, int len) {
+        long word = CU16Parser.parseResponseWord(frame, 0, len);
+        if (word == CU16StatusWord.INVALID) return;
+        CU16Request r = match(CU16StatusWord.addr(word), CU16StatusWord.cmd(word));
+        if (r != null && r.accept(word) && retire(r)) {
+            r.observe(latency, metrics, System.nanoTime());
+            r.finish();
+        }
+    }
+
+    private long timeoutFor(CU16Request r) {
+        if (r.lane == CU16Request.BUS_LANE) return responseTimeoutMs;
+        return Math.min(responseTimeoutMs, latency.timeoutMs(r.addr, r.frame[2]));
+    }
+
+    /** Next queued request whose lane and the overall window have room, round-robin over lanes. */
+    private CU16Request nextSendable() {
+        if (inFlight.size() >= maxInFlight) return null;
+        for (int i = 0; i <= CU16Request.BUS_LANE; i++) {
+            int lane = (nextLane + i) % (CU16Request.BUS_LANE + 1);
+            if (laneInFlight[lane] >= maxInFlightPerBoard) continue;
+            ArrayDeque<CU16Request> q = lanes.get(lane);
+            CU16Request r;
+            while ((r = q.poll()) != null && r.isDone()) {
+                // cancelled by the caller before it was sent
+            }
+            if (r == null) continue;
+            nextLane = lane + 1;
+            return r;
+        }
+        return null;
+    }
+
+    /** Finds the in-flight request a response belongs to; it stays in flight until retired. */
+    private CU16Request match(byte addr, byte cmd) {
+        synchronized (inFlight) {
+            return CU16Request.match(inFlight, addr, cmd);
+        }
+    }
+
+    private boolean retire(CU16Request r) {
+        synchronized (inFlight) {
+            if (!inFlight.remove(r)) return false;
+            laneInFlight[r.lane]--;
+            inFlight.notifyAll();
+            return true;
+        }
+    }
+
+    private boolean awaitInFlight() {
+        synchronized (inFlight) {
+            try {
+                inFlight.wait(POLL_MS);
+                return true;
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }
+    }
+
+    private void expire() {
+        long now = System.currentTimeMillis();
+        List<CU16Request> expired = null;
+        synchronized (inFlight) {
+            Iterator<CU16Request> it = inFlight.iterator();
+            while (it.hasNext()) {
+                CU16Request r = it.next();
+                if (r.deadline <= now || r.settled(now, busQuietMs)) {
+                    it.remove();
+                    laneInFlight[r.lane]--;
+                    if (expired == null) expired = new ArrayList<>();
+                    expired.add(r);
+                }
+            }
+            if (expired != null) inFlight.notifyAll();
+        }
+        if (expired == null) return;
+        long nowNanos = System.nanoTime();
+        for (CU16Request r : expired) {
+            r.observe(latency, metrics, nowNanos);
+            r.finish();
+        }
+    }
+
+    private void failInFlight(Throwable cause) {
+        List<CU16Request> failed;
+        synchronized (inFlight) {
+            failed = new ArrayList<>(inFlight);
+            inFlight.clear();
+            Arrays.fill(laneInFlight, 0);
+            inFlight.notifyAll();
+        }
+        for (CU16Request r : failed) r.fail(cause);
+    }
+}
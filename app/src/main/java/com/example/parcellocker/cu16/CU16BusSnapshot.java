@@ -0,0 +1,56 @@
+package com.example.parcellocker.cu16;
+
+import java.util.Arrays;
+
+/**
+ * Status of every CU on the bus, as returned by one CMD_GET_ALL_BUS query.
+ * Holds one packed {@link CU16StatusWord} per CU id; CUs that did not answer
+ * are {@link CU16StatusWord#INVALID}.
+ */
+public final class CU16BusSnapshot {
+
+    public static final int MAX_BOARDS = 16;
+
+    private final long[] words;
+    private final long timestamp;
+
+    public CU16BusSnapshot(long[] words, long timestamp) {
+        if (words.length != MAX_BOARDS) throw new IllegalArgumentException("need one word per CU");
+        this.words = words.clone();
+        this.timestamp = timestamp;
+    }
+
+    /** Wall-clock time the last frame of the reply arrived. */
+    public long getTimestamp() { return timestamp; }
+
+    public boolean isPresent(int cuId) {
+        return words[cuId & 0x0F] != CU16StatusWord.INVALID;
+    }
+
+    /** Packed status of {@code cuId}, or {@link CU16StatusWord#INVALID} if it did not answer. */
+    public long word(int cuId) {
+        return words[cuId & 0x0F];
+    }
+
+    /** Status of {@code cuId}, or null if it did not answer. */
+    public CU16Parser.Status status(int cuId) {
+        long w = word(cuId);
+        return w == CU16StatusWord.INVALID ? null : new CU16Parser.Status(w);
+    }
+
+    public int boardCount() {
+        int n = 0;
+        for (long w : words) if (w != CU16StatusWord.INVALID) n++;
+        return n;
+    }
+
+    /** Copies the per-CU words into {@code dst} (length {@link #MAX_BOARDS}). */
+    public void copyWords(long[] dst) {
+        System.arraycopy(words, 0, dst, 0, MAX_BOARDS);
+    }
+
+    @Override
+    public String toString() {
+        return "CU16BusSnapshot{boards=" + boardCount() + ", words=" + Arrays.toString(words) + "}";
+    }
+}
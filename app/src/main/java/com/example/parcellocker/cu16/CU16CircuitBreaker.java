@@ -0,0 +1,178 @@
+package com.example.parcellocker.cu16;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker per CU board.
+ *
+ * After {@code failureThreshold} consecutive timeouts or connection errors a board
+ * is OPEN: its commands fail at once instead of each waiting out a timeout. Once the
+ * open interval has passed the board is HALF_OPEN and exactly one command (a caller's,
+ * or the scheduled probe) is let through; success closes the breaker, failure opens it
+ * again with the interval doubled up to {@code maxOpenMs}. Thread-safe.
+ */
+public final class CU16CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /** Called outside the breaker's lock, on whichever thread completed the command. */
+    public interface Listener {
+        void onStateChanged(int cuId, State from, State to);
+    }
+
+    /** Sends one cheap command to a board that is due for a probe. */
+    public interface Prober {
+        CompletableFuture<?> probe(int cuId);
+    }
+
+    private static final int BOARDS = CU16BusSnapshot.MAX_BOARDS;
+
+    private final State[] states = new State[BOARDS];
+    private final int[] failures = new int[BOARDS];
+    private final long[] openUntil = new long[BOARDS];
+    private final long[] openMs = new long[BOARDS];
+    private final long[] lastSuccessAt = new long[BOARDS];
+    private final long[] lastFailureAt = new long[BOARDS];
+    private final boolean[] probing = new boolean[BOARDS];
+    private final boolean[] seen = new boolean[BOARDS];
+    private final LongSupplier clock;
+
+    private volatile int failureThreshold = 3;
+    private volatile long minOpenMs = 2_000;
+    private volatile long maxOpenMs = 60_000;
+    private volatile Listener listener;
+    private volatile Prober prober;
+
+    public CU16CircuitBreaker() {
+        this(System::currentTimeMillis);
+    }
+
+    /** With a custom millisecond clock, for tests. */
+    CU16CircuitBreaker(LongSupplier clock) {
+        this.clock = clock;
+        Arrays.fill(states, State.CLOSED);
+    }
+
+    public void setFailureThreshold(int n) {
+        if (n < 1) throw new IllegalArgumentException("threshold must be >= 1");
+        this.failureThreshold = n;
+    }
+
+    /** First open interval and the cap it doubles up to while probes keep failing. */
+    public void setOpenInterval(long minMs, long maxMs) {
+        if (minMs < 1 || maxMs < minMs) throw new IllegalArgumentException("bad open interval");
+        this.minOpenMs = minMs;
+        this.maxOpenMs = maxMs;
+    }
+
+    public void setListener(Listener listener) { this.listener = listener; }
+
+    /** With a prober set, an open board is probed as soon as its interval ends instead of waiting for traffic. */
+    public void setProber(Prober prober) { this.prober = prober; }
+
+    /**
+     * Null if a command for {@code cuId} may go out now, else the error to fail it with.
+     * A HALF_OPEN board admits one command at a time.
+     */
+    public IOException check(int cuId) {
+        int cu = cuId & 0x0F;
+        State from;
+        synchronized (this) {
+            seen[cu] = true;
+            from = states[cu];
+            if (from == State.CLOSED) return null;
+            long now = clock.getAsLong();
+            if (from == State.OPEN && now < openUntil[cu]) {
+                return new IOException("CU " + cu + " offline, retrying in " + (openUntil[cu] - now) + " ms");
+            }
+            if (from == State.HALF_OPEN && probing[cu]) {
+                return new IOException("CU " + cu + " offline, probe in progress");
+            }
+            states[cu] = State.HALF_OPEN;
+            probing[cu] = true;
+        }
+        if (from != State.HALF_OPEN) notifyChange(cu, from, State.HALF_OPEN);
+        return null;
+    }
+
+    /** Feeds the outcome of a command that {@link #check} let through. */
+    public void record(int cuId, Throwable error) {
+        if (error == null) {
+            onSuccess(cuId);
+        } else if (countsAsFailure(error)) {
+            onFailure(cuId);
+        } else {
+            // Says nothing about the board; just release a half-open slot.
+            synchronized (this) { probing[cuId & 0x0F] = false; }
+        }
+    }
+
+    public void onSuccess(int cuId) {
+        int cu = cuId & 0x0F;
+        State from;
+        synchronized (this) {
+            seen[cu] = true;
+            from = states[cu];
+            states[cu] = State.CLOSED;
+            failures[cu] = 0;
+            openMs[cu] = 0;
+            probing[cu] = false;
+            lastSuccessAt[cu] = clock.getAsLong();
+        }
+        if (from != State.CLOSED) notifyChange(cu, from, State.CLOSED);
+    }
+
+    public void onFailure(int cuId) {
+        int cu = cuId & 0x0F;
+        State from;
+        long delay;
+        synchronized (this) {
+            seen[cu] = true;
+            from = states[cu];
+            long now = clock.getAsLong();
+            lastFailureAt[cu] = now;
+            failures[cu]++;
+            probing[cu] = false;
+            if (from == State.CLOSED && failures[cu] < failureThreshold) return;
+            if (from == State.OPEN) return; // a straggler sent before the breaker opened
+            openMs[cu] = openMs[cu] == 0 ? minOpenMs : Math.min(openMs[cu] * 2, maxOpenMs);
+            openUntil[cu] = now + openMs[cu];
+            states[cu] = State.OPEN;
+            delay = openMs[cu];
+        }
+        notifyChange(cu, from, State.OPEN);
+        scheduleProbe(cu, delay);
+    }
+
+    public synchronized State state(int cuId) {
+        return states[cuId & 0x0F];
+    }
+
+    public synchronized CU16Health snapshot() {
+        return new CU16Health(states, failures, lastSuccessAt, lastFailureAt, seen, clock.getAsLong());
+    }
+
+    /** Timeouts and connection errors; a closed bus or a bad frame says nothing about the board. */
+    static boolean countsAsFailure(Throwable error) {
+        error = CU16Futures.unwrap(error);
+        return error instanceof TimeoutException || error instanceof IOException;
+    }
+
+    private void scheduleProbe(int cu, long delayMs) {
+        if (prober == null) return;
+        CU16Futures.delay(delayMs).thenRun(() -> {
+            Prober p = prober;
+            if (p == null || state(cu) != State.OPEN) return;
+            p.probe(cu);
+        });
+    }
+
+    private void notifyChange(int cu, State from, State to) {
+        Listener l = listener;
+        if (l != null) l.onStateChanged(cu, from, to);
+    }
+}
@@ -1,42 +1,253 @@
 package com.example.parcellocker.cu16;
 
+import java.io.EOFException;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 
-///
-//        * Low-level TCP client to talk to the BU/simulator.
-//        * Use from background thread only.
-//        */
-public class CU16Client {
+/**
+ * Low-level TCP client to talk to the BU/simulator.
+ * Use from background thread only.
+ *
+ * Keeps one long-lived socket to the BU by default so a command only pays the
+ * round trip. A dead connection is detected on reuse and re-opened once;
+ * failed connects back off exponentially and fail fast inside the backoff window.
+ * Call {@link #setPersistent(boolean)} with false for the old connect-per-command mode.
+ */
+public class CU16Client implements CU16Transport {
     private final String ip;
     private final int port;
-    private int timeoutMs = 3000;
+    private int connectTimeoutMs = 3000;
+    private int readTimeoutMs = 3000;
+
+    private boolean persistent = true;
+    private long idleProbeMs = 15_000;
+    private long minBackoffMs = 250;
+    private long maxBackoffMs = 8_000;
+
+    private volatile Socket socket;
+    private volatile InputStream in;
+    private volatile OutputStream out;
+    private long lastUsedAt;
+    private int connectFailures;
+    private long nextConnectAt;
+    private volatile CU16Metrics metrics;
 
     public CU16Client(String ip, int port) {
         this.ip = ip; this.port = port;
     }
 
-    public void setTimeoutMs(int ms) { this.timeoutMs = ms; }
+    /** Sets both the connect and the read timeout. */
+    public void setTimeoutMs(int ms) {
+        this.connectTimeoutMs = ms;
+        this.readTimeoutMs = ms;
+    }
+
+    /** How long opening the connection may take; a BU that is down fails after this. */
+    public void setConnectTimeoutMs(int ms) { this.connectTimeoutMs = ms; }
+
+    /** How long {@link #sendAndReceive} waits for the answer. */
+    public void setReadTimeoutMs(int ms) { this.readTimeoutMs = ms; }
+
+    @Override
+    public void setMetrics(CU16Metrics metrics) { this.metrics = metrics; }
+
+    /** Keep the socket open between commands (default true). */
+    public synchronized void setPersistent(boolean persistent) {
+        this.persistent = persistent;
+        if (!persistent) closeQuietly();
+    }
+
+    /** Idle time after which a reused socket is probed for a peer close before writing. */
+    public void setIdleProbeMs(long ms) { this.idleProbeMs = ms; }
+
+    /** Reconnect backoff bounds; the delay doubles per failed connect up to {@code maxMs}. */
+    public void setReconnectBackoff(long minMs, long maxMs) {
+        this.minBackoffMs = minMs; this.maxBackoffMs = maxMs;
+    }
+
+    @Override
+    public boolean isConnected() {
+        Socket s = socket;
+        return s != null && s.isConnected() && !s.isClosed();
+    }
 
 //    / Send packet and return raw response bytes (may be multiple frames) */
     public synchronized byte[] sendAndReceive(byte[] packet) throws Exception {
+        if (!persistent) return sendOneShot(packet);
+
+        for (int attempt = 0; ; attempt++) {
+            boolean reused = checkAlive();
+            if (!reused) connect();
+            try {
+                discardStale();
+                out.write(packet);
+                out.flush();
+                byte[] resp = readOnce(in);
+                if (resp == null) throw new EOFException("connection closed by BU");
+                lastUsedAt = System.currentTimeMillis();
+                return resp;
+            } catch (SocketTimeoutException e) {
+                // The board may have acted on the frame; never resend on a timeout.
+                closeQuietly();
+                throw e;
+            } catch (IOException e) {
+                closeQuietly();
+                // A reused socket that turns out to be dead never delivered the frame.
+                if (!reused || attempt > 0) throw e;
+            }
+        }
+    }
+
+    /**
+     * Stream mode for pipelining: writes a frame on the shared connection, opening
+     * it if needed. Responses are not read here; a single reader uses {@link #read}.
+     */
+    @Override
+    public synchronized void write(byte[] frame, int off, int len) throws IOException {
+        if (!isConnected()) connect();
+        try {
+            out.write(frame, off, len);
+            out.flush();
+            lastUsedAt = System.currentTimeMillis();
+        } catch (IOException e) {
+            closeQuietly();
+            throw e;
+        }
+    }
+
+    /**
+     * Stream mode: reads whatever bytes are available on the shared connection.
+     * Returns 0 when nothing arrived within {@code waitMs}, -1 when the BU closed
+     * the connection (which is then dropped). Only one thread may read.
+     */
+    @Override
+    public int read(byte[] buf, int off, int len, int waitMs) throws IOException {
+        Socket s = socket;
+        InputStream is = in;
+        if (s == null || is == null) throw new IOException("not connected");
+        try {
+            s.setSoTimeout(Math.max(1, waitMs));
+            int n = is.read(buf, off, len);
+            if (n < 0) drop(s);
+            return n;
+        } catch (SocketTimeoutException e) {
+            return 0;
+        } catch (IOException e) {
+            drop(s);
+            throw e;
+        }
+    }
+
+    /** Closes {@code s} only if the writer has not already replaced it with a new connection. */
+    private synchronized void drop(Socket s) {
+        if (socket == s) closeQuietly();
+    }
+
+    @Override
+    public synchronized void close() {
+        closeQuietly();
+    }
+
+    private byte[] sendOneShot(byte[] packet) throws IOException {
         try (Socket s = new Socket()) {
-            s.connect(new InetSocketAddress(ip, port), timeoutMs);
-            s.setSoTimeout(timeoutMs);
+            s.connect(new InetSocketAddress(ip, port), connectTimeoutMs);
+            s.setSoTimeout(readTimeoutMs);
             OutputStream out = s.getOutputStream();
             InputStream in = s.getInputStream();
 
             out.write(packet);
             out.flush();
+            return readOnce(in);
+        }
+    }
+
+    private static byte[] readOnce(InputStream in) throws IOException {
+        byte[] buf = new byte[256];
+        int n = in.read(buf);
+        if (n <= 0) return null;
+        byte[] outb = new byte[n];
+        System.arraycopy(buf, 0, outb, 0, n);
+        return outb;
+    }
+
+    /** Liveness check for the cached socket; probes with a short read when it has been idle. */
+    private boolean checkAlive() {
+        if (!isConnected() || socket.isInputShutdown() || socket.isOutputShutdown()) {
+            closeQuietly();
+            return false;
+        }
+        if (System.currentTimeMillis() - lastUsedAt < idleProbeMs) return true;
+        try {
+            socket.setSoTimeout(1);
+            int b = in.read();
+            if (b < 0) {
+                closeQuietly();
+                return false;
+            }
+            // A late frame from an earlier timed-out command; drop the rest below.
+            return true;
+        } catch (SocketTimeoutException e) {
+            return true;
+        } catch (IOException e) {
+            closeQuietly();
+            return false;
+        } finally {
+            try {
+                if (socket != null) socket.setSoTimeout(readTimeoutMs);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /** Drop bytes left over from a previous command so they are not taken as this response. */
+    private void discardStale() throws IOException {
+        int n = in.available();
+        while (n > 0) {
+            n -= (int) in.skip(n);
+            if (n <= 0) n = in.available();
+        }
+    }
+
+    private void connect() throws IOException {
+        long now = System.currentTimeMillis();
+        if (now < nextConnectAt) {
+            throw new IOException("BU " + ip + ":" + port + " unreachable, retrying in "
+                    + (nextConnectAt - now) + " ms");
+        }
+        Socket s = new Socket();
+        long start = System.nanoTime();
+        try {
+            s.setTcpNoDelay(true);
+            s.setKeepAlive(true);
+            s.connect(new InetSocketAddress(ip, port), connectTimeoutMs);
+            s.setSoTimeout(readTimeoutMs);
+            in = s.getInputStream();
+            out = s.getOutputStream();
+            socket = s;
+            lastUsedAt = now;
+            connectFailures = 0;
+            nextConnectAt = 0;
+            CU16Metrics m = metrics;
+            if (m != null) m.record(CU16Metrics.Stage.CONNECT, CU16Metrics.BUS, (byte) 0, System.nanoTime() - start);
+        } catch (IOException e) {
+            try { s.close(); } catch (IOException ignored) { }
+            connectFailures++;
+            long delay = minBackoffMs << Math.min(connectFailures - 1, 16);
+            nextConnectAt = System.currentTimeMillis() + Math.min(delay, maxBackoffMs);
+            throw e;
+        }
+    }
 
-            byte[] buf = new byte[256];
-            int n = in.read(buf);
-            if (n <= 0) return null;
-            byte[] outb = new byte[n];
-            System.arraycopy(buf, 0, outb, 0, n);
-            return outb;
+    private void closeQuietly() {
+        if (socket != null) {
+            try { socket.close(); } catch (IOException ignored) { }
         }
+        socket = null;
+        in = null;
+        out = null;
     }
-}
\ No newline at end of file
+}
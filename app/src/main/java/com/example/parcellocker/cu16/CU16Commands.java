@@ -17,5 +17,32 @@ public final class CU16Commands {
     // ...
     private CU16Commands(){}
 
-    
+    /** Number of distinct {@link #kind} values. */
+    static final int KINDS = 4;
+
+    /** Buckets commands for per-command statistics: status, unlock one, unlock all, anything else. */
+    static int kind(byte cmd) {
+        switch (cmd) {
+            case CMD_GET_STATUS: return 0;
+            case CMD_UNLOCK_ONE: return 1;
+            case CMD_UNLOCK_ALL: return 2;
+            default: return 3;
+        }
+    }
+
+    /** Response CMD the board answers {@code cmd} with, or 0 if none is expected. */
+    public static byte responseFor(byte cmd) {
+        switch (cmd) {
+            case CMD_GET_STATUS:
+            case CMD_UNLOCK_ONE:
+            case CMD_UNLOCK_ALL:
+                return RESP_STATUS_SINGLE;
+            case CMD_GET_ALL_BUS:
+                return RESP_STATUS_ALL;
+            case CMD_SET_UNLOCK_TIME:
+                return RESP_UNLOCK_TIME;
+            default:
+                return 0;
+        }
+    }
 }
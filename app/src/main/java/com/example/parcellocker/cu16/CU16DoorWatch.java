@@ -0,0 +1,156 @@
+package com.example.parcellocker.cu16;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Follows one door after an unlock until it was opened and closed again.
+ *
+ * The board reports the lock, not the door leaf: a door counts as opened once its
+ * lock reads unlocked, and as closed once the lock caught again. The door is polled
+ * with status queries, fast right after the unlock and after every transition, and
+ * each poll without news stretches the interval by {@code backoff} up to the
+ * maximum, so a door left open for minutes costs a query every few seconds instead
+ * of several per second. Failed polls back off the same way. A door opened and
+ * closed between two polls still shows up if its occupancy changed meanwhile; it
+ * is then reported as opened at the earlier poll.
+ *
+ * The future completes once the door closed, or with an unfinished {@link Result}
+ * when the watch gives up or is cancelled; it never fails.
+ */
+public final class CU16DoorWatch {
+
+    /** Notified on the thread that completed the status query; keep it short. */
+    public interface Listener {
+        /** {@code afterMs} since the watch started. */
+        void onOpened(int doorIndex, long afterMs);
+
+        /** {@code openMs} the door stayed open; {@code status} is the board's status at closing. */
+        void onClosed(int doorIndex, long openMs, CU16Parser.Status status);
+    }
+
+    private final CU16Service board;
+    private final int doorIndex;
+    private final CompletableFuture<Result> result = new CompletableFuture<>();
+
+    private volatile long initialIntervalMs = 100;
+    private volatile long maxIntervalMs = 2000;
+    private volatile double backoff = 1.5;
+    private volatile long giveUpMs = 5 * 60_000L;
+    private volatile Listener listener;
+
+    // Written by one poll at a time; volatile for cancel().
+    private volatile long startedAt;
+    private volatile long openedAt = -1;
+    private volatile int polls;
+    private long intervalMs;
+    private long lastPollAt;
+    private int firstOccupied = -1;
+
+    CU16DoorWatch(CU16Service board, int doorIndex) {
+        this.board = board;
+        this.doorIndex = doorIndex & 0x0F;
+    }
+
+    /** First interval after the start and after each transition, and the cap it backs off to. */
+    public CU16DoorWatch setIntervals(long initialMs, long maxMs, double backoff) {
+        if (initialMs < 1 || maxMs < initialMs || backoff < 1) throw new IllegalArgumentException("bad intervals");
+        this.initialIntervalMs = initialMs;
+        this.maxIntervalMs = maxMs;
+        this.backoff = backoff;
+        return this;
+    }
+
+    /** How long to wait for the door to open and close before giving up (default 5 min). */
+    public CU16DoorWatch setGiveUpMs(long giveUpMs) {
+        this.giveUpMs = giveUpMs;
+        return this;
+    }
+
+    public CU16DoorWatch setListener(Listener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /** Starts polling; call right after the unlock was answered. */
+    public CompletableFuture<Result> start() {
+        startedAt = System.currentTimeMillis();
+        lastPollAt = startedAt;
+        intervalMs = initialIntervalMs;
+        poll();
+        return result;
+    }
+
+    /** Stops after the poll in flight; the future completes with what was seen so far. */
+    public void cancel() {
+        result.complete(new Result(doorIndex, openedAt, -1, polls, null));
+    }
+
+    private void poll() {
+        if (result.isDone()) return;
+        polls++;
+        board.getStatusSingleAsync(doorIndex).whenComplete((status, error) -> {
+            long now = System.currentTimeMillis();
+            boolean changed = false;
+            if (error == null && status != null) {
+                boolean locked = status.isLocked(doorIndex);
+                int occupied = status.isOccupied(doorIndex) ? 1 : 0;
+                if (firstOccupied < 0) firstOccupied = occupied;
+                if (openedAt < 0 && locked && occupied != firstOccupied) {
+                    // Opened and closed again between two polls.
+                    openedAt = lastPollAt;
+                    Listener l = listener;
+                    if (l != null) l.onOpened(doorIndex, openedAt - startedAt);
+                }
+                if (openedAt < 0 && !locked) {
+                    openedAt = now;
+                    changed = true;
+                    Listener l = listener;
+                    if (l != null) l.onOpened(doorIndex, now - startedAt);
+                } else if (openedAt >= 0 && locked) {
+                    Listener l = listener;
+                    if (l != null) l.onClosed(doorIndex, now - openedAt, status);
+                    result.complete(new Result(doorIndex, openedAt, now, polls, status));
+                    return;
+                }
+            }
+            lastPollAt = now;
+            if (now - startedAt >= giveUpMs) {
+                result.complete(new Result(doorIndex, openedAt, -1, polls, status));
+                return;
+            }
+            intervalMs = changed ? initialIntervalMs : Math.min(maxIntervalMs, (long) (intervalMs * backoff));
+            CU16Futures.delay(intervalMs).thenRun(this::poll);
+        });
+    }
+
+    /** What the watch saw; times are System.currentTimeMillis(), -1 if not observed. */
+    public static final class Result {
+        public final int doorIndex;
+        public final long openedAt;
+        public final long closedAt;
+        public final int polls;
+        /** Last status read, or null if none came back. */
+        public final CU16Parser.Status lastStatus;
+
+        Result(int doorIndex, long openedAt, long closedAt, int polls, CU16Parser.Status lastStatus) {
+            this.doorIndex = doorIndex;
+            this.openedAt = openedAt;
+            this.closedAt = closedAt;
+            this.polls = polls;
+            this.lastStatus = lastStatus;
+        }
+
+        public boolean wasOpened() { return openedAt >= 0; }
+
+        public boolean isClosed() { return closedAt >= 0; }
+
+        /** How long the door stood open, or -1 if it was not seen closing. */
+        public long openMs() { return isClosed() ? closedAt - openedAt : -1; }
+
+        @Override
+        public String toString() {
+            return "CU16DoorWatch.Result{door=" + doorIndex + ", opened=" + wasOpened() + ", closed=" + isClosed()
+                    + ", openMs=" + openMs() + ", polls=" + polls + "}";
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.parcellocker.cu16;
+
+/**
+ * Incremental decoder for CU16 frames arriving on a byte stream.
+ *
+ * Bytes are fed as they are read into a fixed ring buffer; complete frames
+ * (STX ... ETX SUM with a valid checksum) are taken out one at a time, so a
+ * read that splits a frame waits for the rest and a read that carries several
+ * frames yields all of them. Garbage and corrupt frames are skipped by
+ * resynchronising on the next STX. Not thread-safe; meant for one reader.
+ */
+public final class CU16FrameDecoder {
+
+    public static final int MIN_FRAME = 5;
+    public static final int MAX_FRAME = 16;
+
+    private final byte[] ring;
+    private final int mask;
+    private long head; // next byte to decode
+    private long tail; // next free slot
+    private long droppedBytes;
+
+    public CU16FrameDecoder() {
+        this(1024);
+    }
+
+    /** @param capacity ring size in bytes, rounded up to a power of two */
+    public CU16FrameDecoder(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, MAX_FRAME * 2) - 1) << 1;
+        this.ring = new byte[size];
+        this.mask = size - 1;
+    }
+
+    /** Appends received bytes. If the ring is full the oldest undecoded bytes are discarded. */
+    public void feed(byte[] src, int off, int len) {
+        for (int i = 0; i < len; i++) {
+            if (tail - head == ring.length) {
+                head++;
+                droppedBytes++;
+            }
+            ring[(int) (tail++ & mask)] = src[off + i];
+        }
+    }
+
+    /**
+     * Copies the next complete, checksum-valid frame into {@code dst} (at least
+     * {@link #MAX_FRAME} bytes) and returns its length, or 0 if no whole frame is buffered yet.
+     */
+    public int nextFrame(byte[] dst) {
+        while (true) {
+            while (head < tail && at(0) != CU16Commands.STX) {
+                head++;
+                droppedBytes++;
+            }
+            int avail = (int) (tail - head);
+            if (avail < MIN_FRAME) return 0;
+
+            int len = expectedLength(at(2));
+            if (len > 0) {
+                if (avail < len) return 0;
+                if (isFrame(len)) return take(dst, len);
+            } else {
+                // Unknown command: the first ETX followed by a matching checksum ends it.
+                int limit = Math.min(avail, MAX_FRAME);
+                for (int n = MIN_FRAME; n <= limit; n++) {
+                    if (isFrame(n)) return take(dst, n);
+                }
+                if (avail < MAX_FRAME) return 0;
+            }
+            // Corrupt frame: drop its STX and look for the next one.
+            head++;
+            droppedBytes++;
+        }
+    }
+
+    /** Next status frame (RESP_STATUS_SINGLE/ALL), skipping any other frames; null if none yet. */
+    public CU16Parser.Status nextStatus(byte[] scratch) {
+        int n;
+        while ((n = nextFrame(scratch)) > 0) {
+            byte cmd = scratch[2];
+            if (n == 9 && (cmd == CU16Commands.RESP_STATUS_SINGLE || cmd == CU16Commands.RESP_STATUS_ALL)) {
+                return CU16Parser.parseStatus9(scratch, 0);
+            }
+        }
+        return null;
+    }
+
+    /** Zero-allocation variant of {@link #nextStatus}; returns {@link CU16StatusWord#INVALID} if none yet. */
+    public long nextStatusWord(byte[] scratch) {
+        int n;
+        while ((n = nextFrame(scratch)) > 0) {
+            if (n == 9) {
+                long word = CU16Parser.parseStatusWord(scratch, 0);
+                if (word != CU16StatusWord.INVALID) return word;
+            }
+        }
+        return CU16StatusWord.INVALID;
+    }
+
+    /** Bytes buffered but not yet returned as a frame. */
+    public int buffered() {
+        return (int) (tail - head);
+    }
+
+    /** Bytes thrown away while resynchronising or because the ring overflowed. */
+    public long droppedBytes() {
+        return droppedBytes;
+    }
+
+    /** Forgets any partial frame, e.g. after the connection was re-opened. */
+    public void reset() {
+        head = tail = 0;
+    }
+
+    /** Frame length implied by a response CMD, or 0 when it has to be found from the ETX. */
+    static int expectedLength(byte cmd) {
+        switch (cmd) {
+            case CU16Commands.RESP_STATUS_SINGLE:
+            case CU16Commands.RESP_STATUS_ALL:
+                return 9;
+            case CU16Commands.RESP_UNLOCK_TIME:
+                return 7;
+            default:
+                return 0;
+        }
+    }
+
+    private byte at(int i) {
+        return ring[(int) ((head + i) & mask)];
+    }
+
+    private boolean isFrame(int len) {
+        if (at(len - 2) != CU16Commands.ETX) return false;
+        int sum = 0;
+        for (int i = 0; i < len - 1; i++) sum += at(i) & 0xFF;
+        return (byte) sum == at(len - 1);
+    }
+
+    private int take(byte[] dst, int len) {
+        for (int i = 0; i < len; i++) dst[i] = at(i);
+        head += len;
+        return len;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.parcellocker.cu16;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Helpers for composing CU16 futures without parking a thread on {@code get()}.
+ * (CompletableFuture.orTimeout is not available on our minimum API level.)
+ */
+public final class CU16Futures {
+
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "cu16-timeouts");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private CU16Futures() {}
+
+    /**
+     * Returns a future that completes like {@code future}, or fails with a
+     * {@link TimeoutException} after {@code timeoutMs}. The original is left running.
+     */
+    public static <T> CompletableFuture<T> withTimeout(CompletableFuture<T> future, long timeoutMs) {
+        if (future.isDone()) return future;
+        CompletableFuture<T> result = new CompletableFuture<>();
+        ScheduledFuture<?> timer = TIMER.schedule(
+                () -> result.completeExceptionally(new TimeoutException("timed out after " + timeoutMs + " ms")),
+                timeoutMs, TimeUnit.MILLISECONDS);
+        future.whenComplete((value, error) -> {
+            timer.cancel(false);
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(value);
+            }
+        });
+        return result;
+    }
+
+    /** Future that completes with null after {@code delayMs}, for spacing out follow-up commands. */
+    public static CompletableFuture<Void> delay(long delayMs) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        TIMER.schedule(() -> result.complete(null), delayMs, TimeUnit.MILLISECONDS);
+        return result;
+    }
+
+    /** Already failed future; CompletableFuture.failedFuture is not available on our minimum API level. */
+    public static <T> CompletableFuture<T> failed(Throwable error) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        result.completeExceptionally(error);
+        return result;
+    }
+
+    /** Strips CompletionException/ExecutionException wrappers to get the error worth showing. */
+    public static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException)
+                && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.parcellocker.cu16;
+
+/**
+ * Point-in-time view of every board's {@link CU16CircuitBreaker} state, for the UI
+ * and for the machine's online flag. Only boards that were addressed at least once
+ * are known; the rest report CLOSED and are ignored by {@link #isMachineOnline()}.
+ */
+public final class CU16Health {
+
+    private final CU16CircuitBreaker.State[] states;
+    private final int[] failures;
+    private final long[] lastSuccessAt;
+    private final long[] lastFailureAt;
+    private final boolean[] known;
+    private final long timestamp;
+
+    CU16Health(CU16CircuitBreaker.State[] states, int[] failures, long[] lastSuccessAt,
+               long[] lastFailureAt, boolean[] known, long timestamp) {
+        this.states = states.clone();
+        this.failures = failures.clone();
+        this.lastSuccessAt = lastSuccessAt.clone();
+        this.lastFailureAt = lastFailureAt.clone();
+        this.known = known.clone();
+        this.timestamp = timestamp;
+    }
+
+    public long getTimestamp() { return timestamp; }
+
+    public boolean isKnown(int cuId) { return known[cuId & 0x0F]; }
+
+    public CU16CircuitBreaker.State state(int cuId) { return states[cuId & 0x0F]; }
+
+    /** True unless the board's breaker is OPEN or waiting on a probe. */
+    public boolean isAvailable(int cuId) { return states[cuId & 0x0F] == CU16CircuitBreaker.State.CLOSED; }
+
+    /** Consecutive failed commands; 0 after any success. */
+    public int consecutiveFailures(int cuId) { return failures[cuId & 0x0F]; }
+
+    /** Wall-clock time of the last answered command, or 0 if none yet. */
+    public long lastSuccessAt(int cuId) { return lastSuccessAt[cuId & 0x0F]; }
+
+    public long lastFailureAt(int cuId) { return lastFailureAt[cuId & 0x0F]; }
+
+    /** Known boards whose breaker is not CLOSED. */
+    public int unavailableCount() {
+        int n = 0;
+        for (int cu = 0; cu < states.length; cu++) {
+            if (known[cu] && states[cu] != CU16CircuitBreaker.State.CLOSED) n++;
+        }
+        return n;
+    }
+
+    /** True while at least one known board is available, i.e. the BU itself still answers. */
+    public boolean isMachineOnline() {
+        boolean any = false;
+        for (int cu = 0; cu < states.length; cu++) {
+            if (!known[cu]) continue;
+            if (states[cu] == CU16CircuitBreaker.State.CLOSED) return true;
+            any = true;
+        }
+        return !any;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("CU16Health{");
+        for (int cu = 0; cu < states.length; cu++) {
+            if (!known[cu]) continue;
+            if (sb.charAt(sb.length() - 1) != '{') sb.append(", ");
+            sb.append(cu).append('=').append(states[cu]);
+        }
+        return sb.append('}').toString();
+    }
+}
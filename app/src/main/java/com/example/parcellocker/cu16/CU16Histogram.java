@@ -0,0 +1,117 @@
+package com.example.parcellocker.cu16;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear latency histogram in microseconds, in the spirit of HdrHistogram.
+ *
+ * Values below 32 us get a bucket each; above that every power of two is split
+ * into 16 buckets, so any recorded value is reported within ~6%. Covers up to
+ * about 19 hours in 544 counters. Recording is a couple of atomic increments and
+ * never allocates, so it is safe on the I/O threads.
+ */
+public final class CU16Histogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;       // 16 buckets per octave
+    private static final int LINEAR = SUB_COUNT * 2;           // 0..31 us exact
+    private static final int MAX_MAGNITUDE = 36;               // 2^36 us ~ 19 h
+    static final int BUCKETS = (MAX_MAGNITUDE - SUB_BITS) * SUB_COUNT + LINEAR;
+    private static final long MAX_VALUE = (1L << MAX_MAGNITUDE) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void recordMicros(long micros) {
+        long v = Math.max(0, Math.min(micros, MAX_VALUE));
+        counts.incrementAndGet(bucket(v));
+        total.incrementAndGet();
+        sum.addAndGet(v);
+        long m;
+        while (v > (m = max.get()) && !max.compareAndSet(m, v)) {
+            // retry
+        }
+    }
+
+    public void recordNanos(long nanos) {
+        recordMicros(nanos / 1000);
+    }
+
+    public long count() {
+        return total.get();
+    }
+
+    /**
+     * Copies the counters into an immutable snapshot, and with {@code reset} clears
+     * them so the next snapshot covers only the following interval. Values recorded
+     * while the copy runs land in either interval, never in both.
+     */
+    public Snapshot snapshot(boolean reset) {
+        long[] copy = new long[BUCKETS];
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = reset ? counts.getAndSet(i, 0) : counts.get(i);
+            n += copy[i];
+        }
+        long s = reset ? sum.getAndSet(0) : sum.get();
+        long m = reset ? max.getAndSet(0) : max.get();
+        if (reset) total.addAndGet(-n);
+        return new Snapshot(copy, n, s, m);
+    }
+
+    static int bucket(long v) {
+        if (v < LINEAR) return (int) v;
+        int shift = 63 - Long.numberOfLeadingZeros(v) - SUB_BITS;
+        return (shift << SUB_BITS) + (int) (v >>> shift);
+    }
+
+    /** Highest value that falls into {@code bucket}. */
+    static long upperBound(int bucket) {
+        if (bucket < LINEAR) return bucket;
+        int shift = (bucket >>> SUB_BITS) - 1;
+        long sub = bucket - ((long) shift << SUB_BITS);
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /** Immutable copy of a histogram's counters. */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() { return count; }
+
+        public long getMaxMicros() { return max; }
+
+        public double getMeanMicros() { return count == 0 ? 0 : (double) sum / count; }
+
+        /** Value at {@code percentile} (0..100) in microseconds, bounded by the real maximum. */
+        public long percentileMicros(double percentile) {
+            if (count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(upperBound(i), max);
+            }
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return "n=" + count + " p50=" + percentileMicros(50) + "us p90=" + percentileMicros(90)
+                    + "us p99=" + percentileMicros(99) + "us max=" + max + "us";
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.parcellocker.cu16;
+
+/**
+ * Observed response times per CU and command, and the timeouts derived from them.
+ *
+ * Keeps a smoothed RTT and its mean deviation per (CU, command) the way TCP
+ * does (RFC 6298): timeout = srtt + 4 * rttvar, clamped to [min, max]. Each
+ * timeout without a new sample doubles the next one, so a board that became
+ * slow is not hammered with deadlines it cannot meet. Until the first sample
+ * arrives the maximum is used. Unlock and status are tracked apart because the
+ * board only answers an unlock once the solenoid fired.
+ */
+public final class CU16LatencyTracker {
+
+    private static final int SLOTS = CU16BusSnapshot.MAX_BOARDS * CU16Commands.KINDS;
+    private static final int MAX_BACKOFF_SHIFT = 4;
+
+    private final long[] srttNs = new long[SLOTS];
+    private final long[] rttvarNs = new long[SLOTS];
+    private final long[] samples = new long[SLOTS];
+    private final int[] backoff = new int[SLOTS];
+
+    private volatile long minTimeoutMs = 200;
+    private volatile long maxTimeoutMs = 3000;
+
+    /** Bounds for the derived timeouts; {@code maxMs} is also used before the first sample. */
+    public void setBounds(long minMs, long maxMs) {
+        if (minMs < 1 || maxMs < minMs) throw new IllegalArgumentException("bad timeout bounds");
+        this.minTimeoutMs = minMs;
+        this.maxTimeoutMs = maxMs;
+    }
+
+    /** Records the round trip of a frame sent to {@code addr} with {@code cmd}. */
+    public synchronized void record(byte addr, byte cmd, long rttNanos) {
+        int slot = slot(addr, cmd);
+        if (samples[slot] == 0) {
+            srttNs[slot] = rttNanos;
+            rttvarNs[slot] = rttNanos / 2;
+        } else {
+            long err = rttNanos - srttNs[slot];
+            srttNs[slot] += err / 8;
+            rttvarNs[slot] += (Math.abs(err) - rttvarNs[slot]) / 4;
+        }
+        samples[slot]++;
+        backoff[slot] = 0;
+    }
+
+    /** Notes that a frame to {@code addr} got no answer in time; widens the next timeout. */
+    public synchronized void recordTimeout(byte addr, byte cmd) {
+        int slot = slot(addr, cmd);
+        if (backoff[slot] < MAX_BACKOFF_SHIFT) backoff[slot]++;
+    }
+
+    /** Time to wait for the answer to {@code cmd} sent to {@code addr}. */
+    public synchronized long timeoutMs(byte addr, byte cmd) {
+        int slot = slot(addr, cmd);
+        long max = maxTimeoutMs;
+        if (samples[slot] == 0) return max;
+        long ms = (srttNs[slot] + 4 * rttvarNs[slot]) / 1_000_000L;
+        ms = Math.max(ms, minTimeoutMs) << backoff[slot];
+        return Math.min(ms, max);
+    }
+
+    /** Smoothed round trip to {@code cuId} for {@code cmd} in microseconds, or -1 before any sample. */
+    public synchronized long smoothedRttMicros(int cuId, byte cmd) {
+        int slot = slot((byte) (cuId << 4), cmd);
+        return samples[slot] == 0 ? -1 : srttNs[slot] / 1000;
+    }
+
+    public synchronized long sampleCount(int cuId, byte cmd) {
+        return samples[slot((byte) (cuId << 4), cmd)];
+    }
+
+    private static int slot(byte addr, byte cmd) {
+        return ((addr >> 4) & 0x0F) * CU16Commands.KINDS + CU16Commands.kind(cmd);
+    }
+}
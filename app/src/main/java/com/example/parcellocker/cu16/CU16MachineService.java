@@ -0,0 +1,112 @@
+package com.example.parcellocker.cu16;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Machine-level API over every CU board behind one BU.
+ *
+ * All boards share one connection and one {@link CU16BusScheduler}, which keeps
+ * a FIFO lane per CU: commands for one board stay in order while boards are
+ * served in parallel, so a 64-door machine costs the same threads and sockets
+ * as a 16-door one. Commands are routed by CU id and machine door index.
+ *
+ * The boards share one {@link CU16CircuitBreaker}; a board whose breaker opened
+ * is probed with a status query whenever its open interval ends, so it comes back
+ * (and {@link #getHealth()} reflects it) without waiting for customer traffic.
+ */
+public class CU16MachineService implements Closeable {
+
+    public static final int DOORS_PER_BOARD = 16;
+
+    private final CU16Bus bus;
+    private final CU16Service[] boards = new CU16Service[CU16BusSnapshot.MAX_BOARDS];
+    private final CU16CircuitBreaker breaker = new CU16CircuitBreaker();
+
+    public CU16MachineService(CU16Transport client) {
+        this(new CU16BusScheduler(client, 8, 2));
+    }
+
+    public CU16MachineService(CU16Bus bus) {
+        this.bus = bus;
+        breaker.setProber(cuId -> board(cuId).getStatusSingleAsync(0));
+    }
+
+    /** Door position on its board for a machine-wide door index (boards hold 16 doors each). */
+    public static int boardDoor(int doorIndex) {
+        return doorIndex % DOORS_PER_BOARD;
+    }
+
+    /**
+     * Service for one CU, sharing this machine's bus. Do not call
+     * {@link CU16Service#shutdown()} on it; shut the machine service down instead.
+     */
+    public synchronized CU16Service board(int cuId) {
+        int cu = cuId & 0x0F;
+        if (boards[cu] == null) boards[cu] = new CU16Service(bus, cu, breaker);
+        return boards[cu];
+    }
+
+    public CompletableFuture<CU16Parser.Status> unlockDoorAsync(int cuId, int doorIndex) {
+        return board(cuId).unlockDoorAsync(boardDoor(doorIndex));
+    }
+
+    /**
+     * Unlocks several doors of one board in staggered bursts; see
+     * {@link CU16Service#unlockDoorsAsync}. Results are keyed by board door.
+     */
+    public CompletableFuture<CU16UnlockResult> unlockDoorsAsync(int cuId, Collection<Integer> doorIndexes) {
+        List<Integer> boardDoors = new ArrayList<>(doorIndexes.size());
+        for (int doorIndex : doorIndexes) boardDoors.add(boardDoor(doorIndex));
+        return board(cuId).unlockDoorsAsync(boardDoors);
+    }
+
+    /** Watch for a door opening and closing after an unlock; see {@link CU16DoorWatch}. */
+    public CU16DoorWatch watchDoor(int cuId, int doorIndex) {
+        return board(cuId).watchDoor(boardDoor(doorIndex));
+    }
+
+    public CompletableFuture<CU16Parser.Status> getStatusAsync(int cuId, int doorIndex) {
+        return board(cuId).getStatusSingleAsync(boardDoor(doorIndex));
+    }
+
+    public CompletableFuture<CU16Parser.Status> unlockBoardAsync(int cuId) {
+        return board(cuId).unlockAllAsync();
+    }
+
+    /** Status of every board from one bus query; see {@link CU16Service#getAllBoardsStatusAsync(int)}. */
+    public CompletableFuture<CU16BusSnapshot> getAllBoardsStatusAsync(int expectedBoards) {
+        return board(0).getAllBoardsStatusAsync(expectedBoards);
+    }
+
+    public CU16CircuitBreaker getCircuitBreaker() {
+        return breaker;
+    }
+
+    /** Breaker state of every board addressed so far. */
+    public CU16Health getHealth() {
+        return breaker.snapshot();
+    }
+
+    /** Latency histograms of this machine's bus; see {@link CU16Metrics}. */
+    public CU16Metrics getMetrics() {
+        return bus.getMetrics();
+    }
+
+    public CU16Bus getBus() {
+        return bus;
+    }
+
+    /** Fails anything still queued for any board and closes the BU connection. */
+    public void shutdown() {
+        bus.close();
+    }
+
+    @Override
+    public void close() {
+        shutdown();
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.parcellocker.cu16;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Latency histograms per stage, board and command for one BU.
+ *
+ * A door command passes QUEUE (submitted until written), WRITE (the socket write),
+ * RESPONSE (written until answered) and ROUND_TRIP (submitted until answered) on
+ * the bus; CALL is what the caller of {@link CU16Service} waits, retries and
+ * confirmation included. CONNECT and DB_WRITE are per BU and use board {@link #BUS}.
+ * Histograms are created on first use, so an idle board costs nothing.
+ */
+public final class CU16Metrics {
+
+    public enum Stage { QUEUE, WRITE, RESPONSE, ROUND_TRIP, CALL, CONNECT, DB_WRITE }
+
+    /** Board slot for measurements that belong to the BU rather than one CU. */
+    public static final int BUS = CU16BusSnapshot.MAX_BOARDS;
+
+    private static final int BOARDS = CU16BusSnapshot.MAX_BOARDS + 1;
+    private static final String[] KIND_NAMES = {"status", "unlock_one", "unlock_all", "other"};
+
+    private final AtomicReferenceArray<CU16Histogram> histograms =
+            new AtomicReferenceArray<>(Stage.values().length * BOARDS * CU16Commands.KINDS);
+
+    public void record(Stage stage, int board, byte cmd, long nanos) {
+        histogram(stage, board, cmd).recordNanos(nanos);
+    }
+
+    public CU16Histogram histogram(Stage stage, int board, byte cmd) {
+        int i = index(stage, board, CU16Commands.kind(cmd));
+        CU16Histogram h = histograms.get(i);
+        if (h == null) {
+            histograms.compareAndSet(i, null, new CU16Histogram());
+            h = histograms.get(i);
+        }
+        return h;
+    }
+
+    /** Every non-empty histogram; with {@code reset} the next snapshot starts from zero. */
+    public Snapshot snapshot(boolean reset) {
+        List<Entry> entries = new ArrayList<>();
+        Stage[] stages = Stage.values();
+        for (Stage stage : stages) {
+            for (int board = 0; board < BOARDS; board++) {
+                for (int kind = 0; kind < CU16Commands.KINDS; kind++) {
+                    CU16Histogram h = histograms.get(index(stage, board, kind));
+                    if (h == null || h.count() == 0) continue;
+                    CU16Histogram.Snapshot s = h.snapshot(reset);
+                    if (s.getCount() > 0) entries.add(new Entry(stage, board, KIND_NAMES[kind], s));
+                }
+            }
+        }
+        return new Snapshot(entries, System.currentTimeMillis());
+    }
+
+    private static int index(Stage stage, int board, int kind) {
+        if (board < 0 || board >= BOARDS) board = BUS;
+        return (stage.ordinal() * BOARDS + board) * CU16Commands.KINDS + kind;
+    }
+
+    /** One histogram's numbers; board is a CU id or {@link #BUS}. */
+    public static final class Entry {
+        public final Stage stage;
+        public final int board;
+        public final String command;
+        public final CU16Histogram.Snapshot histogram;
+
+        Entry(Stage stage, int board, String command, CU16Histogram.Snapshot histogram) {
+            this.stage = stage;
+            this.board = board;
+            this.command = command;
+            this.histogram = histogram;
+        }
+
+        /** Flat summary, e.g. for JSON. */
+        public Map<String, Object> toMap() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("stage", stage.name().toLowerCase());
+            m.put("board", board == BUS ? "bus" : String.valueOf(board));
+            m.put("command", command);
+            m.put("count", histogram.getCount());
+            m.put("mean_us", Math.round(histogram.getMeanMicros()));
+            m.put("p50_us", histogram.percentileMicros(50));
+            m.put("p90_us", histogram.percentileMicros(90));
+            m.put("p99_us", histogram.percentileMicros(99));
+            m.put("max_us", histogram.getMaxMicros());
+            return m;
+        }
+
+        @Override
+        public String toString() {
+            return stage + " " + (board == BUS ? "bus" : "cu" + board) + " " + command + ": " + histogram;
+        }
+    }
+
+    /** Immutable set of entries taken at one moment. */
+    public static final class Snapshot {
+        private final List<Entry> entries;
+        private final long timestamp;
+
+        Snapshot(List<Entry> entries, long timestamp) {
+            this.entries = Collections.unmodifiableList(entries);
+            this.timestamp = timestamp;
+        }
+
+        public List<Entry> getEntries() { return entries; }
+
+        public long getTimestamp() { return timestamp; }
+
+        public boolean isEmpty() { return entries.isEmpty(); }
+
+        /** The entry for one stage/board/command, or null if nothing was recorded. */
+        public Entry find(Stage stage, int board, byte cmd) {
+            String command = KIND_NAMES[CU16Commands.kind(cmd)];
+            for (Entry e : entries) {
+                if (e.stage == stage && e.board == board && e.command.equals(command)) return e;
+            }
+            return null;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (Entry e : entries) sb.append(e).append('\n');
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package com.example.parcellocker.cu16;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking {@link CU16Bus} for one BU, driven by a {@link CU16SelectorLoop}.
+ *
+ * Frames are encoded into a direct write buffer and up to {@code maxInFlight}
+ * wait for their response; reads land in a direct buffer and go through a
+ * {@link CU16FrameDecoder}. All socket and request state is touched only on the
+ * loop thread; callers just get futures. Connects lazily, with the same
+ * exponential backoff as {@link CU16Client}. Board commands time out after the
+ * adaptive {@link CU16LatencyTracker} deadline, capped by the response timeout.
+ */
+public final class CU16NioBus implements CU16Bus {
+
+    private final CU16SelectorLoop loop;
+    private final InetSocketAddress address;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final CU16LatencyTracker latency = new CU16LatencyTracker();
+    private final CU16Metrics metrics = new CU16Metrics();
+
+    // Loop thread only.
+    private final ArrayDeque<CU16Request> queue = new ArrayDeque<>();
+    private final List<CU16Request> inFlight = new ArrayList<>();
+    private final ByteBuffer out = ByteBuffer.allocateDirect(4096);
+    private final ByteBuffer in = ByteBuffer.allocateDirect(1024);
+    private final byte[] scratch = new byte[1024];
+    private final byte[] frame = new byte[CU16FrameDecoder.MAX_FRAME];
+    private final CU16FrameDecoder decoder = new CU16FrameDecoder();
+    private SocketChannel channel;
+    private SelectionKey key;
+    private boolean connecting;
+    private long connectStartedAt;
+    private long connectDeadline;
+    private int connectFailures;
+    private long nextConnectAt;
+
+    private volatile int maxInFlight = 4;
+    private volatile int responseTimeoutMs = 3000;
+    private volatile int connectTimeoutMs = 3000;
+    private volatile int busQuietMs = 100;
+    private volatile long minBackoffMs = 250;
+    private volatile long maxBackoffMs = 8_000;
+    private volatile boolean closed;
+
+    CU16NioBus(CU16SelectorLoop loop, InetSocketAddress address) {
+        this.loop = loop;
+        this.address = address;
+    }
+
+    public void setMaxInFlight(int n) { this.maxInFlight = Math.max(1, n); }
+
+    public void setResponseTimeoutMs(int ms) { this.responseTimeoutMs = ms; }
+
+    public void setConnectTimeoutMs(int ms) { this.connectTimeoutMs = ms; }
+
+    public void setBusQuietMs(int ms) { this.busQuietMs = ms; }
+
+    public void setReconnectBackoff(long minMs, long maxMs) {
+        this.minBackoffMs = minMs; this.maxBackoffMs = maxMs;
+    }
+
+    @Override
+    public CompletableFuture<CU16Parser.Status> submit(byte[] frame) {
+        if (frame == null || frame.length < 5) throw new IllegalArgumentException("bad frame");
+        CU16Request.Single r = new CU16Request.Single(frame);
+        enqueue(r);
+        return r.future;
+    }
+
+    @Override
+    public CompletableFuture<Integer> submitForValue(byte[] frame) {
+        if (frame == null || frame.length < 5) throw new IllegalArgumentException("bad frame");
+        CU16Request.Value r = new CU16Request.Value(frame);
+        enqueue(r);
+        return r.future;
+    }
+
+    @Override
+    public CompletableFuture<Void> send(byte[] frame) {
+        if (frame == null || frame.length < 5) throw new IllegalArgumentException("bad frame");
+        CU16Request.NoReply r = new CU16Request.NoReply(frame);
+        enqueue(r);
+        return r.future;
+    }
+
+    /** {@inheritDoc} The frames reach the loop in one task and are flushed together. */
+    @Override
+    public List<CompletableFuture<CU16Parser.Status>> submitAll(List<byte[]> frames) {
+        List<CU16Request> requests = new ArrayList<>(frames.size());
+        List<CompletableFuture<CU16Parser.Status>> futures = new ArrayList<>(frames.size());
+        for (byte[] frame : frames) {
+            if (frame == null || frame.length < 5) throw new IllegalArgumentException("bad frame");
+            CU16Request.Single r = new CU16Request.Single(frame);
+            requests.add(r);
+            futures.add(r.future);
+        }
+        enqueue(requests);
+        return futures;
+    }
+
+    @Override
+    public CompletableFuture<CU16BusSnapshot> submitBusQuery(byte[] frame, int expectedBoards) {
+        if (frame == null || frame.length < 5 || frame[2] != CU16Commands.CMD_GET_ALL_BUS) {
+            throw new IllegalArgumentException("not a bus query frame");
+        }
+        CU16Request.Bus r = new CU16Request.Bus(frame, expectedBoards);
+        enqueue(r);
+        return r.future;
+    }
+
+    @Override
+    public CU16LatencyTracker getLatencyTracker() { return latency; }
+
+    @Override
+    public CU16Metrics getMetrics() { return metrics; }
+
+    @Override
+    public int pendingCount() {
+        return pending.get();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        loop.execute(() -> {
+            shutdownNow(new CancellationException("bus closed"));
+            loop.detach(this);
+        });
+    }
+
+    private void enqueue(CU16Request r) {
+        enqueue(Collections.singletonList(r));
+    }
+
+    private void enqueue(List<CU16Request> requests) {
+        if (closed) {
+            for (CU16Request r : requests) r.fail(new IllegalStateException("bus closed"));
+            return;
+        }
+        for (CU16Request r : requests) {
+            pending.incrementAndGet();
+            r.completion().whenComplete((v, e) -> pending.decrementAndGet());
+        }
+        loop.execute(() -> {
+            // close() may have run between the check above and this task; its
+            // failAll has already happened, so nothing would fail these later.
+            if (closed) {
+                for (CU16Request r : requests) r.fail(new IllegalStateException("bus closed"));
+                return;
+            }
+            queue.addAll(requests);
+            pump();
+        });
+    }
+
+    // ---- loop thread ----
+
+    void onReady(SelectionKey k) {
+        if (k != key || !k.isValid()) return;
+        try {
+            if (k.isConnectable()) {
+                channel.finishConnect();
+                onConnected();
+            }
+            if (k.isValid() && k.isReadable()) read();
+            if (k.isValid() && k.isWritable()) flush();
+        } catch (IOException e) {
+            drop(e);
+        }
+    }
+
+    void onTick(long now) {
+        if (connecting && now >= connectDeadline) {
+            drop(new SocketTimeoutException("connect to " + address + " timed out"));
+            return;
+        }
+        List<CU16Request> expired = null;
+        Iterator<CU16Request> it = inFlight.iterator();
+        while (it.hasNext()) {
+            CU16Request r = it.next();
+            if (r.deadline <= now || r.settled(now, busQuietMs)) {
+                it.remove();
+                if (expired == null) expired = new ArrayList<>();
+                expired.add(r);
+            }
+        }
+        if (expired == null) return;
+        long nowNanos = System.nanoTime();
+        for (CU16Request r : expired) {
+            r.observe(latency, metrics, nowNanos);
+            r.finish();
+        }
+        pump();
+    }
+
+    void shutdownNow(Throwable cause) {
+        closed = true;
+        closeChannel();
+        failAll(cause);
+    }
+
+    /** Moves queued frames into the write buffer while the window has room, then flushes. */
+    private void pump() {
+        if (queue.isEmpty() || closed) return;
+        if (channel == null) {
+            connect();
+            return;
+        }
+        if (connecting) return;
+        long now = System.currentTimeMillis();
+        long nowNanos = System.nanoTime();
+        while (inFlight.size() < maxInFlight && !queue.isEmpty()) {
+            CU16Request r = queue.peek();
+            if (r.isDone()) {
+                queue.poll();
+                continue;
+            }
+            if (out.remaining() < r.frame.length) break;
+            queue.poll();
+            int pos = out.position();
+            out.position(pos + CU16PacketBuilder.putFrame(out, pos, r.frame));
+            if (r.expect == 0) {
+                r.accept(CU16StatusWord.INVALID);
+                r.finish();
+            } else {
+                r.deadline = now + timeoutFor(r);
+                r.sentAt = nowNanos;
+                inFlight.add(r);
+            }
+        }
+        try {
+            flush();
+        } catch (IOException e) {
+            drop(e);
+        }
+    }
+
+    private void flush() throws IOException {
+        out.flip();
+        try {
+            if (out.hasRemaining()) {
+                long start = System.nanoTime();
+                channel.write(out);
+                metrics.record(CU16Metrics.Stage.WRITE, CU16Metrics.BUS, (byte) 0, System.nanoTime() - start);
+            }
+        } finally {
+            out.compact();
+        }
+        int ops = SelectionKey.OP_READ;
+        if (out.position() > 0) ops |= SelectionKey.OP_WRITE;
+        key.interestOps(ops);
+    }
+
+    private void read() throws IOException {
+        int n = channel.read(in);
+        if (n < 0) {
+            drop(new EOFException("connection closed by BU"));
+            return;
+        }
+        in.flip();
+        while (in.hasRemaining()) {
+            int k = Math.min(in.remaining(), scratch.length);
+            in.get(scratch, 0, k);
+            decoder.feed(scratch, 0, k);
+        }
+        in.clear();
+        int len;
+        while ((len = decoder.nextFrame(frame)) > 0) dispatch(len);
+        pump();
+    }
+
+    private void dispatch(int len) {
+        long word = CU16Parser.parseResponseWord(frame, 0, len);
+        if (word == CU16StatusWord.INVALID) return;
+        CU16Request r = CU16Request.match(inFlight, CU16StatusWord.addr(word), CU16StatusWord.cmd(word));
+        if (r != null && r.accept(word)) {
+            inFlight.remove(r);
+            r.observe(latency, metrics, System.nanoTime());
+            r.finish();
+        }
+    }
+
+    private long timeoutFor(CU16Request r) {
+        if (r.lane == CU16Request.BUS_LANE) return responseTimeoutMs;
+        return Math.min(responseTimeoutMs, latency.timeoutMs(r.addr, r.frame[2]));
+    }
+
+    private void connect() {
+        long now = System.currentTimeMillis();
+        if (now < nextConnectAt) {
+            failQueued(new IOException("BU " + address + " unreachable, retrying in "
+                    + (nextConnectAt - now) + " ms"));
+            return;
+        }
+        try {
+            SocketChannel ch = SocketChannel.open();
+            channel = ch;
+            connectStartedAt = System.nanoTime();
+            ch.configureBlocking(false);
+            ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            ch.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+            boolean done = ch.connect(address);
+            key = ch.register(loop.selector(), done ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT, this);
+            connecting = !done;
+            connectDeadline = now + connectTimeoutMs;
+            if (done) onConnected();
+        } catch (IOException e) {
+            connecting = true; // count it as a failed connect
+            drop(e);
+        }
+    }
+
+    private void onConnected() {
+        metrics.record(CU16Metrics.Stage.CONNECT, CU16Metrics.BUS, (byte) 0, System.nanoTime() - connectStartedAt);
+        connecting = false;
+        connectFailures = 0;
+        nextConnectAt = 0;
+        key.interestOps(SelectionKey.OP_READ);
+        pump();
+    }
+
+    /** Tears the connection down; what was sent on it fails, and a failed connect also fails the queue. */
+    private void drop(Throwable cause) {
+        boolean connectFailed = connecting;
+        closeChannel();
+        List<CU16Request> failed = new ArrayList<>(inFlight);
+        inFlight.clear();
+        for (CU16Request r : failed) r.fail(cause);
+        if (connectFailed) {
+            connectFailures++;
+            long delay = minBackoffMs << Math.min(connectFailures - 1, 16);
+            nextConnectAt = System.currentTimeMillis() + Math.min(delay, maxBackoffMs);
+            failQueued(cause);
+        } else {
+            pump(); // reconnect for whatever is still queued
+        }
+    }
+
+    private void closeChannel() {
+        if (key != null) key.cancel();
+        if (channel != null) {
+            try { channel.close(); } catch (IOException ignored) { }
+        }
+        key = null;
+        channel = null;
+        connecting = false;
+        out.clear();
+        in.clear();
+        decoder.reset();
+    }
+
+    private void failQueued(Throwable cause) {
+        CU16Request r;
+        while ((r = queue.poll()) != null) r.fail(cause);
+    }
+
+    private void failAll(Throwable cause) {
+        List<CU16Request> failed = new ArrayList<>(inFlight);
+        inFlight.clear();
+        for (CU16Request r : failed) r.fail(cause);
+        failQueued(cause);
+    }
+}
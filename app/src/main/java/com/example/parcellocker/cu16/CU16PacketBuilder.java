@@ -1,6 +1,25 @@
 package com.example.parcellocker.cu16;
+
+import java.nio.ByteBuffer;
+
 public final class CU16PacketBuilder {
 
+    public static final int SIMPLE_LEN = 5;
+    public static final int ONE_DATA_LEN = 6;
+    public static final int TWO_DATA_LEN = 7;
+
+    // Fixed-shape frames for every ADDR, built once. Shared, so only handed out
+    // inside this package, to code that passes them to a bus and never writes them.
+    private static final byte[][] GET_STATUS_FRAMES = new byte[256][];
+    private static final byte[][] UNLOCK_ONE_FRAMES = new byte[256][];
+
+    static {
+        for (int a = 0; a < 256; a++) {
+            GET_STATUS_FRAMES[a] = buildSimple((byte) a, CU16Commands.CMD_GET_STATUS);
+            UNLOCK_ONE_FRAMES[a] = buildSimple((byte) a, CU16Commands.CMD_UNLOCK_ONE);
+        }
+    }
+
     private CU16PacketBuilder() {}
 
     private static byte checksum(byte[] buf, int len) {
@@ -51,4 +70,64 @@ public final class CU16PacketBuilder {
         b[6] = checksum(b, 6);
         return b;
     }
-}
\ No newline at end of file
+
+    /** Precomputed CMD_GET_STATUS frame for {@code addr}. Shared instance; do not modify. */
+    static byte[] getStatusFrame(byte addr) {
+        return GET_STATUS_FRAMES[addr & 0xFF];
+    }
+
+    /** Precomputed CMD_UNLOCK_ONE frame for {@code addr}. Shared instance; do not modify. */
+    static byte[] unlockOneFrame(byte addr) {
+        return UNLOCK_ONE_FRAMES[addr & 0xFF];
+    }
+
+    // ByteBuffer encoders: absolute puts at `offset`, so the buffer's position and
+    // limit are left alone and several frames can be laid out back to back for one
+    // write. Each returns the number of bytes written.
+
+    /** Writes STX ADDR CMD ETX SUM at {@code offset}. */
+    public static int putSimple(ByteBuffer dst, int offset, byte addr, byte cmd) {
+        int sum = (CU16Commands.STX & 0xFF) + (addr & 0xFF) + (cmd & 0xFF) + (CU16Commands.ETX & 0xFF);
+        dst.put(offset, CU16Commands.STX);
+        dst.put(offset + 1, addr);
+        dst.put(offset + 2, cmd);
+        dst.put(offset + 3, CU16Commands.ETX);
+        dst.put(offset + 4, (byte) sum);
+        return SIMPLE_LEN;
+    }
+
+    /** Writes STX ADDR CMD DATA ETX SUM at {@code offset}. */
+    public static int putOneData(ByteBuffer dst, int offset, byte addr, byte cmd, byte data) {
+        int sum = (CU16Commands.STX & 0xFF) + (addr & 0xFF) + (cmd & 0xFF) + (data & 0xFF)
+                + (CU16Commands.ETX & 0xFF);
+        dst.put(offset, CU16Commands.STX);
+        dst.put(offset + 1, addr);
+        dst.put(offset + 2, cmd);
+        dst.put(offset + 3, data);
+        dst.put(offset + 4, CU16Commands.ETX);
+        dst.put(offset + 5, (byte) sum);
+        return ONE_DATA_LEN;
+    }
+
+    /** Writes STX ADDR CMD LO HI ETX SUM at {@code offset}. */
+    public static int putTwoData(ByteBuffer dst, int offset, byte addr, byte cmd, int value) {
+        byte low = (byte) (value & 0xFF);
+        byte high = (byte) ((value >> 8) & 0xFF);
+        int sum = (CU16Commands.STX & 0xFF) + (addr & 0xFF) + (cmd & 0xFF) + (low & 0xFF)
+                + (high & 0xFF) + (CU16Commands.ETX & 0xFF);
+        dst.put(offset, CU16Commands.STX);
+        dst.put(offset + 1, addr);
+        dst.put(offset + 2, cmd);
+        dst.put(offset + 3, low);
+        dst.put(offset + 4, high);
+        dst.put(offset + 5, CU16Commands.ETX);
+        dst.put(offset + 6, (byte) sum);
+        return TWO_DATA_LEN;
+    }
+
+    /** Copies an already built frame (e.g. from the precomputed table) to {@code offset}. */
+    public static int putFrame(ByteBuffer dst, int offset, byte[] frame) {
+        for (int i = 0; i < frame.length; i++) dst.put(offset + i, frame[i]);
+        return frame.length;
+    }
+}
@@ -6,44 +6,115 @@ public final class CU16Parser {
     private CU16Parser() {}
 
     public static boolean validateChecksum(byte[] packet) {
-        if (packet == null || packet.length < 5) return false;
+        return packet != null && validateChecksum(packet, 0, packet.length);
+    }
+
+    /** Checksum check for a frame of {@code len} bytes starting at {@code off}. */
+    public static boolean validateChecksum(byte[] packet, int off, int len) {
+        if (packet == null || len < 5 || off + len > packet.length) return false;
         int sum = 0;
-        for (int i = 0; i < packet.length - 1; i++) sum += (packet[i] & 0xFF);
-        return (byte) (sum & 0xFF) == packet[packet.length - 1];
+        for (int i = off; i < off + len - 1; i++) sum += (packet[i] & 0xFF);
+        return (byte) (sum & 0xFF) == packet[off + len - 1];
     }
 
 //    / Parse a 9-byte status frame and return Status object. Throws IllegalArgumentException on invalid. */
     public static Status parseStatus9(byte[] p) {
         if (p == null || p.length < 9) throw new IllegalArgumentException("packet too short");
-        if (p[0] != CU16Commands.STX || p[7] != CU16Commands.ETX) throw new IllegalArgumentException("bad frame markers");
-        if (!validateChecksum(p)) throw new IllegalArgumentException("checksum mismatch");
+        return parseStatus9(p, 0);
+    }
 
-        byte cmd = p[2];
-        if (cmd != CU16Commands.RESP_STATUS_SINGLE && cmd != CU16Commands.RESP_STATUS_ALL) {
-            throw new IllegalArgumentException("not a status response");
-        }
+    /** Same as {@link #parseStatus9(byte[])} for a frame starting at {@code off} inside a larger buffer. */
+    public static Status parseStatus9(byte[] p, int off) {
+        if (p == null || off + 9 > p.length) throw new IllegalArgumentException("packet too short");
+        if (p[off] != CU16Commands.STX || p[off + 7] != CU16Commands.ETX) throw new IllegalArgumentException("bad frame markers");
+        if (!validateChecksum(p, off, 9)) throw new IllegalArgumentException("checksum mismatch");
+
+        long word = parseStatusWord(p, off);
+        if (word == CU16StatusWord.INVALID) throw new IllegalArgumentException("not a status response");
+        return new Status(word);
+    }
 
-        byte d1 = p[3], d2 = p[4], d3 = p[5], d4 = p[6];
-        boolean[] locked = new boolean[16];
-        boolean[] occupied = new boolean[16];
+    /**
+     * Zero-allocation parse of a 9-byte status frame at {@code off} into a packed
+     * {@link CU16StatusWord}; returns {@link CU16StatusWord#INVALID} instead of throwing.
+     */
+    public static long parseStatusWord(byte[] p, int off) {
+        if (p == null || off < 0 || off + 9 > p.length) return CU16StatusWord.INVALID;
+        if (p[off] != CU16Commands.STX || p[off + 7] != CU16Commands.ETX) return CU16StatusWord.INVALID;
+        byte cmd = p[off + 2];
+        if (cmd != CU16Commands.RESP_STATUS_SINGLE && cmd != CU16Commands.RESP_STATUS_ALL) return CU16StatusWord.INVALID;
+        if (!validateChecksum(p, off, 9)) return CU16StatusWord.INVALID;
 
-        for (int i = 0; i < 8; i++) {
-            locked[i] = ((d1 >> i) & 1) == 1;
-            locked[i + 8] = ((d2 >> i) & 1) == 1;
-            occupied[i] = ((d3 >> i) & 1) == 1;
-            occupied[i + 8] = ((d4 >> i) & 1) == 1;
+        int locked = (p[off + 3] & 0xFF) | (p[off + 4] & 0xFF) << 8;
+        int occupied = (p[off + 5] & 0xFF) | (p[off + 6] & 0xFF) << 8;
+        return CU16StatusWord.of(p[off + 1], cmd, locked, occupied);
+    }
+
+    /** Value echoed by a 7-byte RESP_UNLOCK_TIME frame at {@code off}, or -1 if it is not one. */
+    public static int parseUnlockTime(byte[] p, int off) {
+        if (p == null || off < 0 || off + 7 > p.length) return -1;
+        if (p[off] != CU16Commands.STX || p[off + 5] != CU16Commands.ETX) return -1;
+        if (p[off + 2] != CU16Commands.RESP_UNLOCK_TIME || !validateChecksum(p, off, 7)) return -1;
+        return (p[off + 3] & 0xFF) | (p[off + 4] & 0xFF) << 8;
+    }
+
+    /**
+     * Any response a bus matches to a request, as a {@link CU16StatusWord}: status
+     * frames as usual, RESP_UNLOCK_TIME with its value in the locked bits.
+     */
+    static long parseResponseWord(byte[] p, int off, int len) {
+        if (len == 9) return parseStatusWord(p, off);
+        if (len == 7) {
+            int value = parseUnlockTime(p, off);
+            if (value >= 0) return CU16StatusWord.of(p[off + 1], CU16Commands.RESP_UNLOCK_TIME, value, 0);
         }
-        return new Status(p[1], cmd, locked, occupied);
+        return CU16StatusWord.INVALID;
+    }
+
+    /** Parses into caller-owned storage, e.g. one slot per CU; returns false if the frame is invalid. */
+    public static boolean parseStatusInto(byte[] p, int off, long[] out, int index) {
+        long word = parseStatusWord(p, off);
+        if (word == CU16StatusWord.INVALID) return false;
+        out[index] = word;
+        return true;
     }
 
+    /** Status of one CU, backed by the packed locked/occupied bitmasks of the frame. */
     public static class Status {
         public final byte addr;
         public final byte cmd;
-        public final boolean[] locked;   // size 16
-        public final boolean[] occupied; // size 16
+        public final int lockedMask;   // bit n = door n locked
+        public final int occupiedMask; // bit n = door n occupied
 
-        public Status(byte addr, byte cmd, boolean[] locked, boolean[] occupied) {
-            this.addr = addr; this.cmd = cmd; this.locked = locked; this.occupied = occupied;
+        public Status(byte addr, byte cmd, int lockedMask, int occupiedMask) {
+            this.addr = addr; this.cmd = cmd;
+            this.lockedMask = lockedMask & CU16StatusWord.ALL_DOORS;
+            this.occupiedMask = occupiedMask & CU16StatusWord.ALL_DOORS;
         }
+
+        public Status(long word) {
+            this(CU16StatusWord.addr(word), CU16StatusWord.cmd(word),
+                    CU16StatusWord.lockedMask(word), CU16StatusWord.occupiedMask(word));
+        }
+
+        public long toWord() { return CU16StatusWord.of(addr, cmd, lockedMask, occupiedMask); }
+
+        public int cuId() { return (addr >> 4) & 0x0F; }
+
+        public boolean isLocked(int door) { return (lockedMask & (1 << door)) != 0; }
+
+        public boolean isOccupied(int door) { return (occupiedMask & (1 << door)) != 0; }
+
+        public int lockedCount() { return Integer.bitCount(lockedMask); }
+
+        public int occupiedCount() { return Integer.bitCount(occupiedMask); }
+
+        /** Doors whose locked or occupied state differs from {@code other}. */
+        public int changedDoors(Status other) {
+            return CU16StatusWord.changedDoors(toWord(), other.toWord());
+        }
+
+        @Override
+        public String toString() { return CU16StatusWord.toString(toWord()); }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,40 @@
+package com.example.parcellocker.cu16;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per-board outcome of {@link CU16Provisioner#provisionAsync}: the config now on
+ * every board that was written, the boards skipped because the cache showed the
+ * config already applied, and the error for every board that could not be written.
+ */
+public final class CU16ProvisionResult {
+
+    private final Map<Integer, CU16BoardConfig> applied;
+    private final Set<Integer> skipped;
+    private final Map<Integer, Throwable> failed;
+
+    CU16ProvisionResult(Map<Integer, CU16BoardConfig> applied, Set<Integer> skipped, Map<Integer, Throwable> failed) {
+        this.applied = Collections.unmodifiableMap(new LinkedHashMap<>(applied));
+        this.skipped = Collections.unmodifiableSet(new LinkedHashSet<>(skipped));
+        this.failed = Collections.unmodifiableMap(new LinkedHashMap<>(failed));
+    }
+
+    public Map<Integer, CU16BoardConfig> getApplied() { return applied; }
+
+    public Set<Integer> getSkipped() { return skipped; }
+
+    public Map<Integer, Throwable> getFailed() { return failed; }
+
+    /** True if every board has the config, whether written now or earlier. */
+    public boolean isComplete() { return failed.isEmpty(); }
+
+    @Override
+    public String toString() {
+        return "CU16ProvisionResult{applied=" + applied.keySet() + ", skipped=" + skipped
+                + ", failed=" + failed.keySet() + "}";
+    }
+}
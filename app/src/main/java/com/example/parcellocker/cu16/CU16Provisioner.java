@@ -0,0 +1,150 @@
+package com.example.parcellocker.cu16;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Pushes a {@link CU16BoardConfig} to the boards of a machine, typically once at
+ * startup.
+ *
+ * Boards are written in parallel; each board gets its unlock time first, which
+ * the board echoes back and so also proves it is reachable, then its delay/baud
+ * word, which it does not answer. What was applied is kept in a properties file,
+ * and boards whose cached config already matches are skipped, so a normal boot
+ * costs no bus traffic. The cache cannot see a board that was swapped or reset;
+ * pass {@code force} after hardware service.
+ *
+ * Changing the baud rate of a board also requires the BU to talk at the new rate;
+ * this class does not reconfigure the BU.
+ */
+public class CU16Provisioner {
+
+    private final CU16MachineService machine;
+    private final File cacheFile;
+    private final Map<Integer, CU16BoardConfig> cache = new LinkedHashMap<>();
+
+    /** {@code cacheFile} may be null to provision every time. */
+    public CU16Provisioner(CU16MachineService machine, File cacheFile) {
+        this.machine = machine;
+        this.cacheFile = cacheFile;
+        load();
+    }
+
+    /** The config last applied to {@code cuId}, or null if unknown. */
+    public synchronized CU16BoardConfig applied(int cuId) {
+        return cache.get(cuId & 0x0F);
+    }
+
+    /** Forgets what was applied, e.g. after boards were replaced. */
+    public synchronized void clearCache() {
+        cache.clear();
+        save();
+    }
+
+    /**
+     * Writes {@code config} to every board in {@code cuIds}, skipping boards whose
+     * cached config matches unless {@code force}. Never fails; see the result.
+     */
+    public CompletableFuture<CU16ProvisionResult> provisionAsync(Collection<Integer> cuIds,
+                                                                 CU16BoardConfig config, boolean force) {
+        Set<Integer> boards = new LinkedHashSet<>();
+        for (int cuId : cuIds) boards.add(cuId & 0x0F);
+
+        Map<Integer, CU16BoardConfig> applied = new LinkedHashMap<>();
+        Set<Integer> skipped = new LinkedHashSet<>();
+        Map<Integer, Throwable> failed = new LinkedHashMap<>();
+        List<CompletableFuture<?>> writes = new ArrayList<>(boards.size());
+        for (int cu : boards) {
+            if (!force && config.isSatisfiedBy(applied(cu))) {
+                skipped.add(cu);
+                continue;
+            }
+            writes.add(write(machine.board(cu), config).handle((ignored, error) -> {
+                synchronized (this) {
+                    if (error == null) {
+                        CU16BoardConfig now = config.over(cache.get(cu));
+                        cache.put(cu, now);
+                        applied.put(cu, now);
+                    } else {
+                        failed.put(cu, CU16Futures.unwrap(error));
+                    }
+                }
+                return null;
+            }));
+        }
+        return CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            synchronized (this) {
+                if (!applied.isEmpty()) save();
+                return new CU16ProvisionResult(applied, skipped, failed);
+            }
+        });
+    }
+
+    private static CompletableFuture<Void> write(CU16Service board, CU16BoardConfig config) {
+        CompletableFuture<?> unlockTime = config.getUnlockTime() == null
+                ? CompletableFuture.completedFuture(null)
+                : board.setUnlockTimeAsync(config.getUnlockTime());
+        if (config.getDelayOrBaud() == null) return unlockTime.thenApply(ignored -> null);
+        return unlockTime.thenCompose(ignored -> board.setDelayOrBaudAsync(config.getDelayOrBaud()));
+    }
+
+    private void load() {
+        if (cacheFile == null || !cacheFile.exists()) return;
+        Properties p = new Properties();
+        try (InputStream in = new FileInputStream(cacheFile)) {
+            p.load(in);
+        } catch (IOException e) {
+            System.err.println("Ignoring board config cache " + cacheFile + ": " + e.getMessage());
+            return;
+        }
+        for (int cu = 0; cu < CU16BusSnapshot.MAX_BOARDS; cu++) {
+            Integer unlockTime = intProperty(p, "cu." + cu + ".unlock_time");
+            Integer delayOrBaud = intProperty(p, "cu." + cu + ".delay_or_baud");
+            if (unlockTime != null || delayOrBaud != null) cache.put(cu, new CU16BoardConfig(unlockTime, delayOrBaud));
+        }
+    }
+
+    // Caller holds the lock. Written to a temporary file first so a crash never leaves half a cache.
+    private void save() {
+        if (cacheFile == null) return;
+        Properties p = new Properties();
+        for (Map.Entry<Integer, CU16BoardConfig> e : cache.entrySet()) {
+            CU16BoardConfig c = e.getValue();
+            if (c.getUnlockTime() != null) p.setProperty("cu." + e.getKey() + ".unlock_time", c.getUnlockTime().toString());
+            if (c.getDelayOrBaud() != null) p.setProperty("cu." + e.getKey() + ".delay_or_baud", c.getDelayOrBaud().toString());
+        }
+        File tmp = new File(cacheFile.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(tmp)) {
+            p.store(out, "CU16 board config applied by CU16Provisioner");
+        } catch (IOException e) {
+            System.err.println("Could not write board config cache " + cacheFile + ": " + e.getMessage());
+            return;
+        }
+        if (!tmp.renameTo(cacheFile)) {
+            System.err.println("Could not replace board config cache " + cacheFile);
+        }
+    }
+
+    private static Integer intProperty(Properties p, String key) {
+        String v = p.getProperty(key);
+        if (v == null) return null;
+        try {
+            return Integer.valueOf(v.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.parcellocker.cu16;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A frame waiting for its response on a {@link CU16Bus}, shared by the blocking
+ * scheduler and the NIO transport. Not thread-safe; the owning bus serialises access.
+ */
+abstract class CU16Request {
+
+    /** Lane for bus-wide queries; CU lanes are 0..15. */
+    static final int BUS_LANE = 16;
+
+    final byte[] frame;
+    final byte addr;
+    final byte expect;
+    final int lane;
+    long deadline;
+    final long createdAt = System.nanoTime();
+    long sentAt; // System.nanoTime() when written
+
+    CU16Request(byte[] frame) {
+        this.frame = frame;
+        this.addr = frame[1];
+        this.expect = CU16Commands.responseFor(frame[2]);
+        this.lane = frame[2] == CU16Commands.CMD_GET_ALL_BUS ? BUS_LANE : (addr >> 4) & 0x0F;
+    }
+
+    /**
+     * Finds the in-flight request a response belongs to: a bus query for
+     * RESP_STATUS_ALL, else the exact ADDR, else the oldest whole-CU request on
+     * the same CU. A door's unlock only takes a response with its own ADDR, so a
+     * late answer for a request that already timed out cannot complete another
+     * door's unlock with the wrong status.
+     */
+    static <R extends CU16Request> R match(List<R> inFlight, byte addr, byte cmd) {
+        R sameCu = null;
+        for (R r : inFlight) {
+            if (r.expect != cmd) continue;
+            if (r instanceof Bus) return r;
+            if (r.addr == addr) return r;
+            if (sameCu == null && !r.isPerDoor() && ((r.addr ^ addr) & 0xF0) == 0) sameCu = r;
+        }
+        return sameCu;
+    }
+
+    /** True for commands aimed at one door rather than the whole CU. */
+    final boolean isPerDoor() {
+        return frame[2] == CU16Commands.CMD_UNLOCK_ONE;
+    }
+
+    /** Takes a matched response; returns true once the request needs nothing more. */
+    abstract boolean accept(long word);
+
+    /** True when a partially answered request can complete before its deadline. */
+    boolean settled(long now, int quietMs) { return false; }
+
+    /**
+     * Feeds the round trip (or the timeout) into {@code latency} and the stage
+     * timings into {@code metrics}; called right before {@link #finish()}.
+     */
+    void observe(CU16LatencyTracker latency, CU16Metrics metrics, long nowNanos) {}
+
+    // Round trip of a command addressed to one board.
+    final void observeBoard(CU16LatencyTracker latency, CU16Metrics metrics, long nowNanos, boolean answered) {
+        if (!answered) {
+            latency.recordTimeout(addr, frame[2]);
+            return;
+        }
+        int cu = (addr >> 4) & 0x0F;
+        latency.record(addr, frame[2], nowNanos - sentAt);
+        metrics.record(CU16Metrics.Stage.QUEUE, cu, frame[2], sentAt - createdAt);
+        metrics.record(CU16Metrics.Stage.RESPONSE, cu, frame[2], nowNanos - sentAt);
+        metrics.record(CU16Metrics.Stage.ROUND_TRIP, cu, frame[2], nowNanos - createdAt);
+    }
+
+    /** Completes the future after the request left the in-flight list. */
+    abstract void finish();
+
+    abstract void fail(Throwable cause);
+
+    abstract boolean isDone();
+
+    /** The caller-facing future, for completion callbacks. */
+    abstract CompletableFuture<?> completion();
+
+    /** Request answered by one status frame. */
+    static final class Single extends CU16Request {
+        final CompletableFuture<CU16Parser.Status> future = new CompletableFuture<>();
+        long word = CU16StatusWord.INVALID;
+        boolean answered;
+
+        Single(byte[] frame) { super(frame); }
+
+        @Override boolean accept(long word) {
+            this.word = word;
+            answered = true;
+            return true;
+        }
+
+        @Override void observe(CU16LatencyTracker latency, CU16Metrics metrics, long nowNanos) {
+            observeBoard(latency, metrics, nowNanos, answered);
+        }
+
+        @Override void finish() {
+            if (!answered) {
+                future.completeExceptionally(new TimeoutException("no response from BU"));
+            } else {
+                future.complete(word == CU16StatusWord.INVALID ? null : new CU16Parser.Status(word));
+            }
+        }
+
+        @Override void fail(Throwable cause) { future.completeExceptionally(cause); }
+
+        @Override boolean isDone() { return future.isDone(); }
+
+        @Override CompletableFuture<?> completion() { return future; }
+    }
+
+    /** Request answered by a frame carrying a 16-bit value, e.g. RESP_UNLOCK_TIME. */
+    static final class Value extends CU16Request {
+        final CompletableFuture<Integer> future = new CompletableFuture<>();
+        int value;
+        boolean answered;
+
+        Value(byte[] frame) { super(frame); }
+
+        @Override boolean accept(long word) {
+            this.value = CU16StatusWord.lockedMask(word);
+            answered = true;
+            return true;
+        }
+
+        @Override void observe(CU16LatencyTracker latency, CU16Metrics metrics, long nowNanos) {
+            observeBoard(latency, metrics, nowNanos, answered);
+        }
+
+        @Override void finish() {
+            if (!answered) {
+                future.completeExceptionally(new TimeoutException("no response from BU"));
+            } else {
+                future.complete(value);
+            }
+        }
+
+        @Override void fail(Throwable cause) { future.completeExceptionally(cause); }
+
+        @Override boolean isDone() { return future.isDone(); }
+
+        @Override CompletableFuture<?> completion() { return future; }
+    }
+
+    /** Frame the board never answers, e.g. CMD_SET_DELAY_OR_BAUD; finished once written. */
+    static final class NoReply extends CU16Request {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        NoReply(byte[] frame) { super(frame); }
+
+        @Override boolean accept(long word) { return false; }
+
+        @Override void finish() { future.complete(null); }
+
+        @Override void fail(Throwable cause) { future.completeExceptionally(cause); }
+
+        @Override boolean isDone() { return future.isDone(); }
+
+        @Override CompletableFuture<?> completion() { return future; }
+    }
+
+    /** CMD_GET_ALL_BUS query collecting one RESP_STATUS_ALL frame per CU. */
+    static final class Bus extends CU16Request {
+        final CompletableFuture<CU16BusSnapshot> future = new CompletableFuture<>();
+        final long[] words = new long[CU16BusSnapshot.MAX_BOARDS];
+        final int expectedBoards;
+        int boards;
+        long lastFrameAt;
+
+        Bus(byte[] frame, int expectedBoards) {
+            super(frame);
+            this.expectedBoards = expectedBoards;
+        }
+
+        @Override boolean accept(long word) {
+            int cu = CU16StatusWord.cuId(word);
+            if (words[cu] == CU16StatusWord.INVALID) boards++;
+            words[cu] = word;
+            lastFrameAt = System.currentTimeMillis();
+            return expectedBoards > 0 && boards >= expectedBoards;
+        }
+
+        @Override void observe(CU16LatencyTracker latency, CU16Metrics metrics, long nowNanos) {
+            if (boards == 0) return;
+            metrics.record(CU16Metrics.Stage.QUEUE, CU16Metrics.BUS, frame[2], sentAt - createdAt);
+            metrics.record(CU16Metrics.Stage.ROUND_TRIP, CU16Metrics.BUS, frame[2], nowNanos - createdAt);
+        }
+
+        @Override boolean settled(long now, int quietMs) {
+            return boards > 0 && now - lastFrameAt >= quietMs;
+        }
+
+        @Override void finish() {
+            if (boards == 0) {
+                future.completeExceptionally(new TimeoutException("no board answered the bus query"));
+            } else {
+                future.complete(new CU16BusSnapshot(words, lastFrameAt));
+            }
+        }
+
+        @Override void fail(Throwable cause) { future.completeExceptionally(cause); }
+
+        @Override boolean isDone() { return future.isDone(); }
+
+        @Override CompletableFuture<?> completion() { return future; }
+    }
+}
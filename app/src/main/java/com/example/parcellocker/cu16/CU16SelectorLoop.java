@@ -0,0 +1,127 @@
+package com.example.parcellocker.cu16;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * One I/O thread multiplexing every BU connection over a {@link Selector}.
+ *
+ * Each {@link #open(String, int)} returns a {@link CU16NioBus} whose socket is
+ * driven by this loop, so a controller talking to several BU boards (or a
+ * simulator) needs one thread in total instead of one per board or per call.
+ * A bus that throws on this thread is shut down and dropped; the others keep
+ * running.
+ */
+public final class CU16SelectorLoop implements Closeable {
+
+    private static final int TICK_MS = 20;
+
+    private final Selector selector;
+    private final Thread thread;
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final List<CU16NioBus> buses = new ArrayList<>(); // loop thread only
+    private volatile boolean running = true;
+
+    public CU16SelectorLoop() throws IOException {
+        this.selector = Selector.open();
+        this.thread = new Thread(this::run, "cu16-nio");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** Bus for the BU at {@code host:port}; it connects on the first command. */
+    public CU16NioBus open(String host, int port) {
+        CU16NioBus bus = new CU16NioBus(this, new InetSocketAddress(host, port));
+        execute(() -> buses.add(bus));
+        return bus;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+    }
+
+    void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    Selector selector() {
+        return selector;
+    }
+
+    void detach(CU16NioBus bus) {
+        buses.remove(bus);
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                selector.select(TICK_MS);
+            } catch (IOException e) {
+                break;
+            }
+            runTasks();
+
+            Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+            while (it.hasNext()) {
+                SelectionKey key = it.next();
+                it.remove();
+                CU16NioBus bus = (CU16NioBus) key.attachment();
+                try {
+                    bus.onReady(key);
+                } catch (RuntimeException e) {
+                    fail(bus, e);
+                }
+            }
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < buses.size(); i++) {
+                CU16NioBus bus = buses.get(i);
+                try {
+                    bus.onTick(now);
+                } catch (RuntimeException e) {
+                    fail(bus, e);
+                    i--;
+                }
+            }
+        }
+        CancellationException closed = new CancellationException("selector loop closed");
+        runTasks();
+        for (CU16NioBus bus : new ArrayList<>(buses)) bus.shutdownNow(closed);
+        try {
+            selector.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                System.err.println("CU16 selector task failed: " + e);
+            }
+        }
+    }
+
+    /** Shuts down and forgets a bus that threw on this thread, leaving the others running. */
+    private void fail(CU16NioBus bus, RuntimeException e) {
+        System.err.println("CU16 bus dropped after an error on the selector thread: " + e);
+        buses.remove(bus);
+        try {
+            bus.shutdownNow(e);
+        } catch (RuntimeException ignored) {
+            // the bus is gone either way
+        }
+    }
+}
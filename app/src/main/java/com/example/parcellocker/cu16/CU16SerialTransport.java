@@ -0,0 +1,278 @@
+package com.example.parcellocker.cu16;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * CU16 boards on an RS-485 line, e.g. a USB adapter exposed as /dev/ttyUSB0, or
+ * any pair of streams to one. Skips the BU and the network hop.
+ *
+ * Device files have no read timeout, so a pump thread does the blocking reads and
+ * hands the bytes over through a small ring buffer; {@link #read} waits on that.
+ * A device that disappears (adapter unplugged) fails the pending reads and is
+ * reopened on the next write, with the same backoff as {@link CU16Client}.
+ *
+ * The line must be raw 8N1 at the boards' baud rate. Pass {@code baud} to have it
+ * set with {@code stty} on every open, or configure the port beforehand. A pump
+ * thread blocked on a device that was closed only ends once another byte arrives
+ * or the device goes away.
+ */
+public class CU16SerialTransport implements CU16Transport {
+
+    private static final int RING_SIZE = 4096;
+
+    private final File device;
+    private final int baud;
+    private InputStream givenIn;
+    private OutputStream givenOut;
+
+    private long minBackoffMs = 250;
+    private long maxBackoffMs = 8_000;
+    private int openFailures;
+    private long nextOpenAt;
+    private volatile CU16Metrics metrics;
+
+    // Current link; replaced on reopen. Guarded by this.
+    private Link link;
+
+    /** A serial device the caller configured beforehand. */
+    public CU16SerialTransport(File device) {
+        this(device, 0);
+    }
+
+    /** A serial device set to raw 8N1 at {@code baud} with stty whenever it is opened; 0 leaves it alone. */
+    public CU16SerialTransport(File device, int baud) {
+        this.device = device;
+        this.baud = baud;
+    }
+
+    /** Streams to an already open line, e.g. from a USB serial library; cannot be reopened. */
+    public CU16SerialTransport(InputStream in, OutputStream out) {
+        this.device = null;
+        this.baud = 0;
+        this.givenIn = in;
+        this.givenOut = out;
+    }
+
+    /** Reopen backoff bounds; the delay doubles per failed open up to {@code maxMs}. */
+    public void setReopenBackoff(long minMs, long maxMs) {
+        this.minBackoffMs = minMs;
+        this.maxBackoffMs = maxMs;
+    }
+
+    @Override
+    public void setMetrics(CU16Metrics metrics) { this.metrics = metrics; }
+
+    // Like a socket, a line that hit EOF or an error stays connected until the
+    // reader has taken what was read ahead and seen the end, so it can fail the
+    // requests in flight instead of leaving them to time out.
+    @Override
+    public synchronized boolean isConnected() {
+        return link != null && !link.isDropped();
+    }
+
+    @Override
+    public void write(byte[] buf, int off, int len) throws IOException {
+        Link l;
+        synchronized (this) {
+            if (link == null || link.isClosed()) {
+                if (link != null) link.close();
+                link = open();
+            }
+            l = link;
+        }
+        try {
+            l.out.write(buf, off, len);
+            l.out.flush();
+        } catch (IOException e) {
+            drop(l);
+            throw e;
+        }
+    }
+
+    @Override
+    public int read(byte[] buf, int off, int len, int waitMs) throws IOException {
+        Link l;
+        synchronized (this) {
+            l = link;
+        }
+        if (l == null) throw new IOException("not connected");
+        try {
+            int n = l.take(buf, off, len, waitMs);
+            if (n < 0) drop(l);
+            return n;
+        } catch (IOException e) {
+            drop(l);
+            throw e;
+        }
+    }
+
+    /**
+     * Streams to use on the next reopen, e.g. after a USB serial library found the
+     * adapter again; only for transports built from streams.
+     */
+    synchronized void reattach(InputStream in, OutputStream out) {
+        if (device != null) throw new IllegalStateException("reopens " + device + " itself");
+        this.givenIn = in;
+        this.givenOut = out;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (link != null) link.close();
+        link = null;
+    }
+
+    private synchronized void drop(Link l) {
+        l.close();
+        if (link == l) link = null;
+    }
+
+    // Caller holds the lock.
+    private Link open() throws IOException {
+        if (device == null) {
+            if (givenIn == null) throw new IOException("serial line closed");
+            Link l = new Link(givenIn, givenOut);
+            givenIn = null;
+            givenOut = null;
+            return l;
+        }
+        long now = System.currentTimeMillis();
+        if (now < nextOpenAt) {
+            throw new IOException(device + " unavailable, retrying in " + (nextOpenAt - now) + " ms");
+        }
+        long start = System.nanoTime();
+        FileInputStream in = null;
+        try {
+            if (baud > 0) stty(device, baud);
+            in = new FileInputStream(device);
+            Link l = new Link(in, new FileOutputStream(device));
+            openFailures = 0;
+            nextOpenAt = 0;
+            CU16Metrics m = metrics;
+            if (m != null) m.record(CU16Metrics.Stage.CONNECT, CU16Metrics.BUS, (byte) 0, System.nanoTime() - start);
+            return l;
+        } catch (IOException e) {
+            if (in != null) {
+                try { in.close(); } catch (IOException ignored) { }
+            }
+            openFailures++;
+            long delay = minBackoffMs << Math.min(openFailures - 1, 16);
+            nextOpenAt = System.currentTimeMillis() + Math.min(delay, maxBackoffMs);
+            throw e;
+        }
+    }
+
+    /** Sets {@code device} to raw 8N1 at {@code baud} with the stty tool (Linux and Android toybox). */
+    public static void stty(File device, int baud) throws IOException {
+        Process p = new ProcessBuilder("stty", "-F", device.getPath(), String.valueOf(baud),
+                "raw", "-echo", "cs8", "-cstopb", "-parenb", "-crtscts", "-ixon", "-ixoff")
+                .redirectErrorStream(true)
+                .start();
+        try {
+            if (p.waitFor() != 0) throw new IOException("stty failed for " + device);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted configuring " + device, e);
+        }
+    }
+
+    /** One open line: its streams, the pump thread and the bytes it read ahead. */
+    private static final class Link {
+        final InputStream in;
+        final OutputStream out;
+        private final byte[] ring = new byte[RING_SIZE];
+        private int head;
+        private int count;
+        private IOException error;
+        private boolean closed;
+
+        Link(InputStream in, OutputStream out) {
+            this.in = in;
+            this.out = out;
+            Thread pump = new Thread(this::pump, "cu16-serial-rx");
+            pump.setDaemon(true);
+            pump.start();
+        }
+
+        private void pump() {
+            byte[] chunk = new byte[256];
+            try {
+                while (true) {
+                    int n = in.read(chunk);
+                    if (n < 0) throw new EOFException("serial line closed");
+                    if (!put(chunk, n)) return;
+                }
+            } catch (IOException e) {
+                synchronized (this) {
+                    if (error == null) error = e;
+                    notifyAll();
+                }
+            }
+        }
+
+        private synchronized boolean put(byte[] chunk, int n) {
+            for (int i = 0; i < n; i++) {
+                while (count == RING_SIZE && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return false;
+                    }
+                }
+                if (closed) return false;
+                ring[(head + count) % RING_SIZE] = chunk[i];
+                count++;
+            }
+            notifyAll();
+            return true;
+        }
+
+        synchronized int take(byte[] buf, int off, int len, int waitMs) throws IOException {
+            long deadline = System.currentTimeMillis() + Math.max(1, waitMs);
+            while (count == 0 && error == null && !closed) {
+                long left = deadline - System.currentTimeMillis();
+                if (left <= 0) return 0;
+                try {
+                    wait(left);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return 0;
+                }
+            }
+            if (count == 0) {
+                if (error instanceof EOFException || closed) return -1;
+                throw error;
+            }
+            int n = Math.min(len, count);
+            for (int i = 0; i < n; i++) buf[off + i] = ring[(head + i) % RING_SIZE];
+            head = (head + n) % RING_SIZE;
+            count -= n;
+            notifyAll();
+            return n;
+        }
+
+        synchronized boolean isClosed() {
+            return closed || error != null;
+        }
+
+        synchronized boolean isDropped() {
+            return closed;
+        }
+
+        void close() {
+            synchronized (this) {
+                if (closed) return;
+                closed = true;
+                notifyAll();
+            }
+            try { in.close(); } catch (IOException ignored) { }
+            try { out.close(); } catch (IOException ignored) { }
+        }
+    }
+}
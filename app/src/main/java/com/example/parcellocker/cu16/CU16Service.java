@@ -1,69 +1,329 @@
 package com.example.parcellocker.cu16;
 
-
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
- * High level API for app modules. Uses background executor for network calls.
+ * High level API for app modules. Commands go through a {@link CU16Bus}, which
+ * keeps the BU connection open and pipelines frames, so several door commands can
+ * be in flight at once; call {@link #shutdown()} when the service is no longer needed.
+ *
+ * Every call returns a CompletableFuture, so callers chain follow-up work
+ * (confirm, update the DB, post to the UI) instead of blocking a thread on
+ * {@code get()}. Use {@link CU16Futures#withTimeout} for a tighter deadline.
+ *
+ * Lost frames time out after the bus's adaptive per-board deadline and are retried
+ * up to {@link #setMaxRetries(int)} times. Status queries are simply resent. An
+ * unlock is never resent blind: the door's status is read first, and the unlock
+ * only goes out again if the board still reports the door locked.
+ * CMD_UNLOCK_ALL is not retried.
+ *
+ * Board commands pass a {@link CU16CircuitBreaker}: once the board stopped
+ * answering they fail at once with an IOException until a probe gets through.
  */
 public class CU16Service {
-    private final CU16Client client;
+    // Bus-wide query; the BU answers for every CU, so the ADDR is not board specific.
+    private static final byte[] GET_ALL_BUS_FRAME =
+            CU16PacketBuilder.buildSimple((byte) 0x00, CU16Commands.CMD_GET_ALL_BUS);
+
+    // Solenoids drawing current at once and the pause between bursts; see setUnlockBurst.
+    private static final int DEFAULT_DOORS_PER_BURST = 4;
+    private static final long DEFAULT_STAGGER_MS = 150;
+
+    private final CU16Bus bus;
     private final int cuId;
-    private final ExecutorService exec = Executors.newSingleThreadExecutor();
+    private final CU16CircuitBreaker breaker;
+    private volatile int doorsPerBurst = DEFAULT_DOORS_PER_BURST;
+    private volatile long staggerMs = DEFAULT_STAGGER_MS;
+    private volatile int maxRetries = 2;
+
+    public CU16Service(CU16Transport client, int cuId) {
+        this(new CU16BusScheduler(client), cuId);
+    }
+
+    public CU16Service(CU16Bus bus, int cuId) {
+        this(bus, cuId, new CU16CircuitBreaker());
+    }
 
-    public CU16Service(CU16Client client, int cuId) {
-        this.client = client;
+    /** Board view sharing {@code breaker} with the other boards of its machine. */
+    public CU16Service(CU16Bus bus, int cuId, CU16CircuitBreaker breaker) {
+        this.bus = bus;
         this.cuId = cuId;
+        this.breaker = breaker;
     }
 
-    public Future<CU16Parser.Status> unlockDoorAsync(int doorIndex) {
-        return exec.submit(() -> {
-            byte addr = CU16PacketBuilder.makeAddr(cuId, doorIndex);
-            byte[] req = CU16PacketBuilder.buildSimple(addr, CU16Commands.CMD_UNLOCK_ONE);
-            byte[] resp = client.sendAndReceive(req);
-            if (resp == null) throw new IllegalStateException("no response");
-            // response expected to be 9-byte status; if multiple frames, take first 9
-            if (resp.length >= 9) {
-                byte[] first = new byte[9];
-                System.arraycopy(resp, 0, first, 0, 9);
-                return CU16Parser.parseStatus9(first);
-            } else {
-                throw new IllegalStateException("invalid response length");
-            }
-        });
+    public CU16CircuitBreaker getCircuitBreaker() {
+        return breaker;
+    }
+
+    /** Retries after a timeout or connection error (default 2); 0 disables them. */
+    public void setMaxRetries(int maxRetries) {
+        if (maxRetries < 0) throw new IllegalArgumentException("maxRetries < 0");
+        this.maxRetries = maxRetries;
+    }
+
+    public CompletableFuture<CU16Parser.Status> unlockDoorAsync(int doorIndex) {
+        return guarded(CU16Commands.CMD_UNLOCK_ONE, () -> recoverUnlock(doorIndex, sendUnlock(doorIndex), maxRetries));
+    }
+
+    public CompletableFuture<CU16Parser.Status> getStatusSingleAsync(int doorIndex) {
+        return guarded(CU16Commands.CMD_GET_STATUS, () -> readStatus(doorIndex));
+    }
+
+    /** {@link #unlockDoorAsync(int)} that fails with a TimeoutException after {@code timeoutMs}. */
+    public CompletableFuture<CU16Parser.Status> unlockDoorAsync(int doorIndex, long timeoutMs) {
+        return CU16Futures.withTimeout(unlockDoorAsync(doorIndex), timeoutMs);
+    }
+
+    /**
+     * Unlocks a door, then reads its status back and completes only if the board
+     * reports it unlocked; fails with IllegalStateException otherwise.
+     */
+    public CompletableFuture<CU16Parser.Status> unlockAndConfirmAsync(int doorIndex) {
+        return unlockDoorAsync(doorIndex)
+                .thenCompose(ignored -> getStatusSingleAsync(doorIndex))
+                .thenApply(status -> {
+                    if (status.isLocked(doorIndex & 0x0F)) {
+                        throw new IllegalStateException("door " + doorIndex + " still reports locked");
+                    }
+                    return status;
+                });
+    }
+
+    /**
+     * Limits how many solenoids {@link #unlockDoorsAsync} fires together: doors are
+     * sent {@code doorsPerBurst} at a time, and the next burst waits until the
+     * previous one was answered plus {@code staggerMs}, to stay inside the board's
+     * current limit.
+     */
+    public void setUnlockBurst(int doorsPerBurst, long staggerMs) {
+        if (doorsPerBurst < 1 || staggerMs < 0) throw new IllegalArgumentException("bad burst settings");
+        this.doorsPerBurst = doorsPerBurst;
+        this.staggerMs = staggerMs;
+    }
+
+    /**
+     * Unlocks a set of doors on this board. The CMD_UNLOCK_ONE frames of each burst
+     * are handed to the bus together and go out in one write; see
+     * {@link #setUnlockBurst}. The future never fails: it completes once every door
+     * was answered or failed, with the outcome per door.
+     */
+    public CompletableFuture<CU16UnlockResult> unlockDoorsAsync(Collection<Integer> doorIndexes) {
+        List<Integer> doors = new ArrayList<>(new LinkedHashSet<>(doorIndexes));
+        List<CompletableFuture<CU16Parser.Status>> results = new ArrayList<>(doors.size());
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < doors.size(); i++) {
+            CompletableFuture<CU16Parser.Status> result = new CompletableFuture<>();
+            // Per door: how long after the request this door actually opened.
+            result.thenRun(() -> bus.getMetrics().record(CU16Metrics.Stage.CALL, cuId,
+                    CU16Commands.CMD_UNLOCK_ONE, System.nanoTime() - startedAt));
+            results.add(result);
+        }
+
+        int perBurst = doorsPerBurst;
+        long stagger = staggerMs;
+        CompletableFuture<?> previous = CompletableFuture.completedFuture(null);
+        for (int from = 0; from < doors.size(); from += perBurst) {
+            int start = from;
+            int end = Math.min(from + perBurst, doors.size());
+            CompletableFuture<?> ready = start == 0 || stagger == 0
+                    ? previous
+                    : previous.thenCompose(ignored -> CU16Futures.delay(stagger));
+            previous = ready.thenCompose(ignored -> sendBurst(doors, start, end, results));
+        }
+
+        return CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0]))
+                .handle((ignored, error) -> {
+                    Map<Integer, CU16Parser.Status> unlocked = new LinkedHashMap<>();
+                    Map<Integer, Throwable> failed = new LinkedHashMap<>();
+                    for (int i = 0; i < doors.size(); i++) {
+                        CompletableFuture<CU16Parser.Status> f = results.get(i);
+                        if (f.isCompletedExceptionally()) {
+                            failed.put(doors.get(i), f.handle((v, e) -> CU16Futures.unwrap(e)).join());
+                        } else {
+                            unlocked.put(doors.get(i), f.join());
+                        }
+                    }
+                    return new CU16UnlockResult(unlocked, failed);
+                });
+    }
+
+    // Submits doors[start, end) as one burst; completes (never exceptionally) once all of them settled.
+    private CompletableFuture<Void> sendBurst(List<Integer> doors, int start, int end,
+                                              List<CompletableFuture<CU16Parser.Status>> results) {
+        IOException offline = breaker.check(cuId);
+        if (offline != null) {
+            for (int i = start; i < end; i++) results.get(i).completeExceptionally(offline);
+            return CompletableFuture.completedFuture(null);
+        }
+        List<byte[]> frames = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            frames.add(CU16PacketBuilder.unlockOneFrame(CU16PacketBuilder.makeAddr(cuId, doors.get(i))));
+        }
+        List<CompletableFuture<CU16Parser.Status>> sent = bus.submitAll(frames);
+        int retries = maxRetries;
+        for (int i = 0; i < sent.size(); i++) {
+            CompletableFuture<CU16Parser.Status> result = results.get(start + i);
+            sent.set(i, recoverUnlock(doors.get(start + i), sent.get(i), retries));
+            sent.get(i).whenComplete((status, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(status);
+                }
+            });
+        }
+        return CompletableFuture.allOf(sent.toArray(new CompletableFuture<?>[0]))
+                .handle((ignored, error) -> {
+                    // One verdict per burst: the board is alive if any door answered.
+                    Throwable failure = error;
+                    for (CompletableFuture<CU16Parser.Status> f : sent) {
+                        if (!f.isCompletedExceptionally()) failure = null;
+                    }
+                    breaker.record(cuId, failure);
+                    return null;
+                });
+    }
+
+    public CompletableFuture<CU16Parser.Status> unlockAllAsync() {
+        byte addr = CU16PacketBuilder.makeAddr(cuId, 0);
+        return guarded(CU16Commands.CMD_UNLOCK_ALL,
+                () -> bus.submit(CU16PacketBuilder.buildSimple(addr, CU16Commands.CMD_UNLOCK_ALL)));
+    }
+
+    /** Watch for {@code doorIndex} opening and closing; see {@link CU16DoorWatch#start()}. */
+    public CU16DoorWatch watchDoor(int doorIndex) {
+        return new CU16DoorWatch(this, doorIndex);
+    }
+
+    /**
+     * Sets how long the board powers a solenoid on unlock (CMD_SET_UNLOCK_TIME) and
+     * completes with the value the board echoed in RESP_UNLOCK_TIME; fails with
+     * IllegalStateException if it echoed something else. Safe to resend, so lost
+     * frames are retried.
+     */
+    public CompletableFuture<Integer> setUnlockTimeAsync(int unlockTime) {
+        checkWord(unlockTime);
+        byte addr = CU16PacketBuilder.makeAddr(cuId, 0);
+        byte[] frame = CU16PacketBuilder.buildTwoData(addr, CU16Commands.CMD_SET_UNLOCK_TIME, unlockTime);
+        return guarded(CU16Commands.CMD_SET_UNLOCK_TIME, () -> retrying(() -> bus.submitForValue(frame), maxRetries))
+                .thenApply(echoed -> {
+                    if (echoed != unlockTime) {
+                        throw new IllegalStateException("CU " + cuId + " applied unlock time " + echoed
+                                + " instead of " + unlockTime);
+                    }
+                    return echoed;
+                });
     }
 
-    public Future<CU16Parser.Status> getStatusSingleAsync(int doorIndex) {
-        return exec.submit(() -> {
-            byte addr = CU16PacketBuilder.makeAddr(cuId, doorIndex);
-            byte[] req = CU16PacketBuilder.buildSimple(addr, CU16Commands.CMD_GET_STATUS);
-            byte[] resp = client.sendAndReceive(req);
-            if (resp == null) throw new IllegalStateException("no response");
-            if (resp.length >= 9) {
-                byte[] first = new byte[9];
-                System.arraycopy(resp, 0, first, 0, 9);
-                return CU16Parser.parseStatus9(first);
-            } else {
-                throw new IllegalStateException("invalid response length");
+    /**
+     * Sends CMD_SET_DELAY_OR_BAUD; the meaning of {@code value} depends on the board
+     * firmware. The board does not answer, so completion only means the frame went
+     * out, and the breaker is not consulted.
+     */
+    public CompletableFuture<Void> setDelayOrBaudAsync(int value) {
+        checkWord(value);
+        byte addr = CU16PacketBuilder.makeAddr(cuId, 0);
+        return bus.send(CU16PacketBuilder.buildTwoData(addr, CU16Commands.CMD_SET_DELAY_OR_BAUD, value));
+    }
+
+    /**
+     * Status of every CU on the bus from a single CMD_GET_ALL_BUS query, instead of
+     * one status request per door.
+     */
+    public CompletableFuture<CU16BusSnapshot> getAllBoardsStatusAsync() {
+        return getAllBoardsStatusAsync(0);
+    }
+
+    /** As {@link #getAllBoardsStatusAsync()}, completing as soon as {@code expectedBoards} CUs answered. */
+    public CompletableFuture<CU16BusSnapshot> getAllBoardsStatusAsync(int expectedBoards) {
+        CompletableFuture<CU16BusSnapshot> f =
+                retrying(() -> bus.submitBusQuery(GET_ALL_BUS_FRAME, expectedBoards), maxRetries);
+        f.thenAccept(snapshot -> {
+            // Every board that answered is evidently reachable.
+            for (int cu = 0; cu < CU16BusSnapshot.MAX_BOARDS; cu++) {
+                if (snapshot.isPresent(cu)) breaker.onSuccess(cu);
             }
         });
+        return f;
     }
 
-    public Future<CU16Parser.Status> unlockAllAsync() {
-        return exec.submit(() -> {
-            byte addr = CU16PacketBuilder.makeAddr(cuId, 0);
-            byte[] req = CU16PacketBuilder.buildSimple(addr, CU16Commands.CMD_UNLOCK_ALL);
-            byte[] resp = client.sendAndReceive(req);
-            if (resp == null) throw new IllegalStateException("no response");
-            if (resp.length >= 9) {
-                byte[] first = new byte[9];
-                System.arraycopy(resp, 0, first, 0, 9);
-                return CU16Parser.parseStatus9(first);
-            } else {
-                throw new IllegalStateException("invalid response length");
-            }
+    /**
+     * Fails fast while the board's breaker is open; otherwise runs {@code call},
+     * records its outcome and how long the caller waited (the CALL stage).
+     */
+    private <T> CompletableFuture<T> guarded(byte cmd, Supplier<CompletableFuture<T>> call) {
+        IOException offline = breaker.check(cuId);
+        if (offline != null) return CU16Futures.failed(offline);
+        long start = System.nanoTime();
+        CompletableFuture<T> f = call.get();
+        f.whenComplete((value, error) -> {
+            breaker.record(cuId, error);
+            if (error == null) bus.getMetrics().record(CU16Metrics.Stage.CALL, cuId, cmd, System.nanoTime() - start);
         });
+        return f;
+    }
+
+    private CompletableFuture<CU16Parser.Status> readStatus(int doorIndex) {
+        byte addr = CU16PacketBuilder.makeAddr(cuId, doorIndex);
+        return retrying(() -> bus.submit(CU16PacketBuilder.getStatusFrame(addr)), maxRetries);
+    }
+
+    private CompletableFuture<CU16Parser.Status> sendUnlock(int doorIndex) {
+        byte addr = CU16PacketBuilder.makeAddr(cuId, doorIndex);
+        return bus.submit(CU16PacketBuilder.unlockOneFrame(addr));
+    }
+
+    /**
+     * If {@code attempt} failed in a retryable way, the board may still have fired
+     * the solenoid before the answer got lost: read the door back and only unlock
+     * again if it still reports locked.
+     */
+    private CompletableFuture<CU16Parser.Status> recoverUnlock(int doorIndex,
+                                                               CompletableFuture<CU16Parser.Status> attempt,
+                                                               int retriesLeft) {
+        return attempt.handle((status, error) -> {
+            if (error == null) return CompletableFuture.completedFuture(status);
+            Throwable cause = CU16Futures.unwrap(error);
+            if (retriesLeft == 0 || !isRetryable(cause)) return CU16Futures.<CU16Parser.Status>failed(cause);
+            return readStatus(doorIndex).handle((current, statusError) -> {
+                if (statusError != null) return CU16Futures.<CU16Parser.Status>failed(cause);
+                if (!current.isLocked(doorIndex & 0x0F)) return CompletableFuture.completedFuture(current);
+                return recoverUnlock(doorIndex, sendUnlock(doorIndex), retriesLeft - 1);
+            }).thenCompose(Function.identity());
+        }).thenCompose(Function.identity());
+    }
+
+    // For idempotent commands only.
+    private static <T> CompletableFuture<T> retrying(Supplier<CompletableFuture<T>> call, int retriesLeft) {
+        return call.get().handle((value, error) -> {
+            if (error == null) return CompletableFuture.completedFuture(value);
+            Throwable cause = CU16Futures.unwrap(error);
+            if (retriesLeft == 0 || !isRetryable(cause)) return CU16Futures.<T>failed(cause);
+            return retrying(call, retriesLeft - 1);
+        }).thenCompose(Function.identity());
+    }
+
+    private static void checkWord(int value) {
+        if (value < 0 || value > 0xFFFF) throw new IllegalArgumentException("value out of range: " + value);
+    }
+
+    // A lost or late frame, or a dropped connection; not a closed bus or a bad frame.
+    private static boolean isRetryable(Throwable error) {
+        return error instanceof TimeoutException || error instanceof IOException;
+    }
+
+    /** Fails anything still queued and closes the BU connection. */
+    public void shutdown() {
+        bus.close();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,285 @@
+package com.example.parcellocker.cu16;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local BU that speaks real CU16 framing over TCP, backed by a {@link HardwareMock}.
+ *
+ * Answers CMD_GET_STATUS, CMD_UNLOCK_ONE and CMD_UNLOCK_ALL with RESP_STATUS_SINGLE,
+ * CMD_GET_ALL_BUS with one RESP_STATUS_ALL per board, CMD_SET_UNLOCK_TIME with
+ * RESP_UNLOCK_TIME, and takes CMD_SET_DELAY_OR_BAUD silently. Frames for a CU the
+ * mock does not have go unanswered, like on a real bus.
+ *
+ * To make the client stack earn its keep, every answer can be delayed by a base
+ * latency plus random jitter, split across several TCP writes, or dropped. Answers
+ * on one connection keep their order, as a board's would. Any number of clients
+ * may connect at once; start one simulator per BU to model several machines.
+ */
+public final class CU16Simulator implements Closeable {
+
+    private final HardwareMock hardware;
+    private final List<Connection> connections = new CopyOnWriteArrayList<>();
+    private final AtomicInteger connectionIds = new AtomicInteger();
+    private final AtomicLong framesReceived = new AtomicLong();
+    private final AtomicLong framesAnswered = new AtomicLong();
+    private final AtomicLong framesDropped = new AtomicLong();
+    private ServerSocket server;
+    private Thread acceptor;
+
+    private volatile int latencyMs;
+    private volatile int jitterMs;
+    private volatile double splitRate;
+    private volatile double dropRate;
+    private volatile int busFrameGapMs = 2;
+    private volatile long seed = System.nanoTime();
+
+    public CU16Simulator(HardwareMock hardware) {
+        this.hardware = hardware;
+    }
+
+    /** Fixed delay before every answer, on top of which up to {@code jitterMs} is added at random. */
+    public void setLatency(int latencyMs, int jitterMs) {
+        this.latencyMs = latencyMs;
+        this.jitterMs = jitterMs;
+    }
+
+    /** Share of answers written in two pieces with a 1 ms pause in between (0..1). */
+    public void setSplitRate(double rate) { this.splitRate = rate; }
+
+    /** Share of frames that get no answer at all (0..1). The command still takes effect. */
+    public void setDropRate(double rate) { this.dropRate = rate; }
+
+    /** Pause between the per-board answers to CMD_GET_ALL_BUS. */
+    public void setBusFrameGapMs(int ms) { this.busFrameGapMs = ms; }
+
+    /** Seed for the latency/split/drop dice, for reproducible runs; applies to new connections. */
+    public void setSeed(long seed) { this.seed = seed; }
+
+    public HardwareMock getHardware() { return hardware; }
+
+    /** Listens on {@code port} on the loopback interface (0 = any free port) and returns the bound port. */
+    public synchronized int start(int port) throws IOException {
+        return start(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    public synchronized int start(InetSocketAddress address) throws IOException {
+        if (server != null) throw new IllegalStateException("already started");
+        server = new ServerSocket();
+        server.setReuseAddress(true);
+        server.bind(address, 50);
+        acceptor = new Thread(this::acceptLoop, "cu16-sim-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return server.getLocalPort();
+    }
+
+    public synchronized int getPort() {
+        return server == null ? -1 : server.getLocalPort();
+    }
+
+    public long getFramesReceived() { return framesReceived.get(); }
+
+    public long getFramesAnswered() { return framesAnswered.get(); }
+
+    public long getFramesDropped() { return framesDropped.get(); }
+
+    public int getConnectionCount() { return connections.size(); }
+
+    /** Stops listening and closes every client connection. */
+    @Override
+    public synchronized void close() {
+        if (server != null) {
+            try { server.close(); } catch (IOException ignored) { }
+        }
+        for (Connection c : connections) c.close();
+    }
+
+    private void acceptLoop() {
+        ServerSocket s = server;
+        while (!s.isClosed()) {
+            try {
+                Socket socket = s.accept();
+                socket.setTcpNoDelay(true);
+                Connection c = new Connection(socket, connectionIds.incrementAndGet());
+                connections.add(c);
+                c.start();
+            } catch (IOException e) {
+                if (s.isClosed()) return;
+            }
+        }
+    }
+
+    /** One client: a reader thread decodes commands, a scheduler writes the delayed answers in order. */
+    private final class Connection {
+        private final Socket socket;
+        private final Thread reader;
+        private final ScheduledExecutorService writer;
+        private final Random random;
+        private long lastDueNanos; // reader thread only
+
+        Connection(Socket socket, int id) {
+            this.socket = socket;
+            this.random = new Random(seed + id);
+            this.reader = new Thread(this::readLoop, "cu16-sim-rx-" + id);
+            this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "cu16-sim-tx-" + id);
+                t.setDaemon(true);
+                return t;
+            });
+            reader.setDaemon(true);
+        }
+
+        void start() {
+            reader.start();
+        }
+
+        void close() {
+            connections.remove(this);
+            writer.shutdownNow();
+            try { socket.close(); } catch (IOException ignored) { }
+        }
+
+        private void readLoop() {
+            byte[] buf = new byte[512];
+            byte[] frame = new byte[CU16FrameDecoder.MAX_FRAME];
+            CU16FrameDecoder decoder = new CU16FrameDecoder();
+            try {
+                InputStream in = socket.getInputStream();
+                int n;
+                while ((n = in.read(buf)) > 0) {
+                    decoder.feed(buf, 0, n);
+                    int len;
+                    while ((len = decoder.nextFrame(frame)) > 0) handle(frame, len);
+                }
+            } catch (IOException ignored) {
+                // client went away
+            } finally {
+                close();
+            }
+        }
+
+        private void handle(byte[] frame, int len) {
+            framesReceived.incrementAndGet();
+            byte addr = frame[1];
+            byte cmd = frame[2];
+            int cu = (addr >> 4) & 0x0F;
+            int door = addr & 0x0F;
+
+            // The board acts on the command whether or not its answer makes it back.
+            switch (cmd) {
+                case CU16Commands.CMD_UNLOCK_ONE:
+                    hardware.unlockDoor(cu, door);
+                    break;
+                case CU16Commands.CMD_UNLOCK_ALL:
+                    hardware.unlockAll(cu);
+                    break;
+                case CU16Commands.CMD_SET_UNLOCK_TIME:
+                    if (len >= 7) hardware.setUnlockTime(cu, (frame[3] & 0xFF) | (frame[4] & 0xFF) << 8);
+                    break;
+                case CU16Commands.CMD_SET_DELAY_OR_BAUD:
+                    if (len >= 6) hardware.setDelayOrBaud(cu, len >= 7
+                            ? (frame[3] & 0xFF) | (frame[4] & 0xFF) << 8
+                            : frame[3] & 0xFF);
+                    return;
+                default:
+                    break;
+            }
+
+            if (cmd == CU16Commands.CMD_GET_ALL_BUS) {
+                int gap = 0;
+                for (int id = 0; id < CU16BusSnapshot.MAX_BOARDS; id++) {
+                    if (!hardware.hasBoard(id)) continue;
+                    int board = id;
+                    answer(() -> statusFrame((byte) (board << 4), CU16Commands.RESP_STATUS_ALL), gap);
+                    gap += busFrameGapMs;
+                }
+                return;
+            }
+            if (!hardware.hasBoard(cu)) return;
+            if (cmd == CU16Commands.CMD_SET_UNLOCK_TIME) {
+                answer(() -> CU16PacketBuilder.buildTwoData(addr, CU16Commands.RESP_UNLOCK_TIME,
+                        hardware.getUnlockTime(cu)), 0);
+            } else if (CU16Commands.responseFor(cmd) == CU16Commands.RESP_STATUS_SINGLE) {
+                answer(() -> statusFrame(addr, CU16Commands.RESP_STATUS_SINGLE), 0);
+            }
+        }
+
+        private byte[] statusFrame(byte addr, byte cmd) {
+            // One atomic read, so locked and occupied always come from the same moment.
+            long word = hardware.statusWord((addr >> 4) & 0x0F, cmd);
+            int locked = CU16StatusWord.lockedMask(word);
+            int occupied = CU16StatusWord.occupiedMask(word);
+            byte[] b = new byte[9];
+            b[0] = CU16Commands.STX;
+            b[1] = addr;
+            b[2] = cmd;
+            b[3] = (byte) locked;
+            b[4] = (byte) (locked >> 8);
+            b[5] = (byte) occupied;
+            b[6] = (byte) (occupied >> 8);
+            b[7] = CU16Commands.ETX;
+            int sum = 0;
+            for (int i = 0; i < 8; i++) sum += b[i] & 0xFF;
+            b[8] = (byte) sum;
+            return b;
+        }
+
+        /** Schedules an answer after the simulated latency; the frame is built when it is sent. */
+        private void answer(FrameSource source, int extraDelayMs) {
+            if (random.nextDouble() < dropRate) {
+                framesDropped.incrementAndGet();
+                return;
+            }
+            int jitter = jitterMs;
+            long delayNanos = TimeUnit.MILLISECONDS.toNanos(latencyMs + extraDelayMs
+                    + (jitter > 0 ? random.nextInt(jitter + 1) : 0));
+            long due = Math.max(System.nanoTime() + delayNanos, lastDueNanos);
+            lastDueNanos = due;
+            boolean split = random.nextDouble() < splitRate;
+            int cut = 1 + random.nextInt(7);
+            try {
+                writer.schedule(() -> send(source.frame(), split, cut),
+                        due - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (RuntimeException closed) {
+                // connection already shut down
+            }
+        }
+
+        private void send(byte[] frame, boolean split, int cut) {
+            try {
+                OutputStream out = socket.getOutputStream();
+                if (split && cut < frame.length) {
+                    out.write(frame, 0, cut);
+                    out.flush();
+                    Thread.sleep(1);
+                    out.write(frame, cut, frame.length - cut);
+                } else {
+                    out.write(frame);
+                }
+                out.flush();
+                framesAnswered.incrementAndGet();
+            } catch (IOException | InterruptedException e) {
+                close();
+            }
+        }
+    }
+
+    private interface FrameSource {
+        byte[] frame();
+    }
+}
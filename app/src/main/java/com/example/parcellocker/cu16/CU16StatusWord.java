@@ -0,0 +1,67 @@
+package com.example.parcellocker.cu16;
+
+/**
+ * Allocation-free representation of one status frame, packed into a {@code long}:
+ *
+ * <pre>
+ *   bits  0..15  locked mask   (bit n = door n locked)
+ *   bits 16..31  occupied mask (bit n = door n occupied)
+ *   bits 32..39  CMD
+ *   bits 40..47  ADDR
+ * </pre>
+ *
+ * Pollers keep one word per CU in a {@code long[]} and compare words with
+ * {@link #changedDoors(long, long)} instead of walking per-door arrays.
+ * {@link #INVALID} (0) is never a real status because CMD is never 0.
+ */
+public final class CU16StatusWord {
+
+    public static final long INVALID = 0L;
+    public static final int ALL_DOORS = 0xFFFF;
+
+    private CU16StatusWord() {}
+
+    public static long of(byte addr, byte cmd, int lockedMask, int occupiedMask) {
+        return ((long) (addr & 0xFF) << 40)
+                | ((long) (cmd & 0xFF) << 32)
+                | ((long) (occupiedMask & ALL_DOORS) << 16)
+                | (lockedMask & ALL_DOORS);
+    }
+
+    public static byte addr(long word) { return (byte) (word >>> 40); }
+
+    public static byte cmd(long word) { return (byte) (word >>> 32); }
+
+    /** Control unit the frame came from (high nibble of ADDR). */
+    public static int cuId(long word) { return (int) (word >>> 44) & 0x0F; }
+
+    public static int lockedMask(long word) { return (int) word & ALL_DOORS; }
+
+    public static int occupiedMask(long word) { return (int) (word >>> 16) & ALL_DOORS; }
+
+    public static boolean isLocked(long word, int door) {
+        return (lockedMask(word) & (1 << door)) != 0;
+    }
+
+    public static boolean isOccupied(long word, int door) {
+        return (occupiedMask(word) & (1 << door)) != 0;
+    }
+
+    public static int lockedCount(long word) { return Integer.bitCount(lockedMask(word)); }
+
+    public static int occupiedCount(long word) { return Integer.bitCount(occupiedMask(word)); }
+
+    /** Doors whose locked or occupied bit differs between two words. */
+    public static int changedDoors(long a, long b) {
+        int diff = (int) (a ^ b);
+        return (diff | (diff >>> 16)) & ALL_DOORS;
+    }
+
+    public static String toString(long word) {
+        if (word == INVALID) return "Status{invalid}";
+        return String.format("Status{addr=0x%02X, cmd=0x%02X, locked=%s, occupied=%s}",
+                addr(word) & 0xFF, cmd(word) & 0xFF,
+                Integer.toBinaryString(lockedMask(word) | 0x10000).substring(1),
+                Integer.toBinaryString(occupiedMask(word) | 0x10000).substring(1));
+    }
+}
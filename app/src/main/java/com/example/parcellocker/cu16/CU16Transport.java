@@ -0,0 +1,33 @@
+package com.example.parcellocker.cu16;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Byte stream to the CU16 boards: a TCP connection to a BU ({@link CU16Client})
+ * or an RS-485 adapter on a serial device ({@link CU16SerialTransport}).
+ *
+ * {@link CU16BusScheduler} does the framing, pipelining and response matching on
+ * top of it, so both links behave the same. One thread writes and one thread
+ * reads; a transport that lost its link reopens it on the next write.
+ */
+public interface CU16Transport extends Closeable {
+
+    /** Writes the bytes, opening the link first if needed. */
+    void write(byte[] buf, int off, int len) throws IOException;
+
+    /**
+     * Reads whatever bytes are available. Returns 0 when nothing arrived within
+     * {@code waitMs}, -1 when the link was closed by the other end (it is then
+     * dropped). Only one thread may read.
+     */
+    int read(byte[] buf, int off, int len, int waitMs) throws IOException;
+
+    boolean isConnected();
+
+    /** Where open times are recorded; set by the bus that owns this transport. */
+    default void setMetrics(CU16Metrics metrics) {}
+
+    @Override
+    void close();
+}
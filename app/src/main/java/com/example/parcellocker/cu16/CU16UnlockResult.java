@@ -0,0 +1,37 @@
+package com.example.parcellocker.cu16;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-door outcome of {@link CU16Service#unlockDoorsAsync}: the board's status
+ * response for every door that was unlocked, the error for every door that was not.
+ * Both maps keep the order the doors were requested in.
+ */
+public final class CU16UnlockResult {
+
+    private final Map<Integer, CU16Parser.Status> unlocked;
+    private final Map<Integer, Throwable> failed;
+
+    CU16UnlockResult(Map<Integer, CU16Parser.Status> unlocked, Map<Integer, Throwable> failed) {
+        this.unlocked = Collections.unmodifiableMap(new LinkedHashMap<>(unlocked));
+        this.failed = Collections.unmodifiableMap(new LinkedHashMap<>(failed));
+    }
+
+    public Map<Integer, CU16Parser.Status> getUnlocked() { return unlocked; }
+
+    public Map<Integer, Throwable> getFailed() { return failed; }
+
+    public boolean isAllUnlocked() { return failed.isEmpty(); }
+
+    public boolean isUnlocked(int doorIndex) { return unlocked.containsKey(doorIndex); }
+
+    /** Why {@code doorIndex} was not unlocked, or null if it was (or was not requested). */
+    public Throwable error(int doorIndex) { return failed.get(doorIndex); }
+
+    @Override
+    public String toString() {
+        return "CU16UnlockResult{unlocked=" + unlocked.keySet() + ", failed=" + failed.keySet() + "}";
+    }
+}
@@ -1,38 +1,142 @@
 package com.example.parcellocker.cu16;
 
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
 
+/**
+ * In-memory CU16 boards: lock and occupancy state per door plus the per-board
+ * settings the protocol can change. Backs {@link CU16Simulator}.
+ *
+ * Lock-free: each board is one AtomicLongArray slot holding its locked mask
+ * (bits 0-15), occupied mask (bits 16-31) and a present flag, updated by CAS.
+ * A status read is a single volatile load, so it is always a consistent
+ * snapshot and concurrent simulator clients never wait on each other.
+ */
 public class HardwareMock {
-    private final Map<Integer, boolean[]> cuBoards = new HashMap<>();
+    public static final int DOORS = 16;
+
+    private static final long PRESENT = 1L << 32;
+    private static final int OCCUPIED_SHIFT = 16;
+
+    private final AtomicLongArray boards = new AtomicLongArray(CU16BusSnapshot.MAX_BOARDS);
+    private final AtomicIntegerArray unlockTimes = new AtomicIntegerArray(CU16BusSnapshot.MAX_BOARDS);
+    private final AtomicIntegerArray delays = new AtomicIntegerArray(CU16BusSnapshot.MAX_BOARDS);
 
     public HardwareMock() {
         // Create 1 CU board with 16 doors, all locked initially
-        boolean[] doors = new boolean[16];
-        for (int i = 0; i < 16; i++) {
-            doors[i] = true; // true = locked
-        }
-        cuBoards.put(0, doors); // CU ID 0
+        this(1);
     }
 
-    public synchronized void unlockDoor(int cuId, int doorIndex) {
-        boolean[] doors = cuBoards.get(cuId);
-        if (doors != null && doorIndex >= 0 && doorIndex < doors.length) {
-            doors[doorIndex] = false;
+    /** {@code boards} CU boards with ids 0..boards-1, every door locked and empty. */
+    public HardwareMock(int boards) {
+        if (boards < 1 || boards > CU16BusSnapshot.MAX_BOARDS) throw new IllegalArgumentException("1..16 boards");
+        for (int cu = 0; cu < boards; cu++) {
+            this.boards.set(cu, PRESENT | CU16StatusWord.ALL_DOORS);
         }
     }
 
-    public synchronized void unlockAll(int cuId) {
-        boolean[] doors = cuBoards.get(cuId);
-        if (doors != null) {
-            for (int i = 0; i < doors.length; i++) {
-                doors[i] = false;
-            }
-        }
+    public boolean hasBoard(int cuId) {
+        return isValidBoard(cuId) && (boards.get(cuId) & PRESENT) != 0;
+    }
+
+    public void unlockDoor(int cuId, int doorIndex) {
+        if (isValidDoor(doorIndex)) update(cuId, 1L << doorIndex, 0);
+    }
+
+    public void unlockAll(int cuId) {
+        update(cuId, CU16StatusWord.ALL_DOORS, 0);
+    }
+
+    /** Someone shut the door and the latch caught. */
+    public void lockDoor(int cuId, int doorIndex) {
+        if (isValidDoor(doorIndex)) update(cuId, 0, 1L << doorIndex);
+    }
+
+    public void setOccupied(int cuId, int doorIndex, boolean isOccupied) {
+        if (!isValidDoor(doorIndex)) return;
+        long bit = 1L << (doorIndex + OCCUPIED_SHIFT);
+        update(cuId, isOccupied ? 0 : bit, isOccupied ? bit : 0);
+    }
+
+    /** A courier put a parcel in and shut the door: occupied and locked in one step. */
+    public void depositParcel(int cuId, int doorIndex) {
+        if (!isValidDoor(doorIndex)) return;
+        update(cuId, 0, (1L << doorIndex) | (1L << (doorIndex + OCCUPIED_SHIFT)));
+    }
+
+    /** A customer took the parcel and shut the door: empty and locked in one step. */
+    public void collectParcel(int cuId, int doorIndex) {
+        if (!isValidDoor(doorIndex)) return;
+        update(cuId, 1L << (doorIndex + OCCUPIED_SHIFT), 1L << doorIndex);
+    }
+
+    /** Copy of the lock state, true = locked; empty for a board that does not exist. */
+    public boolean[] getDoorStates(int cuId) {
+        if (!hasBoard(cuId)) return new boolean[0];
+        int locked = getLockedMask(cuId);
+        boolean[] doors = new boolean[DOORS];
+        for (int i = 0; i < DOORS; i++) doors[i] = (locked & (1 << i)) != 0;
+        return doors;
+    }
+
+    /** Bit n set = door n locked, as reported in a status frame. */
+    public int getLockedMask(int cuId) {
+        return CU16StatusWord.lockedMask(statusWord(cuId, (byte) 0));
+    }
+
+    /** Bit n set = door n occupied, as reported in a status frame. */
+    public int getOccupiedMask(int cuId) {
+        return CU16StatusWord.occupiedMask(statusWord(cuId, (byte) 0));
+    }
+
+    /**
+     * Locked and occupied masks of one board, read atomically, as a
+     * {@link CU16StatusWord} carrying {@code cmd}; {@link CU16StatusWord#INVALID}
+     * for a board that does not exist.
+     */
+    public long statusWord(int cuId, byte cmd) {
+        if (!isValidBoard(cuId)) return CU16StatusWord.INVALID;
+        long state = boards.get(cuId);
+        if ((state & PRESENT) == 0) return CU16StatusWord.INVALID;
+        return CU16StatusWord.of((byte) (cuId << 4), cmd,
+                (int) state & CU16StatusWord.ALL_DOORS,
+                (int) (state >>> OCCUPIED_SHIFT) & CU16StatusWord.ALL_DOORS);
+    }
+
+    public void setUnlockTime(int cuId, int value) {
+        if (hasBoard(cuId)) unlockTimes.set(cuId, value);
+    }
+
+    public int getUnlockTime(int cuId) {
+        return isValidBoard(cuId) ? unlockTimes.get(cuId) : 0;
+    }
+
+    public void setDelayOrBaud(int cuId, int value) {
+        if (hasBoard(cuId)) delays.set(cuId, value);
+    }
+
+    public int getDelayOrBaud(int cuId) {
+        return isValidBoard(cuId) ? delays.get(cuId) : 0;
+    }
+
+    // Clears then sets bits on a present board with a CAS loop.
+    private void update(int cuId, long clear, long set) {
+        if (!isValidBoard(cuId)) return;
+        long current;
+        long next;
+        do {
+            current = boards.get(cuId);
+            if ((current & PRESENT) == 0) return;
+            next = (current & ~clear) | set;
+        } while (current != next && !boards.compareAndSet(cuId, current, next));
+    }
+
+    private static boolean isValidBoard(int cuId) {
+        return cuId >= 0 && cuId < CU16BusSnapshot.MAX_BOARDS;
     }
 
-    public synchronized boolean[] getDoorStates(int cuId) {
-        return cuBoards.getOrDefault(cuId, new boolean[0]);
+    private static boolean isValidDoor(int doorIndex) {
+        return doorIndex >= 0 && doorIndex < DOORS;
     }
-}
\ No newline at end of file
+}
@@ -6,16 +6,23 @@ import androidx.room.RoomDatabase;
 import androidx.room.TypeConverters;
 import android.content.Context;
 
+import com.example.parcellocker.AppExecutors;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
 import com.example.parcellocker.db.dao.*;
 import com.example.parcellocker.db.entities.*;
 import com.example.parcellocker.db.converters.*;
+import com.example.parcellocker.db.migrations.BackgroundMigrator;
+import com.example.parcellocker.db.migrations.MachineMigrations;
 
 /**
  * Main Room database class for the Parcel Locker System.
  *
  * This database uses UUID primary keys for all entities to support offline-first
  * architecture and seamless sync with cloud services. Type converters handle
- * UUID and JSON field conversions for SQLite compatibility.
+ * UUID (stored as 16-byte BLOBs) and JSON field conversions for SQLite compatibility.
  *
  * Entities:
  * - User: Minimal user info (id, name) for package tracking
@@ -25,6 +32,12 @@ import com.example.parcellocker.db.converters.*;
  * - Payment: Payment transactions (online and cash) for packages
  * - AuditLog: System audit trail with flexible JSON details
  * - MachineEvent: Real-time hardware events with JSON metadata
+ *
+ * Schema changes go through the migrations in db.migrations; the schema of every
+ * version is exported to app/schemas/ and checked in. Open the database with
+ * {@link #openAsync} at startup so migrations never run on the main thread.
+ * Main-thread queries are not allowed; all access goes through the read pool
+ * and writer of {@link AppExecutors}.
  */
 @Database(
     entities = {
@@ -36,8 +49,8 @@ import com.example.parcellocker.db.converters.*;
         AuditLog.class,
         MachineEvent.class
     },
-    version = 1,
-    exportSchema = false
+    version = 3,
+    exportSchema = true
 )
 @TypeConverters({UuidConverter.class, JsonConverter.class})
 public abstract class MachineDatabase extends RoomDatabase {
@@ -59,7 +72,9 @@ public abstract class MachineDatabase extends RoomDatabase {
                 if (INSTANCE == null) {
                     INSTANCE = Room.databaseBuilder(ctx.getApplicationContext(),
                                     MachineDatabase.class, "parcel-locker-db")
-                            .allowMainThreadQueries() // Remove in production
+                            .addMigrations(MachineMigrations.ALL)
+                            .setQueryExecutor(AppExecutors.get().diskRead())
+                            .setTransactionExecutor(AppExecutors.get().diskWrite())
                             .build();
                 }
             }
@@ -67,6 +82,27 @@ public abstract class MachineDatabase extends RoomDatabase {
         return INSTANCE;
     }
 
+    /**
+     * Opens the database on the database writer, running any pending migration
+     * there ahead of every queued write, and completes once it is usable. Rows a
+     * migration left to be moved online are then moved by a
+     * {@link BackgroundMigrator}, one chunk at a time between the app's own writes.
+     */
+    public static CompletableFuture<MachineDatabase> openAsync(Context ctx) {
+        ExecutorService writer = AppExecutors.get().diskWrite();
+        return CompletableFuture.supplyAsync(() -> {
+            MachineDatabase db = getInstance(ctx);
+            db.getOpenHelper().getWritableDatabase();
+            BackgroundMigrator migrator = new BackgroundMigrator(db);
+            if (migrator.isPending()) {
+                migrator.start(writer).whenComplete((ignored, e) -> {
+                    if (e != null) System.err.println("Background migration stopped: " + e.getMessage());
+                });
+            }
+            return db;
+        }, writer);
+    }
+
     /**
      * Closes the database instance.
      * Call this when the application is shutting down.
@@ -7,6 +7,7 @@ import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
 
 import com.example.parcellocker.db.entities.DoorEntity;
@@ -64,4 +65,16 @@ public interface DoorDao {
 
     @Query("UPDATE doors SET sync_status = :syncStatus WHERE id = :id")
     void updateSyncStatus(UUID id, String syncStatus);
+
+    // Hardware state sync (only the columns the CU16 board reports)
+    @Query("UPDATE doors SET is_locked = :isLocked, is_occupied = :isOccupied, updated_at = :updatedAt WHERE id = :id")
+    void updateHardwareState(UUID id, Boolean isLocked, Boolean isOccupied, Long updatedAt);
+
+    /** Applies several hardware state changes in one transaction (one LiveData invalidation). */
+    @Transaction
+    default void updateHardwareStates(List<DoorEntity> doors) {
+        for (DoorEntity door : doors) {
+            updateHardwareState(door.id, door.isLocked, door.isOccupied, door.updatedAt);
+        }
+    }
 }
@@ -1,9 +1,11 @@
 package com.example.parcellocker.db.entities;
 
+import androidx.annotation.NonNull;
 import androidx.room.Entity;
 import androidx.room.PrimaryKey;
 import androidx.room.ForeignKey;
 import androidx.room.ColumnInfo;
+import androidx.room.Index;
 import java.util.UUID;
 import java.util.Map;
 
@@ -15,12 +17,19 @@ import java.util.Map;
         foreignKeys = {
             @ForeignKey(entity = User.class,
                        parentColumns = "id",
-                       childColumns = "userId",
+                       childColumns = "user_id",
                        onDelete = ForeignKey.SET_NULL)
+        },
+        indices = {
+            @Index("user_id"),
+            @Index({"entity_type", "entity_id"}),
+            @Index("timestamp"),
+            @Index("sync_status")
         })
 public class AuditLog {
 
     @PrimaryKey
+    @NonNull
     public UUID id;
 
     @ColumnInfo(name = "entity_type")
@@ -1,6 +1,8 @@
 package com.example.parcellocker.db.entities;
 
 import androidx.room.ColumnInfo;
+import androidx.room.Index;
+import androidx.annotation.NonNull;
 import androidx.room.Entity;
 import androidx.room.PrimaryKey;
 import androidx.room.ForeignKey;
@@ -14,12 +16,17 @@ import java.util.UUID;
         foreignKeys = {
             @ForeignKey(entity = LockerMachine.class,
                        parentColumns = "id",
-                       childColumns = "lockerMachineId",
+                       childColumns = "locker_machine_id",
                        onDelete = ForeignKey.CASCADE)
+        },
+        indices = {
+            @Index({"locker_machine_id", "door_index"}),
+            @Index("sync_status")
         })
 public class DoorEntity {
 
     @PrimaryKey
+    @NonNull
     public UUID id;
 
     @ColumnInfo(name = "locker_machine_id")
@@ -1,18 +1,25 @@
 package com.example.parcellocker.db.entities;
 
+import androidx.annotation.NonNull;
 import androidx.room.Entity;
 import androidx.room.PrimaryKey;
 import androidx.room.ColumnInfo;
+import androidx.room.Index;
 import java.util.UUID;
 
 /**
  * LockerMachine entity representing physical locker machines.
  * Each machine contains multiple doors and has location/status information.
  */
-@Entity(tableName = "locker_machines")
+@Entity(tableName = "locker_machines",
+        indices = {
+            @Index("machine_serial"),
+            @Index("sync_status")
+        })
 public class LockerMachine {
 
     @PrimaryKey
+    @NonNull
     public UUID id;
 
     @ColumnInfo(name = "machine_serial")
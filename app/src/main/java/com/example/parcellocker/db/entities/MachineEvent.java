@@ -1,9 +1,11 @@
 package com.example.parcellocker.db.entities;
 
+import androidx.annotation.NonNull;
 import androidx.room.Entity;
 import androidx.room.PrimaryKey;
 import androidx.room.ForeignKey;
 import androidx.room.ColumnInfo;
+import androidx.room.Index;
 import java.util.UUID;
 import java.util.Map;
 
@@ -15,16 +17,23 @@ import java.util.Map;
         foreignKeys = {
             @ForeignKey(entity = LockerMachine.class,
                        parentColumns = "id",
-                       childColumns = "lockerMachineId",
+                       childColumns = "locker_machine_id",
                        onDelete = ForeignKey.CASCADE),
             @ForeignKey(entity = DoorEntity.class,
                        parentColumns = "id",
-                       childColumns = "doorId",
+                       childColumns = "door_id",
                        onDelete = ForeignKey.SET_NULL)
+        },
+        indices = {
+            @Index({"locker_machine_id", "timestamp"}),
+            @Index("door_id"),
+            @Index("timestamp"),
+            @Index("sync_status")
         })
 public class MachineEvent {
 
     @PrimaryKey
+    @NonNull
     public UUID id;
 
     @ColumnInfo(name = "locker_machine_id")
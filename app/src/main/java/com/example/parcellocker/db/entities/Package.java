@@ -1,9 +1,11 @@
 package com.example.parcellocker.db.entities;
 
+import androidx.annotation.NonNull;
 import androidx.room.Entity;
 import androidx.room.PrimaryKey;
 import androidx.room.ForeignKey;
 import androidx.room.ColumnInfo;
+import androidx.room.Index;
 import java.util.UUID;
 
 /**
@@ -15,20 +17,32 @@ import java.util.UUID;
         foreignKeys = {
             @ForeignKey(entity = User.class,
                        parentColumns = "id",
-                       childColumns = "deliveredBy",
+                       childColumns = "delivered_by",
                        onDelete = ForeignKey.SET_NULL),
             @ForeignKey(entity = User.class,
                        parentColumns = "id",
-                       childColumns = "returnedBy",
+                       childColumns = "returned_by",
                        onDelete = ForeignKey.SET_NULL),
             @ForeignKey(entity = DoorEntity.class,
                        parentColumns = "id",
-                       childColumns = "doorId",
+                       childColumns = "door_id",
                        onDelete = ForeignKey.SET_NULL)
+        },
+        indices = {
+            @Index(value = "tracking_number", unique = true),
+            @Index({"delivery_pin", "status"}),
+            @Index({"client_pin", "status"}),
+            @Index({"return_pin", "status"}),
+            @Index({"status", "expiry_timestamp"}),
+            @Index("sync_status"),
+            @Index("delivered_by"),
+            @Index("returned_by"),
+            @Index("door_id")
         })
 public class Package {
 
     @PrimaryKey
+    @NonNull
     public UUID id;
 
     @ColumnInfo(name = "tracking_number")
@@ -1,9 +1,11 @@
 package com.example.parcellocker.db.entities;
 
+import androidx.annotation.NonNull;
 import androidx.room.Entity;
 import androidx.room.PrimaryKey;
 import androidx.room.ForeignKey;
 import androidx.room.ColumnInfo;
+import androidx.room.Index;
 import java.util.UUID;
 
 /**
@@ -14,12 +16,19 @@ import java.util.UUID;
         foreignKeys = {
             @ForeignKey(entity = Package.class,
                        parentColumns = "id",
-                       childColumns = "packageId",
+                       childColumns = "package_id",
                        onDelete = ForeignKey.CASCADE)
+        },
+        indices = {
+            @Index({"package_id", "payment_status"}),
+            @Index({"payment_status", "payment_method"}),
+            @Index("transaction_id"),
+            @Index("sync_status")
         })
 public class Payment {
 
     @PrimaryKey
+    @NonNull
     public UUID id;
 
     @ColumnInfo(name = "package_id")
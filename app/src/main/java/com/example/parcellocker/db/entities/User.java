@@ -1,8 +1,10 @@
 package com.example.parcellocker.db.entities;
 
+import androidx.annotation.NonNull;
 import androidx.room.Entity;
 import androidx.room.PrimaryKey;
 import androidx.room.ColumnInfo;
+import androidx.room.Index;
 import java.util.UUID;
 
 /**
@@ -10,10 +12,14 @@ import java.util.UUID;
  * Just tracks who delivered packages - no authentication or detailed management.
  * Full user details managed in cloud/backoffice system.
  */
-@Entity(tableName = "users")
+@Entity(tableName = "users",
+        indices = {
+            @Index("sync_status")
+        })
 public class User {
 
     @PrimaryKey
+    @NonNull
     public UUID id; // Cloud user ID for sync and package tracking
 
     public String name; // Display name for machine UI (e.g., "John Doe")
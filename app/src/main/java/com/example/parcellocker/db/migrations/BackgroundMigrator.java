@@ -0,0 +1,177 @@
+package com.example.parcellocker.db.migrations;
+
+import android.database.Cursor;
+
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.example.parcellocker.cu16.CU16Futures;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * The online half of a migration: moves the rows a migration set aside in
+ * {@code <table>_legacy} tables into their converted tables while the app runs.
+ *
+ * Each chunk is converted, inserted and deleted from the legacy table in one
+ * short transaction. Started with {@link #start}, every chunk is its own task on
+ * the database writer, queued again after a pause, so kiosk writes submitted
+ * meanwhile run between chunks and the writer's statistics include the
+ * migration. An interrupted run (app killed, thread interrupted) loses nothing
+ * and simply continues from the remaining rows next time; the legacy table is
+ * dropped once it is empty. Until then the moved tables show only part of
+ * their history.
+ */
+public final class BackgroundMigrator implements Runnable {
+
+    /** Called after every chunk, on the thread that moved it. */
+    public interface Listener {
+        void onProgress(String table, long moved, long remaining);
+
+        default void onFinished(String table) { }
+    }
+
+    private final RoomDatabase database;
+    private volatile int chunkRows = UuidTableCopier.DEFAULT_CHUNK_ROWS;
+    private volatile long pauseMs = 50;
+    private volatile Listener listener;
+
+    private Table current; // only touched by the chunk being moved
+
+    public BackgroundMigrator(RoomDatabase database) {
+        this.database = database;
+    }
+
+    /** Rows per transaction (default 500) and the pause between transactions (default 50 ms). */
+    public BackgroundMigrator setChunk(int rows, long pauseMs) {
+        if (rows < 1 || pauseMs < 0) throw new IllegalArgumentException("bad chunk");
+        this.chunkRows = rows;
+        this.pauseMs = pauseMs;
+        return this;
+    }
+
+    public BackgroundMigrator setListener(Listener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /** True while any set-aside rows are left. */
+    public boolean isPending() {
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        for (String[] t : Migration2To3.UUID_COLUMNS) {
+            if (exists(db, Migration2To3.legacyName(t[0]))) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Moves everything that is left, one chunk per task on {@code writer}; completes
+     * once no legacy table is left, or with the error that stopped a chunk.
+     */
+    public CompletableFuture<Void> start(Executor writer) {
+        CompletableFuture<Void> finished = new CompletableFuture<>();
+        writer.execute(() -> step(writer, finished));
+        return finished;
+    }
+
+    /** Moves everything that is left on the calling thread; blocks, so call it off the main thread. */
+    @Override
+    public void run() {
+        while (moveChunk()) {
+            try {
+                Thread.sleep(pauseMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void step(Executor writer, CompletableFuture<Void> finished) {
+        try {
+            if (!moveChunk()) {
+                finished.complete(null);
+                return;
+            }
+            Runnable next = () -> {
+                try {
+                    writer.execute(() -> step(writer, finished));
+                } catch (RuntimeException e) {
+                    finished.completeExceptionally(e); // writer shut down
+                }
+            };
+            long pause = pauseMs;
+            if (pause == 0) {
+                next.run();
+            } else {
+                CU16Futures.delay(pause).thenRun(next);
+            }
+        } catch (RuntimeException e) {
+            finished.completeExceptionally(e);
+        }
+    }
+
+    /** Moves one chunk, or drops a legacy table found empty; false once nothing is left. */
+    private boolean moveChunk() {
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        if (current == null) {
+            current = nextTable(db);
+            if (current == null) return false;
+        }
+        Table t = current;
+        int rows = chunkRows;
+        int done = database.runInTransaction(() -> {
+            // Rows the new table refuses, e.g. an event for a door deleted since, are dropped.
+            long last = t.copier.copyChunk(db, 0, rows, true);
+            return last == 0 ? 0 : db.delete(t.legacy, "rowid <= ?", new Object[]{last});
+        });
+        Listener l = listener;
+        if (done > 0) {
+            t.moved += done;
+            t.remaining = Math.max(0, t.remaining - done);
+            if (l != null) l.onProgress(t.name, t.moved, t.remaining);
+        } else {
+            db.execSQL("DROP TABLE IF EXISTS `" + t.legacy + "`");
+            current = null;
+            if (l != null) l.onFinished(t.name);
+        }
+        return true;
+    }
+
+    private static Table nextTable(SupportSQLiteDatabase db) {
+        for (String[] t : Migration2To3.UUID_COLUMNS) {
+            String legacy = Migration2To3.legacyName(t[0]);
+            if (exists(db, legacy)) return new Table(legacy, t, count(db, legacy));
+        }
+        return null;
+    }
+
+    private static boolean exists(SupportSQLiteDatabase db, String table) {
+        try (Cursor c = db.query("SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?", new Object[]{table})) {
+            return c.moveToFirst();
+        }
+    }
+
+    private static long count(SupportSQLiteDatabase db, String table) {
+        try (Cursor c = db.query("SELECT COUNT(*) FROM `" + table + "`")) {
+            return c.moveToFirst() ? c.getLong(0) : 0;
+        }
+    }
+
+    /** The legacy table being drained and how far it got. */
+    private static final class Table {
+        final String name;
+        final String legacy;
+        final UuidTableCopier copier;
+        long moved;
+        long remaining;
+
+        Table(String legacy, String[] table, long remaining) {
+            this.name = table[0];
+            this.legacy = legacy;
+            this.copier = new UuidTableCopier(legacy, table);
+            this.remaining = remaining;
+        }
+    }
+}
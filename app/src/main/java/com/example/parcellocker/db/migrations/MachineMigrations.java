@@ -0,0 +1,18 @@
+package com.example.parcellocker.db.migrations;
+
+import androidx.room.migration.Migration;
+
+/**
+ * Every schema migration of MachineDatabase, oldest first. Add one class per
+ * version step here and bump the database version; the exported schema JSON in
+ * app/schemas/ is what MigrationTest checks each step against.
+ */
+public final class MachineMigrations {
+
+    public static final Migration[] ALL = {
+        new Migration1To2(),
+        new Migration2To3()
+    };
+
+    private MachineMigrations() { }
+}
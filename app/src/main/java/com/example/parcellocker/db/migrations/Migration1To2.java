@@ -0,0 +1,88 @@
+package com.example.parcellocker.db.migrations;
+
+import android.database.Cursor;
+
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.example.parcellocker.db.converters.JsonConverter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Version 2 adds the indexes declared on the entities: lookups by tracking
+ * number, PIN, package, machine door and sync_status, and every foreign key.
+ * Duplicate tracking numbers, which the unique index would reject, get the
+ * row id appended so the upgrade cannot fail on old data. Every renamed
+ * package is marked pending_sync and gets a "tracking_number_renamed" audit
+ * log, so the backend learns its new number.
+ */
+public class Migration1To2 extends Migration {
+
+    public Migration1To2() {
+        super(1, 2);
+    }
+
+    @Override
+    public void migrate(SupportSQLiteDatabase db) {
+        renameDuplicateTrackingNumbers(db);
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_users_sync_status` ON `users` (`sync_status`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_locker_machines_machine_serial` ON `locker_machines` (`machine_serial`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_locker_machines_sync_status` ON `locker_machines` (`sync_status`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_doors_locker_machine_id_door_index` ON `doors` (`locker_machine_id`, `door_index`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_doors_sync_status` ON `doors` (`sync_status`)");
+        db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_packages_tracking_number` ON `packages` (`tracking_number`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_packages_delivery_pin_status` ON `packages` (`delivery_pin`, `status`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_packages_client_pin_status` ON `packages` (`client_pin`, `status`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_packages_return_pin_status` ON `packages` (`return_pin`, `status`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_packages_status_expiry_timestamp` ON `packages` (`status`, `expiry_timestamp`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_packages_sync_status` ON `packages` (`sync_status`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_packages_delivered_by` ON `packages` (`delivered_by`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_packages_returned_by` ON `packages` (`returned_by`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_packages_door_id` ON `packages` (`door_id`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_payments_package_id_payment_status` ON `payments` (`package_id`, `payment_status`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_payments_payment_status_payment_method` ON `payments` (`payment_status`, `payment_method`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_payments_transaction_id` ON `payments` (`transaction_id`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_payments_sync_status` ON `payments` (`sync_status`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_audit_logs_user_id` ON `audit_logs` (`user_id`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_audit_logs_entity_type_entity_id` ON `audit_logs` (`entity_type`, `entity_id`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_audit_logs_timestamp` ON `audit_logs` (`timestamp`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_audit_logs_sync_status` ON `audit_logs` (`sync_status`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_machine_events_locker_machine_id_timestamp` ON `machine_events` (`locker_machine_id`, `timestamp`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_machine_events_door_id` ON `machine_events` (`door_id`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_machine_events_timestamp` ON `machine_events` (`timestamp`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_machine_events_sync_status` ON `machine_events` (`sync_status`)");
+    }
+
+    /** Keeps the newest package of each tracking number as is and renames the others. */
+    private static void renameDuplicateTrackingNumbers(SupportSQLiteDatabase db) {
+        List<Object[]> duplicates = new ArrayList<>();
+        try (Cursor c = db.query("SELECT rowid, id, tracking_number FROM packages "
+                + "WHERE tracking_number IS NOT NULL AND rowid NOT IN "
+                + "(SELECT MAX(rowid) FROM packages WHERE tracking_number IS NOT NULL GROUP BY tracking_number)")) {
+            while (c.moveToNext()) duplicates.add(new Object[]{c.getLong(0), c.getString(1), c.getString(2)});
+        }
+        if (duplicates.isEmpty()) return;
+
+        JsonConverter json = new JsonConverter();
+        long now = System.currentTimeMillis();
+        for (Object[] row : duplicates) {
+            String renamed = row[2] + "-dup-" + row[0];
+            db.execSQL("UPDATE packages SET tracking_number = ?, sync_status = 'pending_sync', updated_at = ? "
+                    + "WHERE rowid = ?", new Object[]{renamed, now, row[0]});
+
+            Map<String, Object> details = new HashMap<>();
+            details.put("old_tracking_number", row[2]);
+            details.put("new_tracking_number", renamed);
+            details.put("reason", "duplicate tracking number");
+            db.execSQL("INSERT INTO audit_logs (id, entity_type, entity_id, action, timestamp, details, source, sync_status) "
+                    + "VALUES (?, 'Package', ?, 'tracking_number_renamed', ?, ?, 'migration', 'pending_sync')",
+                    new Object[]{UUID.randomUUID().toString(), row[1], now, json.fromJson(details)});
+        }
+        System.err.println("Migration 1->2 renamed " + duplicates.size() + " duplicate tracking numbers");
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.parcellocker.db.migrations;
+
+import android.database.Cursor;
+
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Version 3 stores UUIDs as 16-byte BLOBs instead of 36-character TEXT; see
+ * UuidConverter. SQLite cannot change a column type, so every table is
+ * rebuilt: the old tables are renamed, recreated from their own CREATE
+ * statement with the UUID columns declared BLOB, copied over with the keys
+ * converted in Java (Android's SQLite has no unhex()), then dropped, and the
+ * indexes are recreated. Foreign keys cannot be switched off inside the
+ * migration transaction, so their checks are deferred to the commit and the
+ * old tables are dropped children first, leaving no rows for ON DELETE actions.
+ *
+ * The history tables (audit_logs, machine_events) are the large ones and nothing
+ * at the counter needs them, so they are not converted here: their rows are set
+ * aside unchanged in a constraint-free {@code <table>_legacy} copy, a plain bulk
+ * copy inside SQLite, and {@link BackgroundMigrator} moves them over once the
+ * database is open.
+ */
+public class Migration2To3 extends Migration {
+
+    /** UUID columns per table, parents before children. */
+    static final String[][] UUID_COLUMNS = {
+        {"users", "id"},
+        {"locker_machines", "id"},
+        {"doors", "id", "locker_machine_id"},
+        {"packages", "id", "delivered_by", "returned_by", "door_id"},
+        {"payments", "id", "package_id"},
+        {"audit_logs", "id", "entity_id", "user_id"},
+        {"machine_events", "id", "locker_machine_id", "door_id"}
+    };
+
+    /** Tables whose rows are left to {@link BackgroundMigrator}. */
+    static final List<String> HISTORY_TABLES = Arrays.asList("audit_logs", "machine_events");
+
+    public Migration2To3() {
+        super(2, 3);
+    }
+
+    static String legacyName(String table) {
+        return table + "_legacy";
+    }
+
+    @Override
+    public void migrate(SupportSQLiteDatabase db) {
+        db.execSQL("PRAGMA defer_foreign_keys = ON");
+
+        // Read every statement before the renames rewrite them.
+        String[] tableSql = new String[UUID_COLUMNS.length];
+        StringBuilder tables = new StringBuilder();
+        for (int i = 0; i < UUID_COLUMNS.length; i++) {
+            String[] t = UUID_COLUMNS[i];
+            tableSql[i] = uuidsAsBlob(querySql(db, "SELECT sql FROM sqlite_master WHERE type = 'table' AND name = '"
+                    + t[0] + "'").get(0), t);
+            tables.append(i == 0 ? "'" : ", '").append(t[0]).append('\'');
+        }
+        List<String> indexSql = querySql(db, "SELECT sql FROM sqlite_master WHERE type = 'index' "
+                + "AND sql IS NOT NULL AND tbl_name IN (" + tables + ")");
+
+        // Without constraints, so dropping the old parent tables leaves these alone.
+        for (String table : HISTORY_TABLES) {
+            db.execSQL("CREATE TABLE `" + legacyName(table) + "` AS SELECT * FROM `" + table + "`");
+        }
+
+        for (String[] t : UUID_COLUMNS) db.execSQL("ALTER TABLE `" + t[0] + "` RENAME TO `" + t[0] + "_v2`");
+        for (int i = 0; i < UUID_COLUMNS.length; i++) {
+            db.execSQL(tableSql[i]);
+            if (!HISTORY_TABLES.contains(UUID_COLUMNS[i][0])) {
+                new UuidTableCopier(UUID_COLUMNS[i][0] + "_v2", UUID_COLUMNS[i]).copyAll(db);
+            }
+        }
+        for (int i = UUID_COLUMNS.length - 1; i >= 0; i--) db.execSQL("DROP TABLE `" + UUID_COLUMNS[i][0] + "_v2`");
+        for (String sql : indexSql) db.execSQL(sql);
+    }
+
+    static List<String> querySql(SupportSQLiteDatabase db, String query) {
+        List<String> result = new ArrayList<>();
+        try (Cursor c = db.query(query)) {
+            while (c.moveToNext()) result.add(c.getString(0));
+        }
+        return result;
+    }
+
+    /** {@code createSql} with the UUID columns of {@code table} declared BLOB; the key is NOT NULL. */
+    private static String uuidsAsBlob(String createSql, String[] table) {
+        for (int i = 1; i < table.length; i++) {
+            String column = "`" + table[i] + "`";
+            String blob = column + (table[i].equals("id") ? " BLOB NOT NULL" : " BLOB");
+            createSql = createSql.replaceFirst(Pattern.quote(column) + " TEXT( NOT NULL)?", Matcher.quoteReplacement(blob));
+        }
+        return createSql;
+    }
+}
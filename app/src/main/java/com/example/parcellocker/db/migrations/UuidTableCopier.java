@@ -0,0 +1,108 @@
+package com.example.parcellocker.db.migrations;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteConstraintException;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import com.example.parcellocker.db.converters.UuidConverter;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Copies rows from a table in the pre-version-3 layout into its version 3
+ * counterpart, turning the UUID columns from text into 16-byte blobs. Rows are
+ * read in rowid order a chunk at a time, so memory stays bounded however large
+ * the table is.
+ */
+final class UuidTableCopier {
+
+    static final int DEFAULT_CHUNK_ROWS = 500;
+
+    private final String source;
+    private final String target;
+    private final Set<String> uuidColumns;
+
+    /** {@code table} is the target name followed by its UUID columns. */
+    UuidTableCopier(String source, String[] table) {
+        this.source = source;
+        this.target = table[0];
+        this.uuidColumns = new HashSet<>(Arrays.asList(table).subList(1, table.length));
+    }
+
+    /** Copies every row. */
+    void copyAll(SupportSQLiteDatabase db) {
+        long last = 0;
+        while ((last = copyChunk(db, last, DEFAULT_CHUNK_ROWS, false)) > 0) {
+            // next chunk
+        }
+    }
+
+    /**
+     * Copies up to {@code limit} rows with a rowid above {@code afterRowid} and
+     * returns the rowid of the last one read, or 0 when none are left. With
+     * {@code skipRejected}, rows the target refuses (a parent deleted meanwhile,
+     * a key already copied) are dropped instead of failing the copy.
+     */
+    long copyChunk(SupportSQLiteDatabase db, long afterRowid, int limit, boolean skipRejected) {
+        long last = 0;
+        try (Cursor c = db.query("SELECT rowid, * FROM `" + source + "` WHERE rowid > ? ORDER BY rowid LIMIT ?",
+                new Object[]{afterRowid, limit})) {
+            String[] names = c.getColumnNames();
+            SupportSQLiteStatement insert = db.compileStatement(insertSql(names));
+            while (c.moveToNext()) {
+                last = c.getLong(0);
+                for (int i = 1; i < names.length; i++) bind(insert, i, c, i, uuidColumns.contains(names[i]));
+                try {
+                    insert.executeInsert();
+                } catch (SQLiteConstraintException e) {
+                    if (!skipRejected) throw e;
+                }
+                insert.clearBindings();
+            }
+        }
+        return last;
+    }
+
+    private String insertSql(String[] names) {
+        StringBuilder sql = new StringBuilder("INSERT INTO `").append(target).append("` (");
+        for (int i = 1; i < names.length; i++) sql.append(i == 1 ? "`" : ", `").append(names[i]).append('`');
+        sql.append(") VALUES (");
+        for (int i = 1; i < names.length; i++) sql.append(i == 1 ? "?" : ", ?");
+        return sql.append(')').toString();
+    }
+
+    private static void bind(SupportSQLiteStatement insert, int arg, Cursor c, int column, boolean uuid) {
+        switch (c.getType(column)) {
+            case Cursor.FIELD_TYPE_NULL:
+                insert.bindNull(arg);
+                break;
+            case Cursor.FIELD_TYPE_INTEGER:
+                insert.bindLong(arg, c.getLong(column));
+                break;
+            case Cursor.FIELD_TYPE_FLOAT:
+                insert.bindDouble(arg, c.getDouble(column));
+                break;
+            case Cursor.FIELD_TYPE_BLOB:
+                insert.bindBlob(arg, c.getBlob(column));
+                break;
+            default:
+                String value = c.getString(column);
+                byte[] bytes = uuid ? uuidBytes(value) : null;
+                if (bytes != null) insert.bindBlob(arg, bytes);
+                else insert.bindString(arg, value);
+        }
+    }
+
+    // A malformed key is kept as text, so one bad row fails when read instead of every app start.
+    private static byte[] uuidBytes(String text) {
+        try {
+            return UuidConverter.textToBytes(text);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
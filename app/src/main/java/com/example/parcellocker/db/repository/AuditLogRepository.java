@@ -3,14 +3,14 @@ package com.example.parcellocker.db.repository;
 import android.app.Application;
 import androidx.lifecycle.LiveData;
 
+import com.example.parcellocker.AppExecutors;
 import com.example.parcellocker.db.MachineDatabase;
 import com.example.parcellocker.db.dao.AuditLogDao;
 import com.example.parcellocker.db.entities.AuditLog;
 
 import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Repository for AuditLog operations.
@@ -19,46 +19,58 @@ import java.util.concurrent.Executors;
 public class AuditLogRepository {
 
     private AuditLogDao auditLogDao;
-    private ExecutorService executor;
+    private final AppExecutors executors;
 
     public AuditLogRepository(Application application) {
-        MachineDatabase database = MachineDatabase.getInstance(application);
+        this(MachineDatabase.getInstance(application), AppExecutors.get());
+    }
+
+    public AuditLogRepository(MachineDatabase database, AppExecutors executors) {
         auditLogDao = database.auditLogDao();
-        executor = Executors.newFixedThreadPool(4);
+        this.executors = executors;
     }
 
     // Insert operations
-    public void insert(AuditLog auditLog) {
-        executor.execute(() -> auditLogDao.insert(auditLog));
+    public CompletableFuture<Void> insert(AuditLog auditLog) {
+        return executors.write(() -> auditLogDao.insert(auditLog));
     }
 
-    public void insertAll(List<AuditLog> auditLogs) {
-        executor.execute(() -> auditLogDao.insertAll(auditLogs));
+    public CompletableFuture<Void> insertAll(List<AuditLog> auditLogs) {
+        return executors.write(() -> auditLogDao.insertAll(auditLogs));
     }
 
     // Update operations
-    public void update(AuditLog auditLog) {
-        executor.execute(() -> auditLogDao.update(auditLog));
+    public CompletableFuture<Void> update(AuditLog auditLog) {
+        return executors.write(() -> auditLogDao.update(auditLog));
     }
 
-    public void updateSyncStatus(UUID id, String syncStatus) {
-        executor.execute(() -> auditLogDao.updateSyncStatus(id, syncStatus));
+    public CompletableFuture<Void> updateSyncStatus(UUID id, String syncStatus) {
+        return executors.write(() -> auditLogDao.updateSyncStatus(id, syncStatus));
     }
 
     // Delete operations
-    public void delete(AuditLog auditLog) {
-        executor.execute(() -> auditLogDao.delete(auditLog));
+    public CompletableFuture<Void> delete(AuditLog auditLog) {
+        return executors.write(() -> auditLogDao.delete(auditLog));
+    }
+
+    public CompletableFuture<Void> deleteById(UUID id) {
+        return executors.write(() -> auditLogDao.deleteById(id));
     }
 
-    public void deleteById(UUID id) {
-        executor.execute(() -> auditLogDao.deleteById(id));
+    public CompletableFuture<Void> deleteOlderThan(Long cutoffTime) {
+        return executors.write(() -> auditLogDao.deleteOlderThan(cutoffTime));
     }
 
-    public void deleteOlderThan(Long cutoffTime) {
-        executor.execute(() -> auditLogDao.deleteOlderThan(cutoffTime));
+    // Query operations (asynchronous, on the read pool)
+    public CompletableFuture<AuditLog> getByIdAsync(UUID id) {
+        return executors.read(() -> auditLogDao.getById(id));
     }
 
-    // Query operations
+    public CompletableFuture<List<AuditLog>> getRecentAsync(int limit) {
+        return executors.read(() -> auditLogDao.getRecent(limit));
+    }
+
+    // Query operations (synchronous; never on the main thread)
     public AuditLog getById(UUID id) {
         return auditLogDao.getById(id);
     }
@@ -111,8 +123,4 @@ public class AuditLogRepository {
     public LiveData<List<AuditLog>> getByEntityLive(String entityType, UUID entityId) {
         return auditLogDao.getByEntityLive(entityType, entityId);
     }
-
-    public void shutdown() {
-        executor.shutdown();
-    }
 }
@@ -3,14 +3,14 @@ package com.example.parcellocker.db.repository;
 import android.app.Application;
 import androidx.lifecycle.LiveData;
 
+import com.example.parcellocker.AppExecutors;
 import com.example.parcellocker.db.MachineDatabase;
 import com.example.parcellocker.db.dao.PackageDao;
 import com.example.parcellocker.db.entities.Package;
 
 import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Repository for Package operations.
@@ -19,46 +19,58 @@ import java.util.concurrent.Executors;
 public class DeliveryRepository {
 
     private PackageDao packageDao;
-    private ExecutorService executor;
+    private final AppExecutors executors;
 
     public DeliveryRepository(Application application) {
-        MachineDatabase database = MachineDatabase.getInstance(application);
+        this(MachineDatabase.getInstance(application), AppExecutors.get());
+    }
+
+    public DeliveryRepository(MachineDatabase database, AppExecutors executors) {
         packageDao = database.packageDao();
-        executor = Executors.newFixedThreadPool(4);
+        this.executors = executors;
     }
 
     // Insert operations
-    public void insert(Package aPackage) {
-        executor.execute(() -> packageDao.insert(aPackage));
+    public CompletableFuture<Void> insert(Package aPackage) {
+        return executors.write(() -> packageDao.insert(aPackage));
     }
 
-    public void insertAll(List<Package> packages) {
-        executor.execute(() -> packageDao.insertAll(packages));
+    public CompletableFuture<Void> insertAll(List<Package> packages) {
+        return executors.write(() -> packageDao.insertAll(packages));
     }
 
     // Update operations
-    public void update(Package aPackage) {
-        executor.execute(() -> packageDao.update(aPackage));
+    public CompletableFuture<Void> update(Package aPackage) {
+        return executors.write(() -> packageDao.update(aPackage));
     }
 
-    public void updateSyncStatus(UUID id, String syncStatus) {
-        executor.execute(() -> packageDao.updateSyncStatus(id, syncStatus));
+    public CompletableFuture<Void> updateSyncStatus(UUID id, String syncStatus) {
+        return executors.write(() -> packageDao.updateSyncStatus(id, syncStatus));
     }
 
-    public void markAsCollected(UUID id) {
-        executor.execute(() -> packageDao.markAsCollected(id, true, System.currentTimeMillis(), "collected"));
+    public CompletableFuture<Void> markAsCollected(UUID id) {
+        return executors.write(() -> packageDao.markAsCollected(id, true, System.currentTimeMillis(), "collected"));
     }
 
     // Delete operations
-    public void delete(Package aPackage) {
-        executor.execute(() -> packageDao.delete(aPackage));
+    public CompletableFuture<Void> delete(Package aPackage) {
+        return executors.write(() -> packageDao.delete(aPackage));
+    }
+
+    public CompletableFuture<Void> deleteById(UUID id) {
+        return executors.write(() -> packageDao.deleteById(id));
     }
 
-    public void deleteById(UUID id) {
-        executor.execute(() -> packageDao.deleteById(id));
+    // Query operations (asynchronous, on the read pool)
+    public CompletableFuture<Package> getByIdAsync(UUID id) {
+        return executors.read(() -> packageDao.getById(id));
     }
 
-    // Query operations
+    public CompletableFuture<Package> getByPickupCodeAsync(String pickupCode) {
+        return executors.read(() -> packageDao.getByPickupCode(pickupCode));
+    }
+
+    // Query operations (synchronous; never on the main thread)
     public Package getById(UUID id) {
         return packageDao.getById(id);
     }
@@ -115,8 +127,4 @@ public class DeliveryRepository {
     public LiveData<List<Package>> getAllLive() {
         return packageDao.getAllLive();
     }
-
-    public void shutdown() {
-        executor.shutdown();
-    }
 }
@@ -3,14 +3,14 @@ package com.example.parcellocker.db.repository;
 import android.app.Application;
 import androidx.lifecycle.LiveData;
 
+import com.example.parcellocker.AppExecutors;
 import com.example.parcellocker.db.MachineDatabase;
 import com.example.parcellocker.db.dao.DoorDao;
 import com.example.parcellocker.db.entities.DoorEntity;
 
 import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Repository for Door operations.
@@ -19,42 +19,58 @@ import java.util.concurrent.Executors;
 public class DoorRepository {
 
     private DoorDao doorDao;
-    private ExecutorService executor;
+    private final AppExecutors executors;
 
     public DoorRepository(Application application) {
-        MachineDatabase database = MachineDatabase.getInstance(application);
+        this(MachineDatabase.getInstance(application), AppExecutors.get());
+    }
+
+    public DoorRepository(MachineDatabase database, AppExecutors executors) {
         doorDao = database.doorDao();
-        executor = Executors.newFixedThreadPool(4);
+        this.executors = executors;
     }
 
     // Insert operations
-    public void insert(DoorEntity door) {
-        executor.execute(() -> doorDao.insert(door));
+    public CompletableFuture<Void> insert(DoorEntity door) {
+        return executors.write(() -> doorDao.insert(door));
     }
 
-    public void insertAll(List<DoorEntity> doors) {
-        executor.execute(() -> doorDao.insertAll(doors));
+    public CompletableFuture<Void> insertAll(List<DoorEntity> doors) {
+        return executors.write(() -> doorDao.insertAll(doors));
     }
 
     // Update operations
-    public void update(DoorEntity door) {
-        executor.execute(() -> doorDao.update(door));
+    public CompletableFuture<Void> update(DoorEntity door) {
+        return executors.write(() -> doorDao.update(door));
     }
 
-    public void updateSyncStatus(UUID id, String syncStatus) {
-        executor.execute(() -> doorDao.updateSyncStatus(id, syncStatus));
+    public CompletableFuture<Void> updateSyncStatus(UUID id, String syncStatus) {
+        return executors.write(() -> doorDao.updateSyncStatus(id, syncStatus));
     }
 
     // Delete operations
-    public void delete(DoorEntity door) {
-        executor.execute(() -> doorDao.delete(door));
+    public CompletableFuture<Void> delete(DoorEntity door) {
+        return executors.write(() -> doorDao.delete(door));
+    }
+
+    public CompletableFuture<Void> deleteById(UUID id) {
+        return executors.write(() -> doorDao.deleteById(id));
+    }
+
+    // Query operations (asynchronous, on the read pool)
+    public CompletableFuture<DoorEntity> getByIdAsync(UUID id) {
+        return executors.read(() -> doorDao.getById(id));
+    }
+
+    public CompletableFuture<List<DoorEntity>> getByMachineAsync(UUID lockerMachineId) {
+        return executors.read(() -> doorDao.getByMachine(lockerMachineId));
     }
 
-    public void deleteById(UUID id) {
-        executor.execute(() -> doorDao.deleteById(id));
+    public CompletableFuture<List<DoorEntity>> getAvailableDoorsAsync(UUID lockerMachineId) {
+        return executors.read(() -> doorDao.getAvailableDoors(lockerMachineId));
     }
 
-    // Query operations
+    // Query operations (synchronous; never on the main thread)
     public DoorEntity getById(UUID id) {
         return doorDao.getById(id);
     }
@@ -95,8 +111,4 @@ public class DoorRepository {
     public LiveData<List<DoorEntity>> getAllLive() {
         return doorDao.getAllLive();
     }
-
-    public void shutdown() {
-        executor.shutdown();
-    }
 }
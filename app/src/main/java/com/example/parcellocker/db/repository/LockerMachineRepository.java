@@ -3,14 +3,14 @@ package com.example.parcellocker.db.repository;
 import android.app.Application;
 import androidx.lifecycle.LiveData;
 
+import com.example.parcellocker.AppExecutors;
 import com.example.parcellocker.db.MachineDatabase;
 import com.example.parcellocker.db.dao.LockerMachineDao;
 import com.example.parcellocker.db.entities.LockerMachine;
 
 import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Repository for LockerMachine operations.
@@ -19,50 +19,62 @@ import java.util.concurrent.Executors;
 public class LockerMachineRepository {
 
     private LockerMachineDao lockerMachineDao;
-    private ExecutorService executor;
+    private final AppExecutors executors;
 
     public LockerMachineRepository(Application application) {
-        MachineDatabase database = MachineDatabase.getInstance(application);
+        this(MachineDatabase.getInstance(application), AppExecutors.get());
+    }
+
+    public LockerMachineRepository(MachineDatabase database, AppExecutors executors) {
         lockerMachineDao = database.lockerMachineDao();
-        executor = Executors.newFixedThreadPool(4);
+        this.executors = executors;
     }
 
     // Insert operations
-    public void insert(LockerMachine machine) {
-        executor.execute(() -> lockerMachineDao.insert(machine));
+    public CompletableFuture<Void> insert(LockerMachine machine) {
+        return executors.write(() -> lockerMachineDao.insert(machine));
     }
 
-    public void insertAll(List<LockerMachine> machines) {
-        executor.execute(() -> lockerMachineDao.insertAll(machines));
+    public CompletableFuture<Void> insertAll(List<LockerMachine> machines) {
+        return executors.write(() -> lockerMachineDao.insertAll(machines));
     }
 
     // Update operations
-    public void update(LockerMachine machine) {
-        executor.execute(() -> lockerMachineDao.update(machine));
+    public CompletableFuture<Void> update(LockerMachine machine) {
+        return executors.write(() -> lockerMachineDao.update(machine));
     }
 
-    public void updateSyncStatus(UUID id, String syncStatus) {
-        executor.execute(() -> lockerMachineDao.updateSyncStatus(id, syncStatus));
+    public CompletableFuture<Void> updateSyncStatus(UUID id, String syncStatus) {
+        return executors.write(() -> lockerMachineDao.updateSyncStatus(id, syncStatus));
     }
 
-    public void updateOnlineStatus(UUID id, Boolean isOnline) {
-        executor.execute(() -> lockerMachineDao.updateOnlineStatus(id, isOnline, System.currentTimeMillis()));
+    public CompletableFuture<Void> updateOnlineStatus(UUID id, Boolean isOnline) {
+        return executors.write(() -> lockerMachineDao.updateOnlineStatus(id, isOnline, System.currentTimeMillis()));
     }
 
-    public void updateActiveStatus(UUID id, Boolean isActive) {
-        executor.execute(() -> lockerMachineDao.updateActiveStatus(id, isActive));
+    public CompletableFuture<Void> updateActiveStatus(UUID id, Boolean isActive) {
+        return executors.write(() -> lockerMachineDao.updateActiveStatus(id, isActive));
     }
 
     // Delete operations
-    public void delete(LockerMachine machine) {
-        executor.execute(() -> lockerMachineDao.delete(machine));
+    public CompletableFuture<Void> delete(LockerMachine machine) {
+        return executors.write(() -> lockerMachineDao.delete(machine));
+    }
+
+    public CompletableFuture<Void> deleteById(UUID id) {
+        return executors.write(() -> lockerMachineDao.deleteById(id));
     }
 
-    public void deleteById(UUID id) {
-        executor.execute(() -> lockerMachineDao.deleteById(id));
+    // Query operations (asynchronous, on the read pool)
+    public CompletableFuture<LockerMachine> getByIdAsync(UUID id) {
+        return executors.read(() -> lockerMachineDao.getById(id));
     }
 
-    // Query operations
+    public CompletableFuture<LockerMachine> getBySerialAsync(String machineSerial) {
+        return executors.read(() -> lockerMachineDao.getBySerial(machineSerial));
+    }
+
+    // Query operations (synchronous; never on the main thread)
     public LockerMachine getById(UUID id) {
         return lockerMachineDao.getById(id);
     }
@@ -103,8 +115,4 @@ public class LockerMachineRepository {
     public LiveData<List<LockerMachine>> getAllLive() {
         return lockerMachineDao.getAllLive();
     }
-
-    public void shutdown() {
-        executor.shutdown();
-    }
 }
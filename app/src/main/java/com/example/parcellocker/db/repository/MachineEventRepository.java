@@ -3,14 +3,14 @@ package com.example.parcellocker.db.repository;
 import android.app.Application;
 import androidx.lifecycle.LiveData;
 
+import com.example.parcellocker.AppExecutors;
 import com.example.parcellocker.db.MachineDatabase;
 import com.example.parcellocker.db.dao.MachineEventDao;
 import com.example.parcellocker.db.entities.MachineEvent;
 
 import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Repository for MachineEvent operations.
@@ -19,50 +19,62 @@ import java.util.concurrent.Executors;
 public class MachineEventRepository {
 
     private MachineEventDao machineEventDao;
-    private ExecutorService executor;
+    private final AppExecutors executors;
 
     public MachineEventRepository(Application application) {
-        MachineDatabase database = MachineDatabase.getInstance(application);
+        this(MachineDatabase.getInstance(application), AppExecutors.get());
+    }
+
+    public MachineEventRepository(MachineDatabase database, AppExecutors executors) {
         machineEventDao = database.machineEventDao();
-        executor = Executors.newFixedThreadPool(4);
+        this.executors = executors;
     }
 
     // Insert operations
-    public void insert(MachineEvent machineEvent) {
-        executor.execute(() -> machineEventDao.insert(machineEvent));
+    public CompletableFuture<Void> insert(MachineEvent machineEvent) {
+        return executors.write(() -> machineEventDao.insert(machineEvent));
     }
 
-    public void insertAll(List<MachineEvent> machineEvents) {
-        executor.execute(() -> machineEventDao.insertAll(machineEvents));
+    public CompletableFuture<Void> insertAll(List<MachineEvent> machineEvents) {
+        return executors.write(() -> machineEventDao.insertAll(machineEvents));
     }
 
     // Update operations
-    public void update(MachineEvent machineEvent) {
-        executor.execute(() -> machineEventDao.update(machineEvent));
+    public CompletableFuture<Void> update(MachineEvent machineEvent) {
+        return executors.write(() -> machineEventDao.update(machineEvent));
     }
 
-    public void updateSyncStatus(UUID id, String syncStatus) {
-        executor.execute(() -> machineEventDao.updateSyncStatus(id, syncStatus));
+    public CompletableFuture<Void> updateSyncStatus(UUID id, String syncStatus) {
+        return executors.write(() -> machineEventDao.updateSyncStatus(id, syncStatus));
     }
 
-    public void markAsResolved(UUID id) {
-        executor.execute(() -> machineEventDao.markAsResolved(id, true, System.currentTimeMillis()));
+    public CompletableFuture<Void> markAsResolved(UUID id) {
+        return executors.write(() -> machineEventDao.markAsResolved(id, true, System.currentTimeMillis()));
     }
 
     // Delete operations
-    public void delete(MachineEvent machineEvent) {
-        executor.execute(() -> machineEventDao.delete(machineEvent));
+    public CompletableFuture<Void> delete(MachineEvent machineEvent) {
+        return executors.write(() -> machineEventDao.delete(machineEvent));
+    }
+
+    public CompletableFuture<Void> deleteById(UUID id) {
+        return executors.write(() -> machineEventDao.deleteById(id));
     }
 
-    public void deleteById(UUID id) {
-        executor.execute(() -> machineEventDao.deleteById(id));
+    public CompletableFuture<Void> deleteOlderThan(Long cutoffTime) {
+        return executors.write(() -> machineEventDao.deleteOlderThan(cutoffTime));
     }
 
-    public void deleteOlderThan(Long cutoffTime) {
-        executor.execute(() -> machineEventDao.deleteOlderThan(cutoffTime));
+    // Query operations (asynchronous, on the read pool)
+    public CompletableFuture<MachineEvent> getByIdAsync(UUID id) {
+        return executors.read(() -> machineEventDao.getById(id));
     }
 
-    // Query operations
+    public CompletableFuture<List<MachineEvent>> getRecentAsync(int limit) {
+        return executors.read(() -> machineEventDao.getRecent(limit));
+    }
+
+    // Query operations (synchronous; never on the main thread)
     public MachineEvent getById(UUID id) {
         return machineEventDao.getById(id);
     }
@@ -123,8 +135,4 @@ public class MachineEventRepository {
     public LiveData<List<MachineEvent>> getRecentLive(int limit) {
         return machineEventDao.getRecentLive(limit);
     }
-
-    public void shutdown() {
-        executor.shutdown();
-    }
 }
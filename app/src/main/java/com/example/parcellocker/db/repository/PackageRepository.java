@@ -3,14 +3,14 @@ package com.example.parcellocker.db.repository;
 import android.app.Application;
 import androidx.lifecycle.LiveData;
 
+import com.example.parcellocker.AppExecutors;
 import com.example.parcellocker.db.MachineDatabase;
 import com.example.parcellocker.db.dao.PackageDao;
 import com.example.parcellocker.db.entities.Package;
 
 import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Repository for Package operations.
@@ -20,34 +20,37 @@ import java.util.concurrent.Executors;
 public class PackageRepository {
 
     private PackageDao packageDao;
-    private ExecutorService executor;
+    private final AppExecutors executors;
 
     public PackageRepository(Application application) {
-        MachineDatabase database = MachineDatabase.getInstance(application);
+        this(MachineDatabase.getInstance(application), AppExecutors.get());
+    }
+
+    public PackageRepository(MachineDatabase database, AppExecutors executors) {
         packageDao = database.packageDao();
-        executor = Executors.newFixedThreadPool(4);
+        this.executors = executors;
     }
 
     // Insert operations
-    public void insert(Package packageEntity) {
-        executor.execute(() -> packageDao.insert(packageEntity));
+    public CompletableFuture<Void> insert(Package packageEntity) {
+        return executors.write(() -> packageDao.insert(packageEntity));
     }
 
-    public void insertAll(List<Package> packages) {
-        executor.execute(() -> packageDao.insertAll(packages));
+    public CompletableFuture<Void> insertAll(List<Package> packages) {
+        return executors.write(() -> packageDao.insertAll(packages));
     }
 
     // Update operations
-    public void update(Package packageEntity) {
-        executor.execute(() -> packageDao.update(packageEntity));
+    public CompletableFuture<Void> update(Package packageEntity) {
+        return executors.write(() -> packageDao.update(packageEntity));
     }
 
-    public void updateStatus(UUID id, String status) {
-        executor.execute(() -> packageDao.updateStatus(id, status, System.currentTimeMillis()));
+    public CompletableFuture<Void> updateStatus(UUID id, String status) {
+        return executors.write(() -> packageDao.updateStatus(id, status, System.currentTimeMillis()));
     }
 
-    public void updateSyncStatus(UUID id, String syncStatus) {
-        executor.execute(() -> packageDao.updateSyncStatus(id, syncStatus));
+    public CompletableFuture<Void> updateSyncStatus(UUID id, String syncStatus) {
+        return executors.write(() -> packageDao.updateSyncStatus(id, syncStatus));
     }
 
     // CORRECTED: PIN-based authentication operations with package reference validation
@@ -75,6 +78,19 @@ public class PackageRepository {
         return null;
     }
 
+    // PIN authentication off the caller's thread, for the PIN entry screens
+    public CompletableFuture<Package> authenticateDeliveryPinAsync(String packageReference, String deliveryPin) {
+        return executors.read(() -> authenticateDeliveryPin(packageReference, deliveryPin));
+    }
+
+    public CompletableFuture<Package> authenticateClientPinAsync(String packageReference, String clientPin) {
+        return executors.read(() -> authenticateClientPin(packageReference, clientPin));
+    }
+
+    public CompletableFuture<Package> authenticateReturnPinAsync(String packageReference, String returnPin) {
+        return executors.read(() -> authenticateReturnPin(packageReference, returnPin));
+    }
+
     // CORRECTED: Delivery workflow - door must be pre-assigned by backoffice
     public boolean canDeliverPackage(UUID packageId) {
         Package pkg = getById(packageId);
@@ -82,8 +98,8 @@ public class PackageRepository {
     }
 
     // Package lifecycle operations - with door validation
-    public void markAsDelivered(UUID packageId, UUID deliveryPersonId) {
-        executor.execute(() -> {
+    public CompletableFuture<Void> markAsDelivered(UUID packageId, UUID deliveryPersonId) {
+        return executors.write(() -> {
             Package pkg = packageDao.getById(packageId);
             if (pkg != null && pkg.hasDoorAssigned()) {
                 long now = System.currentTimeMillis();
@@ -93,30 +109,47 @@ public class PackageRepository {
         });
     }
 
-    public void markAsPicked(UUID packageId) {
-        executor.execute(() -> {
+    public CompletableFuture<Void> markAsPicked(UUID packageId) {
+        return executors.write(() -> {
             long now = System.currentTimeMillis();
             packageDao.markAsPicked(packageId, now, now);
         });
     }
 
-    public void markAsReturned(UUID packageId, UUID returnedBy) {
-        executor.execute(() -> {
+    public CompletableFuture<Void> markAsReturned(UUID packageId, UUID returnedBy) {
+        return executors.write(() -> {
             long now = System.currentTimeMillis();
             packageDao.markAsReturned(packageId, now, returnedBy, now);
         });
     }
 
     // Delete operations
-    public void delete(Package packageEntity) {
-        executor.execute(() -> packageDao.delete(packageEntity));
+    public CompletableFuture<Void> delete(Package packageEntity) {
+        return executors.write(() -> packageDao.delete(packageEntity));
+    }
+
+    public CompletableFuture<Void> deleteById(UUID id) {
+        return executors.write(() -> packageDao.deleteById(id));
+    }
+
+    // Query operations (asynchronous, on the read pool)
+    public CompletableFuture<Package> getByIdAsync(UUID id) {
+        return executors.read(() -> packageDao.getById(id));
+    }
+
+    public CompletableFuture<Package> getByTrackingNumberAsync(String trackingNumber) {
+        return executors.read(() -> packageDao.getByTrackingNumber(trackingNumber));
     }
 
-    public void deleteById(UUID id) {
-        executor.execute(() -> packageDao.deleteById(id));
+    public CompletableFuture<Package> getByDoorIdAsync(UUID doorId) {
+        return executors.read(() -> packageDao.getByDoorId(doorId));
     }
 
-    // Query operations (synchronous)
+    public CompletableFuture<List<Package>> getByStatusAsync(String status) {
+        return executors.read(() -> packageDao.getByStatus(status));
+    }
+
+    // Query operations (synchronous; never on the main thread)
     public Package getById(UUID id) {
         return packageDao.getById(id);
     }
@@ -185,8 +218,4 @@ public class PackageRepository {
     public LiveData<List<Package>> getAllLive() {
         return packageDao.getAllLive();
     }
-
-    public void shutdown() {
-        executor.shutdown();
-    }
 }
@@ -3,14 +3,14 @@ package com.example.parcellocker.db.repository;
 import android.app.Application;
 import androidx.lifecycle.LiveData;
 
+import com.example.parcellocker.AppExecutors;
 import com.example.parcellocker.db.MachineDatabase;
 import com.example.parcellocker.db.dao.PaymentDao;
 import com.example.parcellocker.db.entities.Payment;
 
 import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Repository for Payment operations.
@@ -19,70 +19,90 @@ import java.util.concurrent.Executors;
 public class PaymentRepository {
 
     private PaymentDao paymentDao;
-    private ExecutorService executor;
+    private final AppExecutors executors;
 
     public PaymentRepository(Application application) {
-        MachineDatabase database = MachineDatabase.getInstance(application);
+        this(MachineDatabase.getInstance(application), AppExecutors.get());
+    }
+
+    public PaymentRepository(MachineDatabase database, AppExecutors executors) {
         paymentDao = database.paymentDao();
-        executor = Executors.newFixedThreadPool(4);
+        this.executors = executors;
     }
 
     // Insert operations
-    public void insert(Payment payment) {
-        executor.execute(() -> paymentDao.insert(payment));
+    public CompletableFuture<Void> insert(Payment payment) {
+        return executors.write(() -> paymentDao.insert(payment));
     }
 
-    public void insertAll(List<Payment> payments) {
-        executor.execute(() -> paymentDao.insertAll(payments));
+    public CompletableFuture<Void> insertAll(List<Payment> payments) {
+        return executors.write(() -> paymentDao.insertAll(payments));
     }
 
     // Update operations
-    public void update(Payment payment) {
-        executor.execute(() -> paymentDao.update(payment));
+    public CompletableFuture<Void> update(Payment payment) {
+        return executors.write(() -> paymentDao.update(payment));
     }
 
-    public void updateSyncStatus(UUID id, String syncStatus) {
-        executor.execute(() -> paymentDao.updateSyncStatus(id, syncStatus));
+    public CompletableFuture<Void> updateSyncStatus(UUID id, String syncStatus) {
+        return executors.write(() -> paymentDao.updateSyncStatus(id, syncStatus));
     }
 
     // Payment lifecycle operations
-    public void markAsPaid(UUID paymentId) {
-        executor.execute(() -> {
+    public CompletableFuture<Void> markAsPaid(UUID paymentId) {
+        return executors.write(() -> {
             long now = System.currentTimeMillis();
             paymentDao.markAsPaid(paymentId, now, now);
         });
     }
 
-    public void markAsFailed(UUID paymentId) {
-        executor.execute(() -> paymentDao.markAsFailed(paymentId, System.currentTimeMillis()));
+    public CompletableFuture<Void> markAsFailed(UUID paymentId) {
+        return executors.write(() -> paymentDao.markAsFailed(paymentId, System.currentTimeMillis()));
     }
 
-    public void completeCashPayment(UUID paymentId, Double amountPaid, Double changeGiven,
+    public CompletableFuture<Void> completeCashPayment(UUID paymentId, Double amountPaid, Double changeGiven,
                                    String cashDenominations, Double machineCashBalance) {
-        executor.execute(() -> {
+        return executors.write(() -> {
             long now = System.currentTimeMillis();
             paymentDao.completeCashPayment(paymentId, amountPaid, changeGiven,
                                          cashDenominations, machineCashBalance, now, now);
         });
     }
 
-    public void completeOnlinePayment(UUID paymentId, String transactionId) {
-        executor.execute(() -> {
+    public CompletableFuture<Void> completeOnlinePayment(UUID paymentId, String transactionId) {
+        return executors.write(() -> {
             long now = System.currentTimeMillis();
             paymentDao.completeOnlinePayment(paymentId, transactionId, now, now);
         });
     }
 
     // Delete operations
-    public void delete(Payment payment) {
-        executor.execute(() -> paymentDao.delete(payment));
+    public CompletableFuture<Void> delete(Payment payment) {
+        return executors.write(() -> paymentDao.delete(payment));
+    }
+
+    public CompletableFuture<Void> deleteById(UUID id) {
+        return executors.write(() -> paymentDao.deleteById(id));
+    }
+
+    // Query operations (asynchronous, on the read pool)
+    public CompletableFuture<Payment> getByIdAsync(UUID id) {
+        return executors.read(() -> paymentDao.getById(id));
+    }
+
+    public CompletableFuture<List<Payment>> getByPackageIdAsync(UUID packageId) {
+        return executors.read(() -> paymentDao.getByPackageId(packageId));
+    }
+
+    public CompletableFuture<Payment> getPaidPaymentForPackageAsync(UUID packageId) {
+        return executors.read(() -> paymentDao.getPaidPaymentForPackage(packageId));
     }
 
-    public void deleteById(UUID id) {
-        executor.execute(() -> paymentDao.deleteById(id));
+    public CompletableFuture<Payment> getPendingPaymentForPackageAsync(UUID packageId) {
+        return executors.read(() -> paymentDao.getPendingPaymentForPackage(packageId));
     }
 
-    // Query operations (synchronous)
+    // Query operations (synchronous; never on the main thread)
     public Payment getById(UUID id) {
         return paymentDao.getById(id);
     }
@@ -181,6 +201,10 @@ public class PaymentRepository {
         return paidPayment != null;
     }
 
+    public CompletableFuture<Boolean> isPackagePaidAsync(UUID packageId) {
+        return getPaidPaymentForPackageAsync(packageId).thenApply(payment -> payment != null);
+    }
+
     // CORRECTED: Algeria-specific payment creation (DZD currency)
     public Payment createCashPaymentDZD(UUID packageId, Double amount) {
         Payment payment = new Payment(packageId, amount, "DZD");
@@ -222,8 +246,4 @@ public class PaymentRepository {
         // For now, return true as placeholder
         return true;
     }
-
-    public void shutdown() {
-        executor.shutdown();
-    }
 }
@@ -3,14 +3,14 @@ package com.example.parcellocker.db.repository;
 import android.app.Application;
 import androidx.lifecycle.LiveData;
 
+import com.example.parcellocker.AppExecutors;
 import com.example.parcellocker.db.MachineDatabase;
 import com.example.parcellocker.db.dao.UserDao;
 import com.example.parcellocker.db.entities.User;
 
 import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Repository for User operations.
@@ -20,42 +20,50 @@ import java.util.concurrent.Executors;
 public class UserRepository {
 
     private UserDao userDao;
-    private ExecutorService executor;
+    private final AppExecutors executors;
 
     public UserRepository(Application application) {
-        MachineDatabase database = MachineDatabase.getInstance(application);
+        this(MachineDatabase.getInstance(application), AppExecutors.get());
+    }
+
+    public UserRepository(MachineDatabase database, AppExecutors executors) {
         userDao = database.userDao();
-        executor = Executors.newFixedThreadPool(4);
+        this.executors = executors;
     }
 
     // Insert operations
-    public void insert(User user) {
-        executor.execute(() -> userDao.insert(user));
+    public CompletableFuture<Void> insert(User user) {
+        return executors.write(() -> userDao.insert(user));
     }
 
-    public void insertAll(List<User> users) {
-        executor.execute(() -> userDao.insertAll(users));
+    public CompletableFuture<Void> insertAll(List<User> users) {
+        return executors.write(() -> userDao.insertAll(users));
     }
 
     // Update operations
-    public void update(User user) {
-        executor.execute(() -> userDao.update(user));
+    public CompletableFuture<Void> update(User user) {
+        return executors.write(() -> userDao.update(user));
     }
 
-    public void updateSyncStatus(UUID id, String syncStatus) {
-        executor.execute(() -> userDao.updateSyncStatus(id, syncStatus));
+    public CompletableFuture<Void> updateSyncStatus(UUID id, String syncStatus) {
+        return executors.write(() -> userDao.updateSyncStatus(id, syncStatus));
     }
 
     // Delete operations
-    public void delete(User user) {
-        executor.execute(() -> userDao.delete(user));
+    public CompletableFuture<Void> delete(User user) {
+        return executors.write(() -> userDao.delete(user));
+    }
+
+    public CompletableFuture<Void> deleteById(UUID id) {
+        return executors.write(() -> userDao.deleteById(id));
     }
 
-    public void deleteById(UUID id) {
-        executor.execute(() -> userDao.deleteById(id));
+    // Query operations (asynchronous, on the read pool)
+    public CompletableFuture<User> getByIdAsync(UUID id) {
+        return executors.read(() -> userDao.getById(id));
     }
 
-    // Query operations
+    // Query operations (synchronous; never on the main thread)
     public User getById(UUID id) {
         return userDao.getById(id);
     }
@@ -76,8 +84,4 @@ public class UserRepository {
     public LiveData<List<User>> getAllLive() {
         return userDao.getAllLive();
     }
-
-    public void shutdown() {
-        executor.shutdown();
-    }
 }
@@ -0,0 +1,218 @@
+package com.example.parcellocker.service;
+
+import com.example.parcellocker.AppExecutors;
+import com.example.parcellocker.cu16.CU16BusSnapshot;
+import com.example.parcellocker.cu16.CU16MachineService;
+import com.example.parcellocker.cu16.CU16Metrics;
+import com.example.parcellocker.cu16.CU16StatusWord;
+import com.example.parcellocker.db.dao.DoorDao;
+import com.example.parcellocker.db.entities.DoorEntity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps doors.is_locked / doors.is_occupied in sync with the CU16 hardware.
+ *
+ * Polls all boards with one bus query at a configurable rate, XOR-diffs each
+ * board's packed status against the last known one and writes only the doors
+ * that changed, in a single transaction on the shared database writer. A poll
+ * where nothing changed touches neither the database nor the getDoorsLive
+ * observers.
+ */
+public class DoorStatePoller {
+
+    /** Notified on the poller thread after changed doors were written. */
+    public interface Listener {
+        void onDoorsChanged(int cuId, int changedMask, long word);
+    }
+
+    private static final long DEFAULT_INTERVAL_MS = 500;
+
+    private final CU16MachineService hardware;
+    private final DoorDao doorDao;
+    private final UUID lockerMachineId;
+    private final AppExecutors executors;
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "door-state-poller"));
+
+    // Indexed [cuId][board door], see CU16MachineService.boardDoor.
+    private final DoorEntity[][] doors = new DoorEntity[CU16BusSnapshot.MAX_BOARDS][16];
+    private final long[] lastWords = new long[CU16BusSnapshot.MAX_BOARDS];
+    private int boardCount;
+
+    private volatile long intervalMs = DEFAULT_INTERVAL_MS;
+    private volatile Listener listener;
+    private ScheduledFuture<?> task;
+
+    public DoorStatePoller(CU16MachineService hardware, DoorDao doorDao, UUID lockerMachineId) {
+        this(hardware, doorDao, lockerMachineId, AppExecutors.get());
+    }
+
+    public DoorStatePoller(CU16MachineService hardware, DoorDao doorDao, UUID lockerMachineId, AppExecutors executors) {
+        this.hardware = hardware;
+        this.doorDao = doorDao;
+        this.lockerMachineId = lockerMachineId;
+        this.executors = executors;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /** Changes the poll rate; takes effect immediately if the poller is running. */
+    public synchronized void setIntervalMs(long intervalMs) {
+        this.intervalMs = intervalMs;
+        if (task != null) {
+            task.cancel(false);
+            task = scheduler.scheduleWithFixedDelay(this::pollSafely, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public synchronized void start() {
+        if (task != null) return;
+        scheduler.execute(this::loadDoors);
+        task = scheduler.scheduleWithFixedDelay(this::pollSafely, 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (task != null) {
+            task.cancel(false);
+            task = null;
+        }
+    }
+
+    public void shutdown() {
+        stop();
+        scheduler.shutdown();
+    }
+
+    /** Re-reads the door layout, e.g. after a sync added doors. */
+    public void reloadDoors() {
+        scheduler.execute(this::loadDoors);
+    }
+
+    // Seeds the last known state from the database so the first poll only writes real differences.
+    // The rows are read on the shared read pool like every other query; a failed read keeps the old layout.
+    private void loadDoors() {
+        List<DoorEntity> rows;
+        try {
+            rows = executors.read(() -> doorDao.getByMachine(lockerMachineId)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException e) {
+            System.err.println("Door layout load failed: " + e.getCause().getMessage());
+            return;
+        }
+        for (DoorEntity[] board : doors) Arrays.fill(board, null);
+        Arrays.fill(lastWords, CU16StatusWord.INVALID);
+        int[] locked = new int[CU16BusSnapshot.MAX_BOARDS];
+        int[] occupied = new int[CU16BusSnapshot.MAX_BOARDS];
+        boolean[] present = new boolean[CU16BusSnapshot.MAX_BOARDS];
+
+        for (DoorEntity door : rows) {
+            int cu = door.cuId & 0x0F;
+            int bit = CU16MachineService.boardDoor(door.doorIndex);
+            doors[cu][bit] = door;
+            present[cu] = true;
+            if (Boolean.TRUE.equals(door.isLocked)) locked[cu] |= 1 << bit;
+            if (Boolean.TRUE.equals(door.isOccupied)) occupied[cu] |= 1 << bit;
+        }
+        boardCount = 0;
+        for (int cu = 0; cu < CU16BusSnapshot.MAX_BOARDS; cu++) {
+            if (!present[cu]) continue;
+            boardCount++;
+            lastWords[cu] = CU16StatusWord.of((byte) (cu << 4), (byte) 0, locked[cu], occupied[cu]);
+        }
+    }
+
+    private void pollSafely() {
+        try {
+            pollOnce();
+        } catch (Exception e) {
+            System.err.println("Door state poll failed: " + e.getMessage());
+        }
+    }
+
+    private void pollOnce() throws Exception {
+        if (boardCount == 0) return;
+        CU16BusSnapshot snapshot = hardware.getAllBoardsStatusAsync(boardCount)
+                .get(Math.max(intervalMs * 4, 2000), TimeUnit.MILLISECONDS);
+
+        // Nothing is remembered until the write has committed: if it fails, the
+        // next poll finds the same differences and writes them again.
+        long now = System.currentTimeMillis();
+        List<DoorEntity> changed = null;
+        int[] changedMasks = null;
+        for (int cu = 0; cu < CU16BusSnapshot.MAX_BOARDS; cu++) {
+            long word = snapshot.word(cu);
+            if (word == CU16StatusWord.INVALID || lastWords[cu] == CU16StatusWord.INVALID) continue;
+            int mask = CU16StatusWord.changedDoors(lastWords[cu], word);
+            if (mask == 0) continue;
+
+            for (int bit = 0; bit < 16; bit++) {
+                DoorEntity door = doors[cu][bit];
+                if ((mask & (1 << bit)) == 0 || door == null) continue;
+                if (changed == null) {
+                    changed = new ArrayList<>();
+                    changedMasks = new int[CU16BusSnapshot.MAX_BOARDS];
+                }
+                changed.add(withState(door, word, bit, now));
+                changedMasks[cu] |= 1 << bit;
+            }
+        }
+        if (changed == null) {
+            rememberWords(snapshot);
+            return;
+        }
+
+        // Waits for the write, queueing included, before the next poll touches these doors again.
+        List<DoorEntity> write = changed;
+        long writeStart = System.nanoTime();
+        executors.write(() -> doorDao.updateHardwareStates(write)).get();
+        hardware.getMetrics().record(CU16Metrics.Stage.DB_WRITE, CU16Metrics.BUS, (byte) 0,
+                System.nanoTime() - writeStart);
+        rememberWords(snapshot);
+        for (DoorEntity door : changed) {
+            doors[door.cuId & 0x0F][CU16MachineService.boardDoor(door.doorIndex)] = door;
+        }
+
+        Listener l = listener;
+        if (l == null) return;
+        for (int cu = 0; cu < CU16BusSnapshot.MAX_BOARDS; cu++) {
+            if (changedMasks[cu] != 0) l.onDoorsChanged(cu, changedMasks[cu], lastWords[cu]);
+        }
+    }
+
+    private void rememberWords(CU16BusSnapshot snapshot) {
+        for (int cu = 0; cu < CU16BusSnapshot.MAX_BOARDS; cu++) {
+            long word = snapshot.word(cu);
+            if (word != CU16StatusWord.INVALID && lastWords[cu] != CU16StatusWord.INVALID) lastWords[cu] = word;
+        }
+    }
+
+    /** A copy of {@code door} with the hardware state of {@code bit} in {@code word}; the cached entity is left as is. */
+    private static DoorEntity withState(DoorEntity door, long word, int bit, long now) {
+        DoorEntity copy = new DoorEntity();
+        copy.id = door.id;
+        copy.lockerMachineId = door.lockerMachineId;
+        copy.cuId = door.cuId;
+        copy.doorIndex = door.doorIndex;
+        copy.label = door.label;
+        copy.sizeCategory = door.sizeCategory;
+        copy.createdAt = door.createdAt;
+        copy.syncStatus = door.syncStatus;
+        copy.isLocked = CU16StatusWord.isLocked(word, bit);
+        copy.isOccupied = CU16StatusWord.isOccupied(word, bit);
+        copy.updatedAt = now;
+        return copy;
+    }
+}
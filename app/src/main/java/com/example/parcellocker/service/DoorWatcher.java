@@ -0,0 +1,105 @@
+package com.example.parcellocker.service;
+
+import com.example.parcellocker.AppExecutors;
+import com.example.parcellocker.cu16.CU16DoorWatch;
+import com.example.parcellocker.cu16.CU16Parser;
+import com.example.parcellocker.db.dao.MachineEventDao;
+import com.example.parcellocker.db.entities.DoorEntity;
+import com.example.parcellocker.db.entities.MachineEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Unlocks a door and follows it with a {@link CU16DoorWatch}, recording
+ * "door_opened" and "door_closed" MachineEvents with their durations as they
+ * happen. A door still open when the watch gives up gets a "door_left_open"
+ * warning. Events are written on the shared database writer, never on the I/O
+ * thread that answered the poll.
+ */
+public class DoorWatcher {
+
+    public static final String EVENT_OPENED = "door_opened";
+    public static final String EVENT_CLOSED = "door_closed";
+    public static final String EVENT_LEFT_OPEN = "door_left_open";
+
+    private final LockerHardwareService hardware;
+    private final MachineEventDao machineEventDao;
+    private final ExecutorService executor;
+
+    private volatile long giveUpMs = 5 * 60_000L;
+
+    public DoorWatcher(LockerHardwareService hardware, MachineEventDao machineEventDao) {
+        this(hardware, machineEventDao, AppExecutors.get());
+    }
+
+    public DoorWatcher(LockerHardwareService hardware, MachineEventDao machineEventDao, AppExecutors executors) {
+        this.hardware = hardware;
+        this.machineEventDao = machineEventDao;
+        this.executor = executors.diskWrite();
+    }
+
+    /** How long a door may stay open (or unopened) before the watch gives up. */
+    public void setGiveUpMs(long giveUpMs) {
+        this.giveUpMs = giveUpMs;
+    }
+
+    /**
+     * Unlocks {@code door} and completes once it was opened and closed, or the watch
+     * gave up; fails only if the unlock itself failed.
+     */
+    public CompletableFuture<CU16DoorWatch.Result> unlockAndWatchAsync(DoorEntity door) {
+        return hardware.unlockDoorAsync(door).thenCompose(ignored -> watchAsync(door));
+    }
+
+    /** Watches a door that was just unlocked by someone else. */
+    public CompletableFuture<CU16DoorWatch.Result> watchAsync(DoorEntity door) {
+        return hardware.getHardware().watchDoor(door.getCuId(), door.getDoorIndex())
+                .setGiveUpMs(giveUpMs)
+                .setListener(new CU16DoorWatch.Listener() {
+                    @Override
+                    public void onOpened(int doorIndex, long afterMs) {
+                        Map<String, Object> details = new HashMap<>();
+                        details.put("after_unlock_ms", afterMs);
+                        record(door, EVENT_OPENED, "info", details);
+                    }
+
+                    @Override
+                    public void onClosed(int doorIndex, long openMs, CU16Parser.Status status) {
+                        Map<String, Object> details = new HashMap<>();
+                        details.put("open_ms", openMs);
+                        details.put("occupied", status.isOccupied(doorIndex));
+                        record(door, EVENT_CLOSED, "info", details);
+                    }
+                })
+                .start()
+                .thenApply(result -> {
+                    if (result.wasOpened() && !result.isClosed()) {
+                        Map<String, Object> details = new HashMap<>();
+                        details.put("open_ms", System.currentTimeMillis() - result.openedAt);
+                        record(door, EVENT_LEFT_OPEN, "warning", details);
+                    }
+                    return result;
+                });
+    }
+
+    private void record(DoorEntity door, String type, String severity, Map<String, Object> details) {
+        MachineEvent event = new MachineEvent();
+        event.lockerMachineId = hardware.getMachine().getId();
+        event.doorId = door.getId();
+        event.eventType = type;
+        event.severity = severity;
+        event.details = details;
+        // A door left open needs someone to close it, so it stays on the unresolved list until then.
+        event.isResolved = !EVENT_LEFT_OPEN.equals(type);
+        executor.execute(() -> {
+            try {
+                machineEventDao.insert(event);
+            } catch (Exception e) {
+                System.err.println("Door event write failed: " + e.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.parcellocker.service;
+
+import com.example.parcellocker.AppExecutors;
+import com.example.parcellocker.cu16.CU16MachineService;
+import com.example.parcellocker.cu16.CU16Metrics;
+import com.example.parcellocker.db.dao.MachineEventDao;
+import com.example.parcellocker.db.entities.MachineEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists the CU16 latency histograms as a "hardware_metrics" MachineEvent.
+ *
+ * Every interval the histograms are snapshotted and reset, so each event covers
+ * exactly the interval since the previous one and can be synced and compared
+ * across machines to find slow lockers. The queue depth and wait figures of the
+ * shared AppExecutors go into the same event. Intervals without traffic write
+ * nothing.
+ */
+public class HardwareMetricsReporter {
+
+    public static final String EVENT_TYPE = "hardware_metrics";
+    private static final long DEFAULT_INTERVAL_MS = TimeUnit.MINUTES.toMillis(15);
+
+    private final CU16MachineService hardware;
+    private final MachineEventDao machineEventDao;
+    private final UUID lockerMachineId;
+    private final AppExecutors executors;
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "hardware-metrics"));
+
+    private long intervalMs = DEFAULT_INTERVAL_MS;
+    private long intervalStart = System.currentTimeMillis();
+    private int ownWrites; // writer tasks of the previous report, counted in this interval
+    private ScheduledFuture<?> task;
+
+    public HardwareMetricsReporter(CU16MachineService hardware, MachineEventDao machineEventDao, UUID lockerMachineId) {
+        this(hardware, machineEventDao, lockerMachineId, AppExecutors.get());
+    }
+
+    public HardwareMetricsReporter(CU16MachineService hardware, MachineEventDao machineEventDao, UUID lockerMachineId,
+                                   AppExecutors executors) {
+        this.hardware = hardware;
+        this.machineEventDao = machineEventDao;
+        this.lockerMachineId = lockerMachineId;
+        this.executors = executors;
+    }
+
+    public synchronized void setIntervalMs(long intervalMs) {
+        this.intervalMs = intervalMs;
+        if (task != null) {
+            task.cancel(false);
+            task = scheduler.scheduleWithFixedDelay(this::reportSafely, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public synchronized void start() {
+        if (task != null) return;
+        task = scheduler.scheduleWithFixedDelay(this::reportSafely, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Writes whatever was collected so far and stops. */
+    public void shutdown() {
+        synchronized (this) {
+            if (task != null) {
+                task.cancel(false);
+                task = null;
+            }
+        }
+        scheduler.execute(this::reportSafely);
+        scheduler.shutdown();
+    }
+
+    private void reportSafely() {
+        try {
+            report();
+        } catch (Exception e) {
+            System.err.println("Hardware metrics report failed: " + e.getMessage());
+        }
+    }
+
+    private void report() throws Exception {
+        CU16Metrics.Snapshot snapshot = hardware.getMetrics().snapshot(true);
+        List<AppExecutors.Stats> executorStats = executors.snapshot(true);
+        long start = intervalStart;
+        intervalStart = snapshot.getTimestamp();
+        long tasks = 0;
+        for (AppExecutors.Stats stats : executorStats) tasks += stats.tasks;
+        // The previous report's insert is not activity, or an idle machine would report forever.
+        tasks -= ownWrites;
+        ownWrites = 0;
+        if (snapshot.isEmpty() && tasks <= 0) return;
+
+        List<Map<String, Object>> histograms = new ArrayList<>(snapshot.getEntries().size());
+        for (CU16Metrics.Entry entry : snapshot.getEntries()) histograms.add(entry.toMap());
+        List<Map<String, Object>> executorMaps = new ArrayList<>(executorStats.size());
+        for (AppExecutors.Stats stats : executorStats) executorMaps.add(stats.toMap());
+
+        Map<String, Object> details = new HashMap<>();
+        details.put("interval_start", start);
+        details.put("interval_end", snapshot.getTimestamp());
+        details.put("histograms", histograms);
+        details.put("executors", executorMaps);
+
+        MachineEvent event = new MachineEvent();
+        event.lockerMachineId = lockerMachineId;
+        event.eventType = EVENT_TYPE;
+        event.timestamp = snapshot.getTimestamp();
+        event.details = details;
+        ownWrites = 1;
+        executors.write(() -> machineEventDao.insert(event)).get();
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.parcellocker.service;
+
+import com.example.parcellocker.cu16.CU16BoardConfig;
+import com.example.parcellocker.cu16.CU16BusSnapshot;
+import com.example.parcellocker.cu16.CU16Client;
+import com.example.parcellocker.cu16.CU16Health;
+import com.example.parcellocker.cu16.CU16MachineService;
+import com.example.parcellocker.cu16.CU16Metrics;
+import com.example.parcellocker.cu16.CU16Parser;
+import com.example.parcellocker.cu16.CU16ProvisionResult;
+import com.example.parcellocker.cu16.CU16Provisioner;
+import com.example.parcellocker.cu16.CU16SerialTransport;
+import com.example.parcellocker.cu16.CU16Transport;
+import com.example.parcellocker.db.entities.DoorEntity;
+import com.example.parcellocker.db.entities.LockerMachine;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Hardware access for one LockerMachine: owns all of its CU16 boards through a
+ * single CU16MachineService and routes door commands by DoorEntity.cuId / doorIndex.
+ *
+ * The machine's ip_address is either a BU address or, for boards wired straight to
+ * an RS-485 adapter, the adapter's device path (e.g. /dev/ttyUSB0).
+ */
+public class LockerHardwareService {
+
+    public static final int DEFAULT_BU_PORT = 3133;
+    public static final int DEFAULT_SERIAL_BAUD = 19200;
+
+    private final LockerMachine machine;
+    private final CU16MachineService hardware;
+    private volatile List<Integer> boards = new ArrayList<>();
+
+    public LockerHardwareService(LockerMachine machine) {
+        this(machine, new CU16MachineService(transportFor(machine)));
+    }
+
+    public LockerHardwareService(LockerMachine machine, CU16MachineService hardware) {
+        this.machine = machine;
+        this.hardware = hardware;
+    }
+
+    /** Serial transport for a device path, TCP to the BU otherwise. */
+    public static CU16Transport transportFor(LockerMachine machine) {
+        String address = machine.getIpAddress();
+        if (address != null && address.startsWith("/dev/")) {
+            return new CU16SerialTransport(new File(address), DEFAULT_SERIAL_BAUD);
+        }
+        return new CU16Client(address, DEFAULT_BU_PORT);
+    }
+
+    /**
+     * Records which boards the machine has, so bus polls can complete without waiting
+     * for silence and provisioning knows what to configure.
+     */
+    public void setDoors(List<DoorEntity> doors) {
+        boolean[] seen = new boolean[CU16BusSnapshot.MAX_BOARDS];
+        List<Integer> cuIds = new ArrayList<>();
+        for (DoorEntity door : doors) {
+            int cu = door.getCuId() & 0x0F;
+            if (!seen[cu]) {
+                seen[cu] = true;
+                cuIds.add(cu);
+            }
+        }
+        boards = cuIds;
+    }
+
+    /**
+     * Applies {@code config} to every board known from {@link #setDoors}, skipping
+     * boards that {@code cacheFile} shows are already configured; see {@link CU16Provisioner}.
+     */
+    public CompletableFuture<CU16ProvisionResult> provisionAsync(CU16BoardConfig config, File cacheFile, boolean force) {
+        return new CU16Provisioner(hardware, cacheFile).provisionAsync(boards, config, force);
+    }
+
+    public CompletableFuture<CU16Parser.Status> unlockDoorAsync(DoorEntity door) {
+        checkDoor(door);
+        return hardware.unlockDoorAsync(door.getCuId(), door.getDoorIndex());
+    }
+
+    public CompletableFuture<CU16Parser.Status> getDoorStatusAsync(DoorEntity door) {
+        checkDoor(door);
+        return hardware.getStatusAsync(door.getCuId(), door.getDoorIndex());
+    }
+
+    public CompletableFuture<CU16BusSnapshot> getAllBoardsStatusAsync() {
+        return hardware.getAllBoardsStatusAsync(boards.size());
+    }
+
+    /** Circuit-breaker state of the machine's boards, e.g. to grey out doors on a dead board. */
+    public CU16Health getHealth() {
+        return hardware.getHealth();
+    }
+
+    public boolean isBoardAvailable(DoorEntity door) {
+        return hardware.getHealth().isAvailable(door.getCuId());
+    }
+
+    /** Current latency numbers per stage, board and command, e.g. for a diagnostics screen. */
+    public CU16Metrics.Snapshot getMetricsSnapshot() {
+        return hardware.getMetrics().snapshot(false);
+    }
+
+    public LockerMachine getMachine() {
+        return machine;
+    }
+
+    public CU16MachineService getHardware() {
+        return hardware;
+    }
+
+    public void shutdown() {
+        hardware.shutdown();
+    }
+
+    private void checkDoor(DoorEntity door) {
+        if (door.getLockerMachineId() != null && !door.getLockerMachineId().equals(machine.getId())) {
+            throw new IllegalArgumentException("Door " + door.getLabel() + " belongs to another machine");
+        }
+    }
+}
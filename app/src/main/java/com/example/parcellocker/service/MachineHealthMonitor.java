@@ -0,0 +1,84 @@
+package com.example.parcellocker.service;
+
+import com.example.parcellocker.AppExecutors;
+import com.example.parcellocker.cu16.CU16CircuitBreaker;
+import com.example.parcellocker.cu16.CU16Health;
+import com.example.parcellocker.cu16.CU16MachineService;
+import com.example.parcellocker.db.dao.LockerMachineDao;
+
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Mirrors the CU16 boards' circuit breakers into locker_machines.is_online.
+ *
+ * Every breaker transition takes a {@link CU16Health} snapshot; the machine row is
+ * only written when the machine as a whole flips between online (some board
+ * answers) and offline (every known board is open). Writes happen on the
+ * shared database writer, never on the I/O thread that completed the command;
+ * listeners are notified on the io pool, so they never hold up a write.
+ */
+public class MachineHealthMonitor implements CU16CircuitBreaker.Listener {
+
+    /** Notified on the io pool after every breaker transition. */
+    public interface Listener {
+        void onHealthChanged(CU16Health health);
+    }
+
+    private final CU16MachineService hardware;
+    private final LockerMachineDao lockerMachineDao;
+    private final UUID lockerMachineId;
+    private final ExecutorService writer;
+    private final ExecutorService notifier;
+
+    private volatile Listener listener;
+    private Boolean lastOnline; // writer thread only
+
+    public MachineHealthMonitor(CU16MachineService hardware, LockerMachineDao lockerMachineDao, UUID lockerMachineId) {
+        this(hardware, lockerMachineDao, lockerMachineId, AppExecutors.get());
+    }
+
+    public MachineHealthMonitor(CU16MachineService hardware, LockerMachineDao lockerMachineDao, UUID lockerMachineId,
+                                AppExecutors executors) {
+        this.hardware = hardware;
+        this.lockerMachineDao = lockerMachineDao;
+        this.lockerMachineId = lockerMachineId;
+        this.writer = executors.diskWrite();
+        this.notifier = executors.io();
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public void start() {
+        hardware.getCircuitBreaker().setListener(this);
+    }
+
+    public void shutdown() {
+        hardware.getCircuitBreaker().setListener(null);
+    }
+
+    public CU16Health getHealth() {
+        return hardware.getHealth();
+    }
+
+    @Override
+    public void onStateChanged(int cuId, CU16CircuitBreaker.State from, CU16CircuitBreaker.State to) {
+        CU16Health health = hardware.getHealth();
+        writer.execute(() -> record(health));
+        Listener l = listener;
+        if (l != null) notifier.execute(() -> l.onHealthChanged(health));
+    }
+
+    private void record(CU16Health health) {
+        boolean online = health.isMachineOnline();
+        if (lastOnline != null && lastOnline == online) return;
+        try {
+            lockerMachineDao.updateOnlineStatus(lockerMachineId, online, health.getTimestamp());
+            lastOnline = online;
+        } catch (Exception e) {
+            System.err.println("Machine online status update failed: " + e.getMessage());
+        }
+    }
+}
@@ -5,8 +5,8 @@ import android.content.Context;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
+import com.example.parcellocker.AppExecutors;
 import com.example.parcellocker.db.repository.*;
 import com.example.parcellocker.db.entities.*;
 
@@ -15,7 +15,7 @@ public class SyncService {
     private static final long OFFLINE_SYNC_INTERVAL = 15 * 60 * 1000; // 15 minutes
     private boolean isOnlineMode = false;
     private Timer syncTimer;
-    private ExecutorService executor;
+    private ExecutorService executor; // shared io pool, not ours to shut down
 
     private PackageRepository packageRepository;
     private PaymentRepository paymentRepository;
@@ -24,11 +24,22 @@ public class SyncService {
 
     public SyncService(Context context) {
         this.context = context;
-        this.executor = Executors.newFixedThreadPool(2);
+        this.executor = AppExecutors.get().io();
         initializeRepositories();
         initializeSyncService();
     }
 
+    /** Uses the caller's repositories instead of building a second set. */
+    public SyncService(Context context, AppExecutors executors, PackageRepository packageRepository,
+                       PaymentRepository paymentRepository, AuditLogRepository auditLogRepository) {
+        this.context = context;
+        this.executor = executors.io();
+        this.packageRepository = packageRepository;
+        this.paymentRepository = paymentRepository;
+        this.auditLogRepository = auditLogRepository;
+        initializeSyncService();
+    }
+
     private void initializeRepositories() {
         if (context instanceof Application) {
             Application app = (Application) context;
@@ -98,6 +109,8 @@ public class SyncService {
                     // Sync to cloud API immediately
                     boolean success = syncPackageToCloud(pkg);
                     if (success && packageRepository != null) {
+                        // If this write fails it is logged by the writer, and the package stays
+                        // pending until the next full sync.
                         packageRepository.updateSyncStatus(pkg.getId(), "synced");
                     }
                 } catch (Exception e) {
@@ -197,9 +210,6 @@ public class SyncService {
         if (syncTimer != null) {
             syncTimer.cancel();
         }
-        if (executor != null) {
-            executor.shutdown();
-        }
     }
 
     // Getters for status monitoring
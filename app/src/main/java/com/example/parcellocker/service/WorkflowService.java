@@ -4,7 +4,11 @@ import android.content.Context;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
+import com.example.parcellocker.AppExecutors;
+import com.example.parcellocker.cu16.CU16Futures;
+import com.example.parcellocker.db.MachineDatabase;
 import com.example.parcellocker.db.repository.*;
 import com.example.parcellocker.db.entities.*;
 
@@ -14,6 +18,10 @@ import com.example.parcellocker.db.entities.*;
  * - Algeria-specific payment processing (DZD currency)
  * - Pre-assigned door validation
  * - Insufficient payment handling (return all money)
+ *
+ * Delivery, collection and return read and write through the repositories'
+ * futures and complete with their result once the writes are committed; a
+ * failed read or write comes back as an unsuccessful result.
  */
 public class WorkflowService {
 
@@ -25,93 +33,97 @@ public class WorkflowService {
     private SyncService syncService;
 
     public WorkflowService(Context context) {
-        // Initialize repositories and sync service
-        // In real implementation, these would be dependency injected
-        this.syncService = new SyncService(context);
+        this(context, MachineDatabase.getInstance(context), AppExecutors.get());
     }
 
-    // CORRECTED: Delivery workflow with package reference + PIN + pre-assigned door
-    public DeliveryResult processDelivery(String packageReference, String deliveryPin, UUID deliveryPersonId) {
-        try {
-            // Step 1: Authenticate with package reference + delivery PIN
-            Package pkg = packageRepository.authenticateDeliveryPin(packageReference, deliveryPin);
-
-            if (pkg == null) {
-                return new DeliveryResult(false, "Invalid package reference or delivery PIN");
-            }
-
-            // Step 2: Validate door is pre-assigned by backoffice
-            if (!pkg.hasDoorAssigned()) {
-                return new DeliveryResult(false, "Door assignment error. Please contact support.");
-            }
-
-            DoorEntity assignedDoor = doorRepository.getById(pkg.getDoorId());
-            if (assignedDoor == null) {
-                return new DeliveryResult(false, "Assigned door not found. Please contact support.");
-            }
-
-            // Step 3: Complete delivery using pre-assigned door
-            packageRepository.markAsDelivered(pkg.getId(), deliveryPersonId);
-
-            // Update door status
-            assignedDoor.setIsOccupied(true);
-            doorRepository.update(assignedDoor);
-
-            // Create audit log
-            createAuditLog("Package", pkg.getId(), "deliver", deliveryPersonId,
-                          Map.of("door_id", assignedDoor.getId().toString(),
-                                 "tracking_number", pkg.getTrackingNumber()));
-
-            // Sync immediately if online
-            syncService.syncPackageImmediately(pkg);
-
-            return new DeliveryResult(true,
-                "Package delivered successfully to compartment " + assignedDoor.getLabel() +
-                ". 72-hour pickup timer started.");
+    /** Builds the repositories once on the shared executors and hands them to the sync service too. */
+    public WorkflowService(Context context, MachineDatabase database, AppExecutors executors) {
+        this.packageRepository = new PackageRepository(database, executors);
+        this.paymentRepository = new PaymentRepository(database, executors);
+        this.doorRepository = new DoorRepository(database, executors);
+        this.userRepository = new UserRepository(database, executors);
+        this.auditLogRepository = new AuditLogRepository(database, executors);
+        this.syncService = new SyncService(context, executors, packageRepository, paymentRepository, auditLogRepository);
+    }
 
-        } catch (Exception e) {
-            return new DeliveryResult(false, "Delivery failed: " + e.getMessage());
-        }
+    // CORRECTED: Delivery workflow with package reference + PIN + pre-assigned door
+    public CompletableFuture<DeliveryResult> processDeliveryAsync(String packageReference, String deliveryPin,
+                                                                  UUID deliveryPersonId) {
+        // Step 1: Authenticate with package reference + delivery PIN
+        return packageRepository.authenticateDeliveryPinAsync(packageReference, deliveryPin)
+                .thenCompose(pkg -> {
+                    if (pkg == null) {
+                        return done(new DeliveryResult(false, "Invalid package reference or delivery PIN"));
+                    }
+
+                    // Step 2: Validate door is pre-assigned by backoffice
+                    if (!pkg.hasDoorAssigned()) {
+                        return done(new DeliveryResult(false, "Door assignment error. Please contact support."));
+                    }
+
+                    return doorRepository.getByIdAsync(pkg.getDoorId()).thenCompose(assignedDoor -> {
+                        if (assignedDoor == null) {
+                            return done(new DeliveryResult(false, "Assigned door not found. Please contact support."));
+                        }
+
+                        // Step 3: Complete delivery using pre-assigned door and update door status
+                        assignedDoor.setIsOccupied(true);
+                        return CompletableFuture.allOf(
+                                packageRepository.markAsDelivered(pkg.getId(), deliveryPersonId),
+                                doorRepository.update(assignedDoor))
+                                .thenApply(ignored -> {
+                                    // Create audit log
+                                    createAuditLog("Package", pkg.getId(), "deliver", deliveryPersonId,
+                                                  Map.of("door_id", assignedDoor.getId().toString(),
+                                                         "tracking_number", pkg.getTrackingNumber()));
+
+                                    // Sync immediately if online
+                                    syncService.syncPackageImmediately(pkg);
+
+                                    return new DeliveryResult(true,
+                                        "Package delivered successfully to compartment " + assignedDoor.getLabel() +
+                                        ". 72-hour pickup timer started.");
+                                });
+                    });
+                })
+                .exceptionally(e -> new DeliveryResult(false, "Delivery failed: " + CU16Futures.unwrap(e).getMessage()));
     }
 
     // CORRECTED: Client collection workflow with package reference + PIN + Algeria payment
-    public CollectionResult processCollection(String packageReference, String clientPin) {
-        try {
-            // Step 1: Authenticate with package reference + client PIN
-            Package pkg = packageRepository.authenticateClientPin(packageReference, clientPin);
-
-            if (pkg == null) {
-                return new CollectionResult(false, "Invalid package reference or collection PIN");
-            }
-
-            if (pkg.isExpired()) {
-                return new CollectionResult(false, "Package has expired. Please contact customer service.");
-            }
-
-            // Step 2: Check if payment is required
-            Payment existingPayment = paymentRepository.getPaidPaymentForPackage(pkg.getId());
-
-            if (existingPayment == null) {
-                // Payment required - return payment options based on internet connectivity
-                boolean hasInternet = paymentRepository.isOnlinePaymentAvailable();
-
-                PaymentOptionsResult paymentOptions = new PaymentOptionsResult();
-                paymentOptions.hasInternet = hasInternet;
-                paymentOptions.cashAvailable = true;
-                paymentOptions.onlineAvailable = hasInternet;
-                paymentOptions.message = hasInternet ?
-                    "Payment required. Choose: Cash or Online Payment" :
-                    "Payment required. Only Cash payment available (no internet connection)";
-
-                return new CollectionResult(false, "Payment required", paymentOptions);
-            }
-
-            // Step 3: Payment completed - proceed with collection
-            return completePackageCollection(pkg);
-
-        } catch (Exception e) {
-            return new CollectionResult(false, "Collection failed: " + e.getMessage());
-        }
+    public CompletableFuture<CollectionResult> processCollectionAsync(String packageReference, String clientPin) {
+        // Step 1: Authenticate with package reference + client PIN
+        return packageRepository.authenticateClientPinAsync(packageReference, clientPin)
+                .thenCompose(pkg -> {
+                    if (pkg == null) {
+                        return done(new CollectionResult(false, "Invalid package reference or collection PIN"));
+                    }
+
+                    if (pkg.isExpired()) {
+                        return done(new CollectionResult(false, "Package has expired. Please contact customer service."));
+                    }
+
+                    // Step 2: Check if payment is required
+                    return paymentRepository.getPaidPaymentForPackageAsync(pkg.getId()).thenCompose(existingPayment -> {
+                        if (existingPayment == null) {
+                            // Payment required - return payment options based on internet connectivity
+                            boolean hasInternet = paymentRepository.isOnlinePaymentAvailable();
+
+                            PaymentOptionsResult paymentOptions = new PaymentOptionsResult();
+                            paymentOptions.hasInternet = hasInternet;
+                            paymentOptions.cashAvailable = true;
+                            paymentOptions.onlineAvailable = hasInternet;
+                            paymentOptions.message = hasInternet ?
+                                "Payment required. Choose: Cash or Online Payment" :
+                                "Payment required. Only Cash payment available (no internet connection)";
+
+                            return done(new CollectionResult(false, "Payment required", paymentOptions));
+                        }
+
+                        // Step 3: Payment completed - proceed with collection
+                        return completePackageCollection(pkg, existingPayment);
+                    });
+                })
+                .exceptionally(e -> new CollectionResult(false, "Collection failed: " + CU16Futures.unwrap(e).getMessage()));
     }
 
     // CORRECTED: Cash payment processing with Algeria DZD and insufficient payment handling
@@ -208,76 +220,79 @@ public class WorkflowService {
     }
 
     // CORRECTED: Return workflow with assigned staff
-    public ReturnResult processReturn(String packageReference, String returnPin, UUID returnStaffId) {
-        try {
-            // Step 1: Authenticate with package reference + return PIN
-            Package pkg = packageRepository.authenticateReturnPin(packageReference, returnPin);
-
-            if (pkg == null) {
-                return new ReturnResult(false, "Invalid package reference or return PIN");
-            }
-
-            // Step 2: Complete return process
-            DoorEntity door = doorRepository.getById(pkg.getDoorId());
-            if (door == null) {
-                return new ReturnResult(false, "Door not found for package");
-            }
-
-            // Mark package as returned and track who returned it
-            packageRepository.markAsReturned(pkg.getId(), returnStaffId);
-
-            // Update door status - now available
-            door.setIsOccupied(false);
-            doorRepository.update(door);
-
-            // Create audit log
-            User returnStaff = userRepository.getById(returnStaffId);
-            createAuditLog("Package", pkg.getId(), "return", returnStaffId,
-                          Map.of("door_id", door.getId().toString(),
-                                 "return_reason", "expired",
-                                 "staff_name", returnStaff != null ? returnStaff.getName() : "Unknown",
-                                 "expiry_time", pkg.getExpiryTimestamp().toString()));
-
-            // Sync immediately if online
-            syncService.syncPackageImmediately(pkg);
-
-            return new ReturnResult(true,
-                "Package returned to backoffice successfully by " +
-                (returnStaff != null ? returnStaff.getName() : "staff"));
-
-        } catch (Exception e) {
-            return new ReturnResult(false, "Return failed: " + e.getMessage());
-        }
+    public CompletableFuture<ReturnResult> processReturnAsync(String packageReference, String returnPin,
+                                                              UUID returnStaffId) {
+        // Step 1: Authenticate with package reference + return PIN
+        return packageRepository.authenticateReturnPinAsync(packageReference, returnPin)
+                .thenCompose(pkg -> {
+                    if (pkg == null) {
+                        return done(new ReturnResult(false, "Invalid package reference or return PIN"));
+                    }
+
+                    // Step 2: Complete return process
+                    return doorRepository.getByIdAsync(pkg.getDoorId()).thenCompose(door -> {
+                        if (door == null) {
+                            return done(new ReturnResult(false, "Door not found for package"));
+                        }
+
+                        // Mark package as returned and track who returned it; door is now available
+                        door.setIsOccupied(false);
+                        return CompletableFuture.allOf(
+                                packageRepository.markAsReturned(pkg.getId(), returnStaffId),
+                                doorRepository.update(door))
+                                .thenCompose(ignored -> userRepository.getByIdAsync(returnStaffId))
+                                .thenApply(returnStaff -> {
+                                    // Create audit log
+                                    createAuditLog("Package", pkg.getId(), "return", returnStaffId,
+                                                  Map.of("door_id", door.getId().toString(),
+                                                         "return_reason", "expired",
+                                                         "staff_name", returnStaff != null ? returnStaff.getName() : "Unknown",
+                                                         "expiry_time", pkg.getExpiryTimestamp().toString()));
+
+                                    // Sync immediately if online
+                                    syncService.syncPackageImmediately(pkg);
+
+                                    return new ReturnResult(true,
+                                        "Package returned to backoffice successfully by " +
+                                        (returnStaff != null ? returnStaff.getName() : "staff"));
+                                });
+                    });
+                })
+                .exceptionally(e -> new ReturnResult(false, "Return failed: " + CU16Futures.unwrap(e).getMessage()));
     }
 
     // Helper methods
-    private CollectionResult completePackageCollection(Package pkg) {
-        try {
-            DoorEntity door = doorRepository.getById(pkg.getDoorId());
-            if (door == null) {
-                return new CollectionResult(false, "Door not found for package");
-            }
-
-            // Mark package as picked and door as available
-            packageRepository.markAsPicked(pkg.getId());
-            door.setIsOccupied(false);
-            doorRepository.update(door);
-
-            // Create audit log
-            Payment completedPayment = paymentRepository.getPaidPaymentForPackage(pkg.getId());
-            createAuditLog("Package", pkg.getId(), "collect", null,
-                          Map.of("door_id", door.getId().toString(),
-                                 "payment_method", completedPayment != null ? completedPayment.getPaymentMethod() : "none"));
-
-            // Sync immediately if online
-            syncService.syncPackageImmediately(pkg);
-
-            return new CollectionResult(true,
-                "Payment successful! Package collected from compartment " + door.getLabel());
+    private CompletableFuture<CollectionResult> completePackageCollection(Package pkg, Payment completedPayment) {
+        return doorRepository.getByIdAsync(pkg.getDoorId())
+                .thenCompose(door -> {
+                    if (door == null) {
+                        return done(new CollectionResult(false, "Door not found for package"));
+                    }
+
+                    // Mark package as picked and door as available
+                    door.setIsOccupied(false);
+                    return CompletableFuture.allOf(
+                            packageRepository.markAsPicked(pkg.getId()),
+                            doorRepository.update(door))
+                            .thenApply(ignored -> {
+                                // Create audit log
+                                createAuditLog("Package", pkg.getId(), "collect", null,
+                                              Map.of("door_id", door.getId().toString(),
+                                                     "payment_method", completedPayment.getPaymentMethod()));
+
+                                // Sync immediately if online
+                                syncService.syncPackageImmediately(pkg);
+
+                                return new CollectionResult(true,
+                                    "Payment successful! Package collected from compartment " + door.getLabel());
+                            });
+                })
+                .exceptionally(e -> new CollectionResult(false,
+                        "Collection completion failed: " + CU16Futures.unwrap(e).getMessage()));
+    }
 
-        } catch (Exception e) {
-            return new CollectionResult(false, "Collection completion failed: " + e.getMessage());
-        }
+    private static <T> CompletableFuture<T> done(T result) {
+        return CompletableFuture.completedFuture(result);
     }
 
     private void createAuditLog(String entityType, UUID entityId, String action, UUID userId, Map<String, Object> details) {
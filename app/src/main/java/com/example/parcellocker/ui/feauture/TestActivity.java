@@ -13,7 +13,10 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.parcellocker.R;
 import com.example.parcellocker.cu16.CU16Client;
+import com.example.parcellocker.cu16.CU16Futures;
 import com.example.parcellocker.cu16.CU16Service;
+import com.example.parcellocker.cu16.CU16Simulator;
+import com.example.parcellocker.cu16.HardwareMock;
 import com.example.parcellocker.db.dao.DoorDao;
 import com.example.parcellocker.db.entities.DoorEntity;
 import com.example.parcellocker.db.MachineDatabase;
@@ -29,7 +32,12 @@ import java.util.concurrent.Executors;
 
 public class TestActivity extends AppCompatActivity {
 
+    // Talk to an in-process CU16Simulator instead of the BU on the host.
+    private static final boolean USE_LOCAL_SIMULATOR = false;
+    private static final int BU_PORT = 3133;
+
     private CU16Service cu16Service;
+    private CU16Simulator simulator;
     private DoorDao doorDao;
     private ExecutorService exec = Executors.newSingleThreadExecutor();
     private DoorListAdapter adapter;
@@ -45,7 +53,21 @@ public class TestActivity extends AppCompatActivity {
         seedIfEmpty();
 
         // ✅ Init CU16 service (simulator endpoint)
-        CU16Client client = new CU16Client("172.22.7.31", 3133); // Emulator → Host
+        CU16Client client;
+        if (USE_LOCAL_SIMULATOR) {
+            simulator = new CU16Simulator(new HardwareMock());
+            simulator.setLatency(5, 10);
+            exec.submit(() -> {
+                try {
+                    simulator.start(BU_PORT);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            });
+            client = new CU16Client("127.0.0.1", BU_PORT);
+        } else {
+            client = new CU16Client("172.22.7.31", BU_PORT); // Emulator → Host
+        }
         cu16Service = new CU16Service(client, 0);
 
         // ✅ RecyclerView setup
@@ -65,13 +87,13 @@ public class TestActivity extends AppCompatActivity {
         // ✅ Unlock All button
         Button btnAll = findViewById(R.id.btn_unlock_all);
         btnAll.setOnClickListener(v -> {
-            exec.submit(() -> {
-                try {
-                    cu16Service.unlockAllAsync().get();
+            cu16Service.unlockAllAsync().whenComplete((status, error) -> {
+                if (error == null) {
                     runOnUiThread(() ->
                             Toast.makeText(this, "Unlock all command sent", Toast.LENGTH_SHORT).show()
                     );
-                } catch (Exception ex) {
+                } else {
+                    Throwable ex = CU16Futures.unwrap(error);
                     ex.printStackTrace();
                     runOnUiThread(() ->
                             Toast.makeText(this, "Error: " + ex.getMessage(), Toast.LENGTH_LONG).show()
@@ -81,6 +103,13 @@ public class TestActivity extends AppCompatActivity {
         });
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        cu16Service.shutdown();
+        if (simulator != null) simulator.close();
+    }
+
     // ✅ Seed database with default doors if empty
     private void seedIfEmpty() {
         exec.submit(() -> {
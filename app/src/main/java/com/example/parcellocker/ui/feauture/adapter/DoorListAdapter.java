@@ -12,17 +12,14 @@ import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.parcellocker.R;
+import com.example.parcellocker.cu16.CU16Futures;
 import com.example.parcellocker.cu16.CU16Service;
 import com.example.parcellocker.db.entities.DoorEntity;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
 
 public class DoorListAdapter extends ListAdapter<DoorEntity, DoorListAdapter.DoorViewHolder> {
 
     private final CU16Service cu16Service;
-    private final ExecutorService executor = Executors.newSingleThreadExecutor();
 
     public DoorListAdapter(CU16Service cu16Service) {
         super(DIFF_CALLBACK);
@@ -58,18 +55,18 @@ public class DoorListAdapter extends ListAdapter<DoorEntity, DoorListAdapter.Doo
 
         // Add click listener to unlock the door
         holder.itemView.setOnClickListener(v -> {
-            executor.submit(() -> {
-                try {
-                    cu16Service.unlockDoorAsync(door.doorIndex).get();
+            cu16Service.unlockDoorAsync(door.doorIndex).whenComplete((status, error) -> {
+                if (error == null) {
                     holder.itemView.post(() ->
                             Toast.makeText(holder.itemView.getContext(),
                                     "Door " + (door.doorIndex + 1) + " unlocked",
                                     Toast.LENGTH_SHORT).show()
                     );
-                } catch (Exception e) {
+                } else {
+                    Throwable cause = CU16Futures.unwrap(error);
                     holder.itemView.post(() ->
                             Toast.makeText(holder.itemView.getContext(),
-                                    "Error unlocking door: " + e.getMessage(),
+                                    "Error unlocking door: " + cause.getMessage(),
                                     Toast.LENGTH_LONG).show()
                     );
                 }
@@ -0,0 +1,203 @@
+package com.example.parcellocker.cu16;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.example.parcellocker.cu16.CU16CircuitBreaker.State.CLOSED;
+import static com.example.parcellocker.cu16.CU16CircuitBreaker.State.HALF_OPEN;
+import static com.example.parcellocker.cu16.CU16CircuitBreaker.State.OPEN;
+import static org.junit.Assert.*;
+
+public class CU16CircuitBreakerTest {
+
+    private static final int CU = 3;
+    private static final Pattern RETRY_IN = Pattern.compile("retrying in (\\d+) ms");
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final CU16CircuitBreaker breaker = new CU16CircuitBreaker(now::get);
+
+    @Test
+    public void opensAfterThreeConsecutiveFailures() {
+        breaker.record(CU, new TimeoutException());
+        breaker.record(CU, new IOException("reset"));
+        assertEquals(CLOSED, breaker.state(CU));
+        assertNull(breaker.check(CU));
+
+        breaker.record(CU, new CompletionException(new TimeoutException()));
+        assertEquals(OPEN, breaker.state(CU));
+        assertNotNull(breaker.check(CU));
+        assertNull(breaker.check(CU + 1));
+    }
+
+    @Test
+    public void successResetsTheFailureCount() {
+        breaker.onFailure(CU);
+        breaker.onFailure(CU);
+        breaker.onSuccess(CU);
+        breaker.onFailure(CU);
+        breaker.onFailure(CU);
+        assertEquals(CLOSED, breaker.state(CU));
+        assertEquals(2, breaker.snapshot().consecutiveFailures(CU));
+    }
+
+    @Test
+    public void errorsThatSayNothingAboutTheBoardDoNotCount() {
+        for (int i = 0; i < 5; i++) breaker.record(CU, new IllegalStateException("bad frame"));
+        assertEquals(CLOSED, breaker.state(CU));
+    }
+
+    @Test
+    public void halfOpenLetsOneCommandThrough() {
+        open();
+        now.addAndGet(2_000);
+
+        assertNull(breaker.check(CU));
+        assertEquals(HALF_OPEN, breaker.state(CU));
+        assertTrue(breaker.check(CU).getMessage().contains("probe in progress"));
+
+        breaker.record(CU, null);
+        assertEquals(CLOSED, breaker.state(CU));
+        assertNull(breaker.check(CU));
+    }
+
+    @Test
+    public void irrelevantErrorReleasesTheHalfOpenSlot() {
+        open();
+        now.addAndGet(2_000);
+        assertNull(breaker.check(CU));
+
+        breaker.record(CU, new IllegalStateException("bus closed"));
+        assertEquals(HALF_OPEN, breaker.state(CU));
+        assertNull(breaker.check(CU));
+    }
+
+    @Test
+    public void openIntervalDoublesUpToSixtySeconds() {
+        open();
+        assertEquals(2_000, retryInMs());
+
+        List<Long> intervals = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            now.addAndGet(retryInMs());
+            assertNull(breaker.check(CU));
+            breaker.record(CU, new TimeoutException());
+            assertEquals(OPEN, breaker.state(CU));
+            intervals.add(retryInMs());
+        }
+        assertEquals(Arrays.asList(4_000L, 8_000L, 16_000L, 32_000L, 60_000L, 60_000L, 60_000L), intervals);
+    }
+
+    @Test
+    public void closingResetsTheInterval() {
+        open();
+        now.addAndGet(2_000);
+        breaker.check(CU);
+        breaker.onFailure(CU);
+        assertEquals(4_000, retryInMs());
+
+        now.addAndGet(4_000);
+        breaker.check(CU);
+        breaker.onSuccess(CU);
+        open();
+        assertEquals(2_000, retryInMs());
+    }
+
+    @Test
+    public void stragglerFailureWhileOpenChangesNothing() {
+        List<String> changes = recordChanges();
+        open();
+        now.addAndGet(500);
+        breaker.onFailure(CU);
+
+        assertEquals(1_500, retryInMs());
+        assertEquals(Arrays.asList("CLOSED->OPEN"), changes);
+    }
+
+    @Test
+    public void listenerSeesEveryTransition() {
+        List<String> changes = recordChanges();
+        open();
+        now.addAndGet(2_000);
+        breaker.check(CU);
+        breaker.onFailure(CU);
+        now.addAndGet(4_000);
+        breaker.check(CU);
+        breaker.onSuccess(CU);
+        breaker.onSuccess(CU);
+
+        assertEquals(Arrays.asList("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->OPEN",
+                "OPEN->HALF_OPEN", "HALF_OPEN->CLOSED"), changes);
+    }
+
+    @Test
+    public void proberIsCalledOnceTheIntervalEnds() throws Exception {
+        CU16CircuitBreaker real = new CU16CircuitBreaker();
+        real.setOpenInterval(20, 100);
+        CountDownLatch probed = new CountDownLatch(1);
+        AtomicInteger probedCu = new AtomicInteger(-1);
+        real.setProber(cuId -> {
+            probedCu.set(cuId);
+            assertNull(real.check(cuId));
+            real.record(cuId, null);
+            probed.countDown();
+            return CompletableFuture.completedFuture(null);
+        });
+        for (int i = 0; i < 3; i++) real.onFailure(CU);
+        assertEquals(OPEN, real.state(CU));
+
+        assertTrue(probed.await(2, TimeUnit.SECONDS));
+        assertEquals(CU, probedCu.get());
+        assertEquals(CLOSED, real.state(CU));
+    }
+
+    @Test
+    public void noProbeForABoardThatRecoveredMeanwhile() throws Exception {
+        CU16CircuitBreaker real = new CU16CircuitBreaker();
+        real.setOpenInterval(20, 100);
+        AtomicInteger probes = new AtomicInteger();
+        real.setProber(cuId -> {
+            probes.incrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        });
+        for (int i = 0; i < 3; i++) real.onFailure(CU);
+        real.onSuccess(CU);
+
+        Thread.sleep(150);
+        assertEquals(0, probes.get());
+    }
+
+    private void open() {
+        for (int i = 0; i < 3; i++) breaker.onFailure(CU);
+        assertEquals(OPEN, breaker.state(CU));
+    }
+
+    private long retryInMs() {
+        IOException offline = breaker.check(CU);
+        assertNotNull(offline);
+        Matcher m = RETRY_IN.matcher(offline.getMessage());
+        assertTrue(offline.getMessage(), m.find());
+        return Long.parseLong(m.group(1));
+    }
+
+    private List<String> recordChanges() {
+        List<String> changes = new ArrayList<>();
+        breaker.setListener((cuId, from, to) -> {
+            assertEquals(CU, cuId);
+            changes.add(from + "->" + to);
+        });
+        return changes;
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.parcellocker.cu16;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CU16FrameDecoderTest {
+
+    private static final byte ADDR = CU16PacketBuilder.makeAddr(1, 0);
+
+    private final byte[] frame = new byte[CU16FrameDecoder.MAX_FRAME];
+
+    @Test
+    public void waitsForTheRestOfASplitFrame() {
+        CU16FrameDecoder decoder = new CU16FrameDecoder();
+        byte[] status = statusFrame(ADDR, 0xFFFE, 0x0001);
+
+        decoder.feed(status, 0, 4);
+        assertEquals(0, decoder.nextFrame(frame));
+        assertEquals(4, decoder.buffered());
+        decoder.feed(status, 4, 4);
+        assertEquals(0, decoder.nextFrame(frame));
+        decoder.feed(status, 8, 1);
+
+        assertEquals(9, decoder.nextFrame(frame));
+        assertArrayEquals(status, copy(frame, 9));
+        assertEquals(0, decoder.buffered());
+        assertEquals(0, decoder.droppedBytes());
+    }
+
+    @Test
+    public void returnsEveryFrameOfOneRead() {
+        CU16FrameDecoder decoder = new CU16FrameDecoder();
+        byte[] first = statusFrame(ADDR, 0x00FF, 0);
+        byte[] second = unlockTimeFrame(ADDR, 600);
+        decoder.feed(concat(first, second), 0, first.length + second.length);
+
+        assertEquals(9, decoder.nextFrame(frame));
+        assertArrayEquals(first, copy(frame, 9));
+        assertEquals(7, decoder.nextFrame(frame));
+        assertArrayEquals(second, copy(frame, 7));
+        assertEquals(0, decoder.nextFrame(frame));
+    }
+
+    @Test
+    public void skipsJunkBeforeStx() {
+        CU16FrameDecoder decoder = new CU16FrameDecoder();
+        byte[] status = statusFrame(ADDR, 0x1234, 0x0F0F);
+        byte[] junk = {0x55, (byte) 0xAA, CU16Commands.ETX, 0x00};
+        decoder.feed(concat(junk, status), 0, junk.length + status.length);
+
+        assertEquals(9, decoder.nextFrame(frame));
+        assertArrayEquals(status, copy(frame, 9));
+        assertEquals(junk.length, decoder.droppedBytes());
+    }
+
+    @Test
+    public void dropsAFrameWithABadChecksumAndResyncs() {
+        CU16FrameDecoder decoder = new CU16FrameDecoder();
+        byte[] bad = statusFrame(ADDR, 0xFFFF, 0);
+        bad[8]++;
+        byte[] good = statusFrame(ADDR, 0xFFFE, 0);
+        decoder.feed(concat(bad, good), 0, bad.length + good.length);
+
+        assertEquals(9, decoder.nextFrame(frame));
+        assertArrayEquals(good, copy(frame, 9));
+        assertEquals(bad.length, decoder.droppedBytes());
+    }
+
+    @Test
+    public void decodesFramesAcrossTheEndOfTheRing() {
+        CU16FrameDecoder decoder = new CU16FrameDecoder(32);
+        // 9 does not divide 32, so frames keep landing across the wrap at different offsets.
+        for (int i = 0; i < 40; i++) {
+            byte[] status = statusFrame(ADDR, i, ~i);
+            decoder.feed(status, 0, 5);
+            assertEquals(0, decoder.nextFrame(frame));
+            decoder.feed(status, 5, 4);
+            assertEquals(9, decoder.nextFrame(frame));
+            assertArrayEquals(status, copy(frame, 9));
+        }
+        assertEquals(0, decoder.droppedBytes());
+    }
+
+    @Test
+    public void overflowDropsTheOldestBytes() {
+        CU16FrameDecoder decoder = new CU16FrameDecoder(32);
+        byte[] four = new byte[36];
+        for (int i = 0; i < 4; i++) System.arraycopy(statusFrame(ADDR, i, 0), 0, four, i * 9, 9);
+        decoder.feed(four, 0, four.length);
+
+        assertEquals(4, decoder.droppedBytes());
+        assertEquals(9, decoder.nextFrame(frame));
+        assertEquals(1, CU16StatusWord.lockedMask(CU16Parser.parseStatusWord(frame, 0)));
+        assertEquals(9, decoder.nextFrame(frame));
+        assertEquals(9, decoder.nextFrame(frame));
+        assertEquals(0, decoder.nextFrame(frame));
+    }
+
+    @Test
+    public void knowsTheLengthOfStatusAndUnlockTimeResponses() {
+        assertEquals(9, CU16FrameDecoder.expectedLength(CU16Commands.RESP_STATUS_SINGLE));
+        assertEquals(9, CU16FrameDecoder.expectedLength(CU16Commands.RESP_STATUS_ALL));
+        assertEquals(7, CU16FrameDecoder.expectedLength(CU16Commands.RESP_UNLOCK_TIME));
+        assertEquals(0, CU16FrameDecoder.expectedLength(CU16Commands.CMD_GET_STATUS));
+    }
+
+    @Test
+    public void unlockTimeFrameIsNotCutShortOrRunOn() {
+        CU16FrameDecoder decoder = new CU16FrameDecoder();
+        // 0x03 as the high value byte looks like an ETX at offset 4.
+        byte[] echo = unlockTimeFrame(ADDR, 0x0300 | 0x2C);
+        byte[] status = statusFrame(ADDR, 0, 0);
+        decoder.feed(concat(echo, status), 0, echo.length + status.length);
+
+        assertEquals(7, decoder.nextFrame(frame));
+        assertEquals(0x032C, CU16Parser.parseUnlockTime(frame, 0));
+        assertEquals(9, decoder.nextFrame(frame));
+        assertEquals(0, decoder.droppedBytes());
+    }
+
+    @Test
+    public void nextStatusWordSkipsOtherFrames() {
+        CU16FrameDecoder decoder = new CU16FrameDecoder();
+        byte[] echo = unlockTimeFrame(ADDR, 600);
+        byte[] status = statusFrame(ADDR, 0xFFF0, 0x0003);
+        decoder.feed(concat(echo, status), 0, echo.length + status.length);
+
+        long word = decoder.nextStatusWord(frame);
+        assertEquals(0xFFF0, CU16StatusWord.lockedMask(word));
+        assertEquals(0x0003, CU16StatusWord.occupiedMask(word));
+        assertEquals(CU16StatusWord.INVALID, decoder.nextStatusWord(frame));
+    }
+
+    static byte[] statusFrame(byte addr, int locked, int occupied) {
+        byte[] b = {CU16Commands.STX, addr, CU16Commands.RESP_STATUS_SINGLE,
+                (byte) locked, (byte) (locked >> 8), (byte) occupied, (byte) (occupied >> 8),
+                CU16Commands.ETX, 0};
+        int sum = 0;
+        for (int i = 0; i < 8; i++) sum += b[i] & 0xFF;
+        b[8] = (byte) sum;
+        return b;
+    }
+
+    static byte[] unlockTimeFrame(byte addr, int value) {
+        return CU16PacketBuilder.buildTwoData(addr, CU16Commands.RESP_UNLOCK_TIME, value);
+    }
+
+    static byte[] concat(byte[] a, byte[] b) {
+        byte[] out = new byte[a.length + b.length];
+        System.arraycopy(a, 0, out, 0, a.length);
+        System.arraycopy(b, 0, out, a.length, b.length);
+        return out;
+    }
+
+    private static byte[] copy(byte[] src, int len) {
+        byte[] out = new byte[len];
+        System.arraycopy(src, 0, out, 0, len);
+        return out;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.parcellocker.cu16;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CU16HistogramTest {
+
+    private static final long MAX_VALUE = (1L << 36) - 1;
+
+    @Test
+    public void smallValuesAreExact() {
+        for (long v = 0; v < 32; v++) {
+            assertEquals(v, CU16Histogram.bucket(v));
+            assertEquals(v, CU16Histogram.upperBound((int) v));
+        }
+    }
+
+    @Test
+    public void everyValueNearTheOctaveBoundariesIsCoveredWithinSixPercent() {
+        for (long v = 0; v <= 4096; v++) assertCovered(v);
+        for (int octave = 5; octave < 36; octave++) {
+            long edge = 1L << octave;
+            for (long v = Math.max(0, edge - 64); v <= edge + 64; v++) assertCovered(v);
+        }
+        assertCovered(31);
+        assertCovered(32);
+        assertCovered(63);
+        assertCovered(64);
+        assertCovered(MAX_VALUE);
+    }
+
+    @Test
+    public void bucketsAreContiguous() {
+        int last = CU16Histogram.bucket(MAX_VALUE);
+        assertTrue(last < CU16Histogram.BUCKETS);
+        for (int b = 0; b < last; b++) {
+            long upper = CU16Histogram.upperBound(b);
+            assertEquals(b, CU16Histogram.bucket(upper));
+            assertEquals(b + 1, CU16Histogram.bucket(upper + 1));
+        }
+        assertEquals(MAX_VALUE, CU16Histogram.upperBound(last));
+    }
+
+    @Test
+    public void valuesAboveTheRangeAreClamped() {
+        CU16Histogram histogram = new CU16Histogram();
+        histogram.recordMicros(Long.MAX_VALUE);
+        histogram.recordMicros(-5);
+
+        CU16Histogram.Snapshot snapshot = histogram.snapshot(false);
+        assertEquals(2, snapshot.getCount());
+        assertEquals(MAX_VALUE, snapshot.getMaxMicros());
+        assertEquals(0, snapshot.percentileMicros(50));
+        assertEquals(MAX_VALUE, snapshot.percentileMicros(100));
+    }
+
+    @Test
+    public void percentilesAreBoundedByTheMaximum() {
+        CU16Histogram histogram = new CU16Histogram();
+        for (int i = 1; i <= 100; i++) histogram.recordMicros(i * 1000L);
+
+        CU16Histogram.Snapshot snapshot = histogram.snapshot(false);
+        assertEquals(100, snapshot.getCount());
+        assertEquals(50_500, snapshot.getMeanMicros(), 0.001);
+        assertWithin(50_000, snapshot.percentileMicros(50));
+        assertWithin(99_000, snapshot.percentileMicros(99));
+        assertEquals(100_000, snapshot.percentileMicros(100));
+    }
+
+    @Test
+    public void snapshotWithResetStartsANewInterval() {
+        CU16Histogram histogram = new CU16Histogram();
+        histogram.recordMicros(40);
+        histogram.recordNanos(2_000_000);
+
+        CU16Histogram.Snapshot first = histogram.snapshot(true);
+        assertEquals(2, first.getCount());
+        assertEquals(2000, first.getMaxMicros());
+        assertEquals(0, histogram.count());
+
+        CU16Histogram.Snapshot empty = histogram.snapshot(false);
+        assertEquals(0, empty.getCount());
+        assertEquals(0, empty.getMaxMicros());
+        assertEquals(0, empty.getMeanMicros(), 0);
+        assertEquals(0, empty.percentileMicros(99));
+
+        histogram.recordMicros(7);
+        CU16Histogram.Snapshot second = histogram.snapshot(false);
+        assertEquals(1, second.getCount());
+        assertEquals(7, second.percentileMicros(100));
+        // Without reset the counters stay.
+        assertEquals(1, histogram.snapshot(false).getCount());
+    }
+
+    private static void assertCovered(long v) {
+        long upper = CU16Histogram.upperBound(CU16Histogram.bucket(v));
+        assertTrue("upper bound " + upper + " below " + v, upper >= v);
+        assertTrue("upper bound " + upper + " too far above " + v, upper - v <= v / 16);
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual + " not within 6% of " + expected, actual >= expected && actual - expected <= expected / 16);
+    }
+}
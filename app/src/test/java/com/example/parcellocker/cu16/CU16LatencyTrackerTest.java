@@ -0,0 +1,84 @@
+package com.example.parcellocker.cu16;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CU16LatencyTrackerTest {
+
+    private static final byte ADDR = CU16PacketBuilder.makeAddr(1, 3);
+    private static final byte STATUS = CU16Commands.CMD_GET_STATUS;
+    private static final byte UNLOCK = CU16Commands.CMD_UNLOCK_ONE;
+
+    private final CU16LatencyTracker tracker = new CU16LatencyTracker();
+
+    @Test
+    public void usesTheMaximumBeforeTheFirstSample() {
+        assertEquals(3000, tracker.timeoutMs(ADDR, STATUS));
+        assertEquals(-1, tracker.smoothedRttMicros(1, STATUS));
+    }
+
+    @Test
+    public void timeoutIsSrttPlusFourRttvar() {
+        tracker.record(ADDR, STATUS, ms(100));
+        // srtt 100, rttvar 50
+        assertEquals(300, tracker.timeoutMs(ADDR, STATUS));
+
+        tracker.record(ADDR, STATUS, ms(200));
+        // srtt 100 + 100/8 = 112.5, rttvar 50 + (100 - 50)/4 = 62.5
+        assertEquals(362, tracker.timeoutMs(ADDR, STATUS));
+        assertEquals(112_500, tracker.smoothedRttMicros(1, STATUS));
+        assertEquals(2, tracker.sampleCount(1, STATUS));
+    }
+
+    @Test
+    public void timeoutIsClampedToTheBounds() {
+        tracker.record(ADDR, STATUS, ms(10));
+        assertEquals(200, tracker.timeoutMs(ADDR, STATUS));
+
+        tracker.record(ADDR, UNLOCK, ms(2000));
+        assertEquals(3000, tracker.timeoutMs(ADDR, UNLOCK));
+    }
+
+    @Test
+    public void timeoutsDoubleTheNextDeadlineUpToTheMaximum() {
+        tracker.record(ADDR, STATUS, ms(100));
+        long[] expected = {600, 1200, 2400, 3000, 3000};
+        for (long e : expected) {
+            tracker.recordTimeout(ADDR, STATUS);
+            assertEquals(e, tracker.timeoutMs(ADDR, STATUS));
+        }
+
+        tracker.record(ADDR, STATUS, ms(100));
+        assertTrue(tracker.timeoutMs(ADDR, STATUS) < 600);
+    }
+
+    @Test
+    public void backoffStartsFromTheMinimum() {
+        tracker.record(ADDR, STATUS, ms(10));
+        tracker.recordTimeout(ADDR, STATUS);
+        assertEquals(400, tracker.timeoutMs(ADDR, STATUS));
+    }
+
+    @Test
+    public void boardsAndCommandsAreTrackedApart() {
+        tracker.record(ADDR, STATUS, ms(100));
+
+        assertEquals(3000, tracker.timeoutMs(ADDR, UNLOCK));
+        assertEquals(3000, tracker.timeoutMs(CU16PacketBuilder.makeAddr(2, 3), STATUS));
+        // Doors of one board share its figures.
+        assertEquals(300, tracker.timeoutMs(CU16PacketBuilder.makeAddr(1, 15), STATUS));
+    }
+
+    @Test
+    public void boundsAreConfigurable() {
+        tracker.setBounds(50, 500);
+        assertEquals(500, tracker.timeoutMs(ADDR, STATUS));
+        tracker.record(ADDR, STATUS, ms(5));
+        assertEquals(50, tracker.timeoutMs(ADDR, STATUS));
+    }
+
+    private static long ms(long millis) {
+        return millis * 1_000_000L;
+    }
+}
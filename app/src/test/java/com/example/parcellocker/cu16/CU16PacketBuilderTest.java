@@ -0,0 +1,89 @@
+package com.example.parcellocker.cu16;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class CU16PacketBuilderTest {
+
+    private static final int OFFSET = 11;
+
+    @Test
+    public void putSimpleMatchesBuildSimple() {
+        for (int a = 0; a < 256; a++) {
+            byte addr = (byte) a;
+            ByteBuffer buf = buffer();
+            assertEquals(CU16PacketBuilder.SIMPLE_LEN,
+                    CU16PacketBuilder.putSimple(buf, OFFSET, addr, CU16Commands.CMD_UNLOCK_ONE));
+            assertArrayEquals(CU16PacketBuilder.buildSimple(addr, CU16Commands.CMD_UNLOCK_ONE),
+                    written(buf, CU16PacketBuilder.SIMPLE_LEN));
+        }
+    }
+
+    @Test
+    public void putOneDataMatchesBuildOneData() {
+        byte addr = CU16PacketBuilder.makeAddr(3, 0);
+        for (int d = 0; d < 256; d++) {
+            ByteBuffer buf = buffer();
+            assertEquals(CU16PacketBuilder.ONE_DATA_LEN,
+                    CU16PacketBuilder.putOneData(buf, OFFSET, addr, CU16Commands.CMD_SET_DELAY_OR_BAUD, (byte) d));
+            assertArrayEquals(CU16PacketBuilder.buildOneData(addr, CU16Commands.CMD_SET_DELAY_OR_BAUD, (byte) d),
+                    written(buf, CU16PacketBuilder.ONE_DATA_LEN));
+        }
+    }
+
+    @Test
+    public void putTwoDataMatchesBuildTwoData() {
+        byte addr = CU16PacketBuilder.makeAddr(15, 15);
+        for (int value : new int[]{0, 1, 0x03, 0x0300, 0x7F, 0x80, 0xFF, 0x100, 600, 0xFFFF, 0x1FFFF, -1}) {
+            ByteBuffer buf = buffer();
+            assertEquals(CU16PacketBuilder.TWO_DATA_LEN,
+                    CU16PacketBuilder.putTwoData(buf, OFFSET, addr, CU16Commands.CMD_SET_UNLOCK_TIME, value));
+            assertArrayEquals(CU16PacketBuilder.buildTwoData(addr, CU16Commands.CMD_SET_UNLOCK_TIME, value),
+                    written(buf, CU16PacketBuilder.TWO_DATA_LEN));
+        }
+    }
+
+    @Test
+    public void putFrameCopiesThePrecomputedFrames() {
+        for (int a = 0; a < 256; a++) {
+            byte addr = (byte) a;
+            ByteBuffer buf = buffer();
+            assertEquals(5, CU16PacketBuilder.putFrame(buf, OFFSET, CU16PacketBuilder.getStatusFrame(addr)));
+            assertArrayEquals(CU16PacketBuilder.buildSimple(addr, CU16Commands.CMD_GET_STATUS), written(buf, 5));
+
+            buf = buffer();
+            assertEquals(5, CU16PacketBuilder.putFrame(buf, OFFSET, CU16PacketBuilder.unlockOneFrame(addr)));
+            assertArrayEquals(CU16PacketBuilder.buildSimple(addr, CU16Commands.CMD_UNLOCK_ONE), written(buf, 5));
+        }
+    }
+
+    @Test
+    public void putsLeavePositionAndNeighboursAlone() {
+        ByteBuffer buf = buffer();
+        buf.position(4);
+        int n = CU16PacketBuilder.putSimple(buf, OFFSET, (byte) 0x10, CU16Commands.CMD_GET_STATUS);
+        n += CU16PacketBuilder.putTwoData(buf, OFFSET + n, (byte) 0x10, CU16Commands.CMD_SET_UNLOCK_TIME, 600);
+
+        assertEquals(4, buf.position());
+        assertEquals(buf.capacity(), buf.limit());
+        assertEquals((byte) 0xEE, buf.get(OFFSET - 1));
+        assertEquals((byte) 0xEE, buf.get(OFFSET + n));
+        assertTrue(CU16Parser.validateChecksum(written(buf, 5)));
+    }
+
+    /** A buffer pre-filled with a marker so stray writes show up. */
+    private static ByteBuffer buffer() {
+        ByteBuffer buf = ByteBuffer.allocate(64);
+        for (int i = 0; i < buf.capacity(); i++) buf.put(i, (byte) 0xEE);
+        return buf;
+    }
+
+    private static byte[] written(ByteBuffer buf, int len) {
+        byte[] out = new byte[len];
+        for (int i = 0; i < len; i++) out[i] = buf.get(OFFSET + i);
+        return out;
+    }
+}
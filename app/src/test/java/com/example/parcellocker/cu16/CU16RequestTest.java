@@ -0,0 +1,60 @@
+package com.example.parcellocker.cu16;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CU16RequestTest {
+
+    private static final byte STATUS = CU16Commands.RESP_STATUS_SINGLE;
+
+    @Test
+    public void exactAddrWinsOverOlderRequestsOnTheCu() {
+        CU16Request status = request(2, 0, CU16Commands.CMD_GET_STATUS);
+        CU16Request unlock = request(2, 5, CU16Commands.CMD_UNLOCK_ONE);
+        List<CU16Request> inFlight = Arrays.asList(status, unlock);
+
+        assertSame(unlock, CU16Request.match(inFlight, CU16PacketBuilder.makeAddr(2, 5), STATUS));
+        assertSame(status, CU16Request.match(inFlight, CU16PacketBuilder.makeAddr(2, 0), STATUS));
+    }
+
+    @Test
+    public void lateAnswerForAnotherDoorDoesNotCompleteAnUnlock() {
+        // Door 3's unlock timed out and was dropped; its answer arrives while door 5's is in flight.
+        List<CU16Request> inFlight = Arrays.asList(request(2, 5, CU16Commands.CMD_UNLOCK_ONE));
+
+        assertNull(CU16Request.match(inFlight, CU16PacketBuilder.makeAddr(2, 3), STATUS));
+    }
+
+    @Test
+    public void wholeCuCommandsTakeAnyAnswerFromTheirCu() {
+        CU16Request unlockAll = request(2, 0, CU16Commands.CMD_UNLOCK_ALL);
+        List<CU16Request> inFlight = Arrays.asList(request(2, 5, CU16Commands.CMD_UNLOCK_ONE), unlockAll);
+
+        assertSame(unlockAll, CU16Request.match(inFlight, CU16PacketBuilder.makeAddr(2, 7), STATUS));
+        assertNull(CU16Request.match(inFlight, CU16PacketBuilder.makeAddr(3, 0), STATUS));
+    }
+
+    @Test
+    public void responseTypeMustMatch() {
+        List<CU16Request> inFlight = Arrays.asList(request(2, 0, CU16Commands.CMD_GET_STATUS));
+
+        assertNull(CU16Request.match(inFlight, CU16PacketBuilder.makeAddr(2, 0), CU16Commands.RESP_UNLOCK_TIME));
+    }
+
+    @Test
+    public void busQueryTakesStatusAllFromAnyCu() {
+        byte[] frame = CU16PacketBuilder.buildSimple(CU16PacketBuilder.makeAddr(0, 0), CU16Commands.CMD_GET_ALL_BUS);
+        CU16Request bus = new CU16Request.Bus(frame, 2);
+        List<CU16Request> inFlight = Arrays.asList(request(4, 0, CU16Commands.CMD_GET_STATUS), bus);
+
+        assertSame(bus, CU16Request.match(inFlight, CU16PacketBuilder.makeAddr(4, 0), CU16Commands.RESP_STATUS_ALL));
+    }
+
+    private static CU16Request request(int cu, int door, byte cmd) {
+        return new CU16Request.Single(CU16PacketBuilder.buildSimple(CU16PacketBuilder.makeAddr(cu, door), cmd));
+    }
+}
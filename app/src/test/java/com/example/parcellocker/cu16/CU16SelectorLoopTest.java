@@ -0,0 +1,55 @@
+package com.example.parcellocker.cu16;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class CU16SelectorLoopTest {
+
+    private static final byte[] GET_STATUS =
+            CU16PacketBuilder.buildSimple(CU16PacketBuilder.makeAddr(1, 0), CU16Commands.CMD_GET_STATUS);
+
+    private final CU16SelectorLoop loop;
+    private final CU16Simulator simulator = new CU16Simulator(new HardwareMock(2));
+
+    public CU16SelectorLoopTest() throws Exception {
+        loop = new CU16SelectorLoop();
+        simulator.setBusFrameGapMs(0);
+    }
+
+    @After
+    public void close() {
+        loop.close();
+        simulator.close();
+    }
+
+    @Test
+    public void failingTaskLeavesTheLoopRunning() throws Exception {
+        loop.execute(() -> {
+            throw new IllegalStateException("bad task");
+        });
+        CU16NioBus bus = loop.open("127.0.0.1", simulator.start(0));
+
+        assertTrue(bus.submit(GET_STATUS).get(5, TimeUnit.SECONDS).isLocked(3));
+    }
+
+    @Test
+    public void requestsAfterCloseFail() throws Exception {
+        CU16NioBus bus = loop.open("127.0.0.1", simulator.start(0));
+        assertTrue(bus.submit(GET_STATUS).get(5, TimeUnit.SECONDS).isLocked(3));
+
+        bus.close();
+        CompletableFuture<CU16Parser.Status> late = bus.submit(GET_STATUS);
+        try {
+            late.get(2, TimeUnit.SECONDS);
+            fail("expected the request to fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+}
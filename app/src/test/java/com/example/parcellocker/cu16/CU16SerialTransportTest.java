@@ -0,0 +1,235 @@
+package com.example.parcellocker.cu16;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Drives CU16SerialTransport over piped streams, the way a USB serial library
+ * hands over a line: against the simulator through a byte-copying bridge, and
+ * against a line the test controls directly.
+ */
+public class CU16SerialTransportTest {
+
+    private final PipedOutputStream toBoard = new PipedOutputStream();
+    private final PipedInputStream boardIn = new PipedInputStream(1024);
+    private final PipedOutputStream boardOut = new PipedOutputStream();
+    private final PipedInputStream fromBoard = new PipedInputStream(1024);
+
+    private CU16Simulator simulator;
+    private Socket socket;
+    private CU16BusScheduler bus;
+
+    public CU16SerialTransportTest() throws IOException {
+        toBoard.connect(boardIn);
+        boardOut.connect(fromBoard);
+    }
+
+    @After
+    public void close() throws IOException {
+        if (bus != null) bus.close();
+        if (socket != null) socket.close();
+        if (simulator != null) simulator.close();
+    }
+
+    @Test
+    public void roundTripsThroughTheSimulator() throws Exception {
+        HardwareMock hardware = new HardwareMock(2);
+        connectSimulator(hardware);
+        bus = new CU16BusScheduler(new CU16SerialTransport(fromBoard, toBoard), 8, 2);
+        CU16MachineService machine = new CU16MachineService(bus);
+
+        CU16Parser.Status unlocked = machine.unlockDoorAsync(1, 3).get(5, TimeUnit.SECONDS);
+        assertFalse(unlocked.isLocked(3));
+        assertEquals(0xFFFF & ~(1 << 3), hardware.getLockedMask(1));
+
+        CU16BusSnapshot snapshot = machine.getAllBoardsStatusAsync(2).get(5, TimeUnit.SECONDS);
+        assertEquals(2, snapshot.boardCount());
+        assertTrue(snapshot.status(0).isLocked(3));
+        assertFalse(snapshot.status(1).isLocked(3));
+
+        assertEquals(Integer.valueOf(500), machine.board(1).setUnlockTimeAsync(500).get(5, TimeUnit.SECONDS));
+        assertEquals(500, hardware.getUnlockTime(1));
+        assertEquals(3, simulator.getFramesReceived());
+    }
+
+    @Test
+    public void endOfStreamFailsRequestsInFlight() throws Exception {
+        bus = new CU16BusScheduler(new CU16SerialTransport(fromBoard, toBoard));
+        bus.setResponseTimeoutMs(10_000);
+        CompletableFuture<CU16Parser.Status> pending =
+                bus.submit(CU16PacketBuilder.buildSimple(CU16PacketBuilder.makeAddr(1, 0), CU16Commands.CMD_GET_STATUS));
+
+        // Wait until the frame is on the line, then hang up from the board side.
+        byte[] frame = new byte[5];
+        readFully(boardIn, frame);
+        assertEquals(CU16Commands.CMD_GET_STATUS, frame[2]);
+        boardOut.close();
+
+        assertTrue(failure(pending) instanceof EOFException);
+
+        // Given streams cannot be reopened, so later commands fail at once.
+        CompletableFuture<CU16Parser.Status> next =
+                bus.submit(CU16PacketBuilder.buildSimple(CU16PacketBuilder.makeAddr(1, 0), CU16Commands.CMD_GET_STATUS));
+        assertTrue(failure(next) instanceof IOException);
+    }
+
+    @Test
+    public void lineErrorStopsTheReaderUntilTheLineIsReattached() throws Exception {
+        CountDownLatch fault = new CountDownLatch(1);
+        InputStream faulty = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                return read(new byte[1], 0, 1);
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                try {
+                    fault.await();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+                throw new IOException("framing error");
+            }
+        };
+        AtomicInteger reads = new AtomicInteger();
+        CU16SerialTransport transport = new CU16SerialTransport(faulty, toBoard) {
+            @Override
+            public int read(byte[] buf, int off, int len, int waitMs) throws IOException {
+                reads.incrementAndGet();
+                return super.read(buf, off, len, waitMs);
+            }
+        };
+        bus = new CU16BusScheduler(transport);
+        bus.setResponseTimeoutMs(10_000);
+        byte[] getStatus = CU16PacketBuilder.buildSimple(CU16PacketBuilder.makeAddr(1, 0), CU16Commands.CMD_GET_STATUS);
+        CompletableFuture<CU16Parser.Status> pending = bus.submit(getStatus);
+
+        byte[] frame = new byte[5];
+        readFully(boardIn, frame);
+        fault.countDown();
+
+        Throwable error = failure(pending);
+        assertEquals("framing error", error.getMessage());
+        assertFalse(transport.isConnected());
+        int readsAfterError = reads.get();
+        Thread.sleep(300);
+        assertTrue("reader kept polling a failed line", reads.get() - readsAfterError <= 1);
+
+        // The adapter is back: new streams, and the next command opens them.
+        PipedOutputStream toBoard2 = new PipedOutputStream();
+        PipedInputStream boardIn2 = new PipedInputStream(toBoard2, 1024);
+        PipedInputStream fromBoard2 = new PipedInputStream(1024);
+        PipedOutputStream boardOut2 = new PipedOutputStream(fromBoard2);
+        HardwareMock hardware = new HardwareMock(2);
+        connectSimulator(hardware, boardIn2, boardOut2);
+        transport.reattach(fromBoard2, toBoard2);
+
+        CU16Parser.Status status = bus.submit(getStatus).get(5, TimeUnit.SECONDS);
+        assertTrue(status.isLocked(3));
+        assertTrue(transport.isConnected());
+        assertEquals(1, simulator.getFramesReceived());
+    }
+
+    @Test
+    public void fullRingHoldsBackTheLine() throws Exception {
+        CU16SerialTransport transport = new CU16SerialTransport(fromBoard, toBoard);
+        transport.write(new byte[]{0}, 0, 1); // opens the line and starts its pump
+
+        // More than the transport's 4 KiB ring plus the pipe's 1 KiB, with nobody reading.
+        int total = 8192;
+        CountDownLatch written = new CountDownLatch(1);
+        Thread board = new Thread(() -> {
+            try {
+                for (int i = 0; i < total; i++) boardOut.write(i & 0xFF);
+                boardOut.close();
+                written.countDown();
+            } catch (IOException ignored) {
+                // the test fails on the missing count-down
+            }
+        }, "board");
+        board.setDaemon(true);
+        board.start();
+
+        assertFalse("board was not held back", written.await(300, TimeUnit.MILLISECONDS));
+
+        byte[] buf = new byte[512];
+        int received = 0;
+        while (received < total) {
+            int n = transport.read(buf, 0, buf.length, 1000);
+            assertTrue("line ended after " + received + " bytes", n > 0);
+            for (int i = 0; i < n; i++) assertEquals((byte) (received + i), buf[i]);
+            received += n;
+        }
+        assertTrue(written.await(2, TimeUnit.SECONDS));
+        assertEquals(-1, transport.read(buf, 0, buf.length, 1000));
+        assertFalse(transport.isConnected());
+        transport.close();
+    }
+
+    /** Connects the board side of the pipes to a simulator over TCP, copying bytes both ways. */
+    private void connectSimulator(HardwareMock hardware) throws IOException {
+        connectSimulator(hardware, boardIn, boardOut);
+    }
+
+    private void connectSimulator(HardwareMock hardware, InputStream lineIn, OutputStream lineOut) throws IOException {
+        simulator = new CU16Simulator(hardware);
+        simulator.setBusFrameGapMs(0);
+        socket = new Socket("127.0.0.1", simulator.start(0));
+        socket.setTcpNoDelay(true);
+        copy(lineIn, socket.getOutputStream(), "line-to-sim");
+        copy(socket.getInputStream(), lineOut, "sim-to-line");
+    }
+
+    private static void copy(InputStream in, OutputStream out, String name) {
+        Thread t = new Thread(() -> {
+            byte[] buf = new byte[256];
+            try {
+                int n;
+                while ((n = in.read(buf)) > 0) {
+                    out.write(buf, 0, n);
+                    out.flush();
+                }
+            } catch (IOException ignored) {
+                // one side closed
+            } finally {
+                try { out.close(); } catch (IOException ignored) { }
+            }
+        }, name);
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private static void readFully(InputStream in, byte[] buf) throws IOException {
+        int off = 0;
+        while (off < buf.length) {
+            int n = in.read(buf, off, buf.length - off);
+            if (n < 0) throw new EOFException();
+            off += n;
+        }
+    }
+
+    private static Throwable failure(CompletableFuture<?> f) throws Exception {
+        try {
+            f.get(2, TimeUnit.SECONDS);
+        } catch (java.util.concurrent.ExecutionException e) {
+            return e.getCause();
+        }
+        throw new AssertionError("expected the request to fail");
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.parcellocker.cu16;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+import static com.example.parcellocker.cu16.FakeCU16Bus.status;
+import static org.junit.Assert.*;
+
+public class CU16ServiceTest {
+
+    private static final int CU = 2;
+    private static final int DOOR = 5;
+    private static final int DOOR_LOCKED = 1 << DOOR;
+    private static final int ALL_LOCKED = 0xFFFF;
+
+    private final FakeCU16Bus bus = new FakeCU16Bus();
+    private final CU16Service service = new CU16Service(bus, CU);
+
+    @Test
+    public void statusIsResentAfterATimeout() {
+        bus.reply(new TimeoutException(), new TimeoutException(), status(CU, ALL_LOCKED));
+
+        CU16Parser.Status status = service.getStatusSingleAsync(DOOR).join();
+
+        assertEquals(ALL_LOCKED, status.lockedMask);
+        assertEquals(Arrays.asList(CU16Commands.CMD_GET_STATUS, CU16Commands.CMD_GET_STATUS,
+                CU16Commands.CMD_GET_STATUS), bus.commands());
+    }
+
+    @Test
+    public void statusGivesUpAfterMaxRetries() {
+        service.setMaxRetries(1);
+        bus.reply(new TimeoutException(), new TimeoutException(), status(CU, ALL_LOCKED));
+
+        assertTrue(failure(service.getStatusSingleAsync(DOOR)) instanceof TimeoutException);
+        assertEquals(2, bus.commands().size());
+    }
+
+    @Test
+    public void otherErrorsAreNotRetried() {
+        bus.reply(new IllegalStateException("bus closed"), status(CU, ALL_LOCKED));
+
+        assertTrue(failure(service.getStatusSingleAsync(DOOR)) instanceof IllegalStateException);
+        assertEquals(1, bus.commands().size());
+    }
+
+    @Test
+    public void lostUnlockAnswerIsCheckedBeforeUnlockingAgain() {
+        // The unlock went through but its answer was lost; the door reads unlocked.
+        bus.reply(new TimeoutException(), status(CU, ALL_LOCKED & ~DOOR_LOCKED));
+
+        CU16Parser.Status status = service.unlockDoorAsync(DOOR).join();
+
+        assertFalse(status.isLocked(DOOR));
+        assertEquals(Arrays.asList(CU16Commands.CMD_UNLOCK_ONE, CU16Commands.CMD_GET_STATUS), bus.commands());
+    }
+
+    @Test
+    public void unlockIsResentOnlyWhileTheDoorStillReadsLocked() {
+        bus.reply(new IOException("reset"), status(CU, ALL_LOCKED), status(CU, ALL_LOCKED & ~DOOR_LOCKED));
+
+        CU16Parser.Status status = service.unlockDoorAsync(DOOR).join();
+
+        assertFalse(status.isLocked(DOOR));
+        assertEquals(Arrays.asList(CU16Commands.CMD_UNLOCK_ONE, CU16Commands.CMD_GET_STATUS,
+                CU16Commands.CMD_UNLOCK_ONE), bus.commands());
+    }
+
+    @Test
+    public void unlockFailsWithTheOriginalErrorWhenTheStatusReadFails() {
+        service.setMaxRetries(1);
+        TimeoutException lost = new TimeoutException("unlock");
+        bus.reply(lost, new TimeoutException("status"), new TimeoutException("status"));
+
+        assertSame(lost, failure(service.unlockDoorAsync(DOOR)));
+        assertEquals(Arrays.asList(CU16Commands.CMD_UNLOCK_ONE, CU16Commands.CMD_GET_STATUS,
+                CU16Commands.CMD_GET_STATUS), bus.commands());
+    }
+
+    @Test
+    public void unlockIsNotRetriedWhenRetriesAreOff() {
+        service.setMaxRetries(0);
+        bus.reply(new TimeoutException(), status(CU, 0));
+
+        assertTrue(failure(service.unlockDoorAsync(DOOR)) instanceof TimeoutException);
+        assertEquals(Arrays.asList(CU16Commands.CMD_UNLOCK_ONE), bus.commands());
+    }
+
+    @Test
+    public void unlockAllIsNeverRetried() {
+        bus.reply(new TimeoutException(), status(CU, 0));
+
+        assertTrue(failure(service.unlockAllAsync()) instanceof TimeoutException);
+        assertEquals(Arrays.asList(CU16Commands.CMD_UNLOCK_ALL), bus.commands());
+    }
+
+    @Test
+    public void burstUnlockRecoversEachDoorOnItsOwn() {
+        service.setUnlockBurst(2, 0);
+        // Door 1 answers; door 2's answer is lost but the door is open.
+        bus.reply(status(CU, ALL_LOCKED & ~0b10), new TimeoutException(), status(CU, ALL_LOCKED & ~0b110));
+
+        CU16UnlockResult result = service.unlockDoorsAsync(Arrays.asList(1, 2)).join();
+
+        assertTrue(result.isAllUnlocked());
+        assertTrue(result.isUnlocked(2));
+        assertEquals(Arrays.asList(CU16Commands.CMD_UNLOCK_ONE, CU16Commands.CMD_UNLOCK_ONE,
+                CU16Commands.CMD_GET_STATUS), bus.commands());
+    }
+
+    private static Throwable failure(CompletableFuture<?> f) {
+        try {
+            f.join();
+        } catch (RuntimeException e) {
+            return CU16Futures.unwrap(e);
+        }
+        throw new AssertionError("expected the future to fail");
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.parcellocker.cu16;
+
+import org.junit.Test;
+
+import static com.example.parcellocker.cu16.CU16FrameDecoderTest.statusFrame;
+import static org.junit.Assert.*;
+
+public class CU16StatusWordTest {
+
+    private static final byte ADDR = CU16PacketBuilder.makeAddr(0x0F, 0);
+
+    @Test
+    public void fieldsRoundTrip() {
+        long word = CU16StatusWord.of(ADDR, CU16Commands.RESP_STATUS_ALL, 0xA5C3, 0x8001);
+
+        assertEquals(ADDR, CU16StatusWord.addr(word));
+        assertEquals(CU16Commands.RESP_STATUS_ALL, CU16StatusWord.cmd(word));
+        assertEquals(0x0F, CU16StatusWord.cuId(word));
+        assertEquals(0xA5C3, CU16StatusWord.lockedMask(word));
+        assertEquals(0x8001, CU16StatusWord.occupiedMask(word));
+        assertEquals(8, CU16StatusWord.lockedCount(word));
+        assertEquals(2, CU16StatusWord.occupiedCount(word));
+        assertNotEquals(CU16StatusWord.INVALID, word);
+    }
+
+    @Test
+    public void masksAreCutToSixteenDoors() {
+        long word = CU16StatusWord.of(ADDR, CU16Commands.RESP_STATUS_SINGLE, 0x1FFFF, -1);
+
+        assertEquals(0xFFFF, CU16StatusWord.lockedMask(word));
+        assertEquals(0xFFFF, CU16StatusWord.occupiedMask(word));
+        assertEquals(ADDR, CU16StatusWord.addr(word));
+        assertEquals(CU16Commands.RESP_STATUS_SINGLE, CU16StatusWord.cmd(word));
+    }
+
+    @Test
+    public void firstAndLastDoorBits() {
+        long word = CU16StatusWord.of(ADDR, CU16Commands.RESP_STATUS_SINGLE, 0x8001, 0x8000);
+
+        assertTrue(CU16StatusWord.isLocked(word, 0));
+        assertTrue(CU16StatusWord.isLocked(word, 15));
+        assertFalse(CU16StatusWord.isLocked(word, 1));
+        assertFalse(CU16StatusWord.isOccupied(word, 0));
+        assertTrue(CU16StatusWord.isOccupied(word, 15));
+    }
+
+    @Test
+    public void changedDoorsCombinesLockedAndOccupiedDifferences() {
+        long a = CU16StatusWord.of(ADDR, CU16Commands.RESP_STATUS_SINGLE, 0xFFFF, 0x0000);
+        long b = CU16StatusWord.of(ADDR, CU16Commands.RESP_STATUS_SINGLE, 0xFFFE, 0x8000);
+
+        assertEquals(0x8001, CU16StatusWord.changedDoors(a, b));
+        assertEquals(0x8001, CU16StatusWord.changedDoors(b, a));
+        assertEquals(0, CU16StatusWord.changedDoors(a, a));
+    }
+
+    @Test
+    public void parsesAStatusFrameAtAnOffset() {
+        byte[] buf = new byte[3 + 9];
+        System.arraycopy(statusFrame(ADDR, 0x8001, 0x0100), 0, buf, 3, 9);
+
+        long word = CU16Parser.parseStatusWord(buf, 3);
+        assertEquals(ADDR, CU16StatusWord.addr(word));
+        assertEquals(CU16Commands.RESP_STATUS_SINGLE, CU16StatusWord.cmd(word));
+        assertEquals(0x8001, CU16StatusWord.lockedMask(word));
+        assertEquals(0x0100, CU16StatusWord.occupiedMask(word));
+        assertEquals(word, CU16Parser.parseStatus9(buf, 3).toWord());
+    }
+
+    @Test
+    public void rejectsBadStx() {
+        byte[] frame = statusFrame(ADDR, 1, 0);
+        frame[0] = 0x05;
+        fixChecksum(frame);
+        assertEquals(CU16StatusWord.INVALID, CU16Parser.parseStatusWord(frame, 0));
+    }
+
+    @Test
+    public void rejectsBadEtx() {
+        byte[] frame = statusFrame(ADDR, 1, 0);
+        frame[7] = 0x04;
+        fixChecksum(frame);
+        assertEquals(CU16StatusWord.INVALID, CU16Parser.parseStatusWord(frame, 0));
+    }
+
+    @Test
+    public void rejectsBadChecksum() {
+        byte[] frame = statusFrame(ADDR, 1, 0);
+        frame[8] ^= 0x40;
+        assertEquals(CU16StatusWord.INVALID, CU16Parser.parseStatusWord(frame, 0));
+    }
+
+    @Test
+    public void rejectsOffsetPastTheEnd() {
+        byte[] frame = statusFrame(ADDR, 1, 0);
+        assertEquals(CU16StatusWord.INVALID, CU16Parser.parseStatusWord(frame, 1));
+        assertEquals(CU16StatusWord.INVALID, CU16Parser.parseStatusWord(frame, 9));
+        assertEquals(CU16StatusWord.INVALID, CU16Parser.parseStatusWord(frame, -1));
+        assertEquals(CU16StatusWord.INVALID, CU16Parser.parseStatusWord(null, 0));
+    }
+
+    @Test
+    public void parseStatusIntoWritesOnlyValidFrames() {
+        long[] words = new long[4];
+        byte[] frame = statusFrame(ADDR, 0x00F0, 0x000F);
+
+        assertTrue(CU16Parser.parseStatusInto(frame, 0, words, 2));
+        assertEquals(0x00F0, CU16StatusWord.lockedMask(words[2]));
+        assertEquals(0x000F, CU16StatusWord.occupiedMask(words[2]));
+
+        long before = words[2];
+        frame[8]++;
+        assertFalse(CU16Parser.parseStatusInto(frame, 0, words, 2));
+        assertEquals(before, words[2]);
+        assertEquals(CU16StatusWord.INVALID, words[0]);
+    }
+
+    private static void fixChecksum(byte[] frame) {
+        int sum = 0;
+        for (int i = 0; i < frame.length - 1; i++) sum += frame[i] & 0xFF;
+        frame[frame.length - 1] = (byte) sum;
+    }
+}
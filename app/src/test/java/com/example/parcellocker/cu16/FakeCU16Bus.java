@@ -0,0 +1,99 @@
+package com.example.parcellocker.cu16;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * In-memory CU16Bus for service tests: records every frame and answers each
+ * with the next scripted reply (a Status, an Integer or a Throwable to fail
+ * with). A frame without a reply left gets a future that never completes.
+ */
+final class FakeCU16Bus implements CU16Bus {
+
+    private final List<byte[]> frames = Collections.synchronizedList(new ArrayList<>());
+    private final Deque<Object> replies = new ArrayDeque<>();
+    private final CU16LatencyTracker latency = new CU16LatencyTracker();
+    private final CU16Metrics metrics = new CU16Metrics();
+    private volatile boolean closed;
+
+    /** Queues the answers for the next frames, in order. */
+    synchronized FakeCU16Bus reply(Object... answers) {
+        Collections.addAll(replies, answers);
+        return this;
+    }
+
+    /** Status reply of board {@code cuId} with the given locked doors. */
+    static CU16Parser.Status status(int cuId, int lockedMask) {
+        return new CU16Parser.Status(CU16PacketBuilder.makeAddr(cuId, 0), CU16Commands.RESP_STATUS_SINGLE, lockedMask, 0);
+    }
+
+    /** CMD byte of every frame sent so far. */
+    List<Byte> commands() {
+        List<Byte> cmds = new ArrayList<>();
+        synchronized (frames) {
+            for (byte[] f : frames) cmds.add(f[2]);
+        }
+        return cmds;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public CompletableFuture<CU16Parser.Status> submit(byte[] frame) {
+        return answer(frame);
+    }
+
+    @Override
+    public CompletableFuture<Integer> submitForValue(byte[] frame) {
+        return answer(frame);
+    }
+
+    @Override
+    public CompletableFuture<Void> send(byte[] frame) {
+        frames.add(frame);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<CU16BusSnapshot> submitBusQuery(byte[] frame, int expectedBoards) {
+        return answer(frame);
+    }
+
+    @Override
+    public CU16LatencyTracker getLatencyTracker() {
+        return latency;
+    }
+
+    @Override
+    public CU16Metrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public int pendingCount() {
+        return 0;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> answer(byte[] frame) {
+        frames.add(frame);
+        Object next;
+        synchronized (this) {
+            next = replies.poll();
+        }
+        if (next == null) return new CompletableFuture<>();
+        if (next instanceof Throwable) return CU16Futures.failed((Throwable) next);
+        return CompletableFuture.completedFuture((T) next);
+    }
+}
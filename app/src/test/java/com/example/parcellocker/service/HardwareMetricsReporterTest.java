@@ -0,0 +1,66 @@
+package com.example.parcellocker.service;
+
+import com.example.parcellocker.AppExecutors;
+import com.example.parcellocker.cu16.CU16MachineService;
+import com.example.parcellocker.cu16.CU16SerialTransport;
+import com.example.parcellocker.db.dao.MachineEventDao;
+import com.example.parcellocker.db.entities.MachineEvent;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.*;
+
+public class HardwareMetricsReporterTest {
+
+    private static final UUID MACHINE = UUID.fromString("22222222-2222-2222-2222-222222222222");
+
+    private final AppExecutors executors = new AppExecutors(1, 1);
+    private final List<MachineEvent> inserted = new CopyOnWriteArrayList<>();
+    private final MachineEventDao machineEventDao = (MachineEventDao) Proxy.newProxyInstance(
+            MachineEventDao.class.getClassLoader(), new Class<?>[]{MachineEventDao.class},
+            (proxy, method, args) -> {
+                if (method.getName().equals("insert")) inserted.add((MachineEvent) args[0]);
+                return null;
+            });
+    private final CU16MachineService hardware = new CU16MachineService(
+            new CU16SerialTransport(new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream()));
+    private final HardwareMetricsReporter reporter =
+            new HardwareMetricsReporter(hardware, machineEventDao, MACHINE, executors);
+
+    @After
+    public void close() throws Exception {
+        reporter.shutdown();
+        hardware.close();
+        executors.shutdown();
+    }
+
+    @Test
+    public void idleIntervalsWriteNothing() throws Exception {
+        reporter.setIntervalMs(50);
+        reporter.start();
+        Thread.sleep(400);
+
+        assertEquals(0, inserted.size());
+    }
+
+    @Test
+    public void ownInsertDoesNotCountAsActivity() throws Exception {
+        executors.write(() -> { }).get();
+
+        reporter.setIntervalMs(50);
+        reporter.start();
+        Thread.sleep(400);
+
+        assertEquals(1, inserted.size());
+        assertEquals(HardwareMetricsReporter.EVENT_TYPE, inserted.get(0).eventType);
+        assertEquals(MACHINE, inserted.get(0).lockerMachineId);
+    }
+}
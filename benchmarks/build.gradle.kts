@@ -0,0 +1,35 @@
+// JVM-only JMH benchmarks for the CU16 hardware path.
+// The cu16 package is plain Java, so it is compiled straight from the app sources.
+// Run: ./gradlew :benchmarks:jmh   (results in benchmarks/build/results/jmh/)
+plugins {
+    java
+    id("me.champeau.jmh")
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_17
+    targetCompatibility = JavaVersion.VERSION_17
+}
+
+sourceSets {
+    main {
+        java {
+            setSrcDirs(listOf("../app/src/main/java"))
+            include("com/example/parcellocker/cu16/**")
+        }
+    }
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    fork.set(1)
+    warmupIterations.set(3)
+    warmup.set("2s")
+    iterations.set(5)
+    timeOnIteration.set("2s")
+    // Allocation rate per op next to the throughput / latency numbers.
+    profilers.set(listOf("gc"))
+    resultFormat.set("JSON")
+    // Narrow a run with e.g. -Pjmh.includes=Codec
+    providers.gradleProperty("jmh.includes").orNull?.let { includes.set(listOf(it)) }
+}
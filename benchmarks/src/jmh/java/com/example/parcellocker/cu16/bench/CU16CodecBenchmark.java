@@ -0,0 +1,106 @@
+package com.example.parcellocker.cu16.bench;
+
+import com.example.parcellocker.cu16.CU16Commands;
+import com.example.parcellocker.cu16.CU16FrameDecoder;
+import com.example.parcellocker.cu16.CU16PacketBuilder;
+import com.example.parcellocker.cu16.CU16Parser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding cost of single frames, no I/O. Run with the gc profiler
+ * (the module default) to see bytes allocated per op next to ns/op.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CU16CodecBenchmark {
+
+    private byte addr;
+    private byte[] status9;
+    private byte[] unlockFrame;
+    private byte[] coalesced; // 16 status frames back to back, as read off the socket
+    private byte[] scratch;
+    private ByteBuffer out;
+    private CU16FrameDecoder decoder;
+
+    @Setup
+    public void setup() {
+        addr = CU16PacketBuilder.makeAddr(1, 5);
+        status9 = statusFrame(addr, 0xFFDF, 0x0048);
+        unlockFrame = CU16PacketBuilder.buildSimple(addr, CU16Commands.CMD_UNLOCK_ONE);
+        coalesced = new byte[16 * 9];
+        for (int i = 0; i < 16; i++) {
+            System.arraycopy(statusFrame(CU16PacketBuilder.makeAddr(1, i), 0xFFFF, 0), 0, coalesced, i * 9, 9);
+        }
+        scratch = new byte[CU16FrameDecoder.MAX_FRAME];
+        out = ByteBuffer.allocateDirect(4096);
+        decoder = new CU16FrameDecoder();
+    }
+
+    @Benchmark
+    public byte[] buildSimple() {
+        return CU16PacketBuilder.buildSimple(addr, CU16Commands.CMD_UNLOCK_ONE);
+    }
+
+    @Benchmark
+    public int putSimple() {
+        return CU16PacketBuilder.putSimple(out, 0, addr, CU16Commands.CMD_UNLOCK_ONE);
+    }
+
+    @Benchmark
+    public boolean validateChecksum() {
+        return CU16Parser.validateChecksum(status9);
+    }
+
+    @Benchmark
+    public boolean validateChecksumRequest() {
+        return CU16Parser.validateChecksum(unlockFrame);
+    }
+
+    @Benchmark
+    public CU16Parser.Status parseStatus9() {
+        return CU16Parser.parseStatus9(status9);
+    }
+
+    @Benchmark
+    public long parseStatusWord() {
+        return CU16Parser.parseStatusWord(status9, 0);
+    }
+
+    /** 16 frames arriving in one read, split into frames and parsed to words. */
+    @Benchmark
+    public void decodeCoalesced(Blackhole bh) {
+        decoder.feed(coalesced, 0, coalesced.length);
+        int len;
+        while ((len = decoder.nextFrame(scratch)) > 0) {
+            bh.consume(CU16Parser.parseStatusWord(scratch, 0));
+        }
+    }
+
+    static byte[] statusFrame(byte addr, int locked, int occupied) {
+        byte[] b = new byte[9];
+        b[0] = CU16Commands.STX;
+        b[1] = addr;
+        b[2] = CU16Commands.RESP_STATUS_SINGLE;
+        b[3] = (byte) locked;
+        b[4] = (byte) (locked >> 8);
+        b[5] = (byte) occupied;
+        b[6] = (byte) (occupied >> 8);
+        b[7] = CU16Commands.ETX;
+        int sum = 0;
+        for (int i = 0; i < 8; i++) sum += b[i] & 0xFF;
+        b[8] = (byte) sum;
+        return b;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.parcellocker.cu16.bench;
+
+import com.example.parcellocker.cu16.CU16BusScheduler;
+import com.example.parcellocker.cu16.CU16Client;
+import com.example.parcellocker.cu16.CU16Commands;
+import com.example.parcellocker.cu16.CU16MachineService;
+import com.example.parcellocker.cu16.CU16NioBus;
+import com.example.parcellocker.cu16.CU16PacketBuilder;
+import com.example.parcellocker.cu16.CU16Parser;
+import com.example.parcellocker.cu16.CU16SelectorLoop;
+import com.example.parcellocker.cu16.CU16Simulator;
+import com.example.parcellocker.cu16.CU16UnlockResult;
+import com.example.parcellocker.cu16.HardwareMock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end round trips against an in-process {@link CU16Simulator} on loopback.
+ * SampleTime gives the latency percentiles (p50/p90/p99/p99.9); Throughput the ops/s.
+ * {@code latencyMs} adds simulated board latency; 0 measures the stack itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.SampleTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CU16RoundTripBenchmark {
+
+    private static final byte ADDR = CU16PacketBuilder.makeAddr(1, 5);
+    private static final List<Integer> SIXTEEN_DOORS =
+            Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15);
+
+    @Param({"0"})
+    public int latencyMs;
+
+    private CU16Simulator simulator;
+    private CU16Client blockingClient;
+    private CU16MachineService scheduled;
+    private CU16SelectorLoop loop;
+    private CU16MachineService nio;
+    private byte[] statusFrame;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        simulator = new CU16Simulator(new HardwareMock(4));
+        simulator.setLatency(latencyMs, 0);
+        simulator.setBusFrameGapMs(0);
+        int port = simulator.start(0);
+
+        blockingClient = new CU16Client("127.0.0.1", port);
+        scheduled = new CU16MachineService(new CU16BusScheduler(new CU16Client("127.0.0.1", port), 16, 16));
+        loop = new CU16SelectorLoop();
+        CU16NioBus bus = loop.open("127.0.0.1", port);
+        bus.setMaxInFlight(16);
+        nio = new CU16MachineService(bus);
+        scheduled.board(1).setUnlockBurst(16, 0);
+        nio.board(1).setUnlockBurst(16, 0);
+        statusFrame = CU16PacketBuilder.buildSimple(ADDR, CU16Commands.CMD_GET_STATUS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        scheduled.shutdown();
+        nio.shutdown();
+        loop.close();
+        blockingClient.close();
+        simulator.close();
+    }
+
+    /** One status request per call on the persistent blocking socket. */
+    @Benchmark
+    public byte[] blockingSendAndReceive() throws Exception {
+        return blockingClient.sendAndReceive(statusFrame);
+    }
+
+    @Benchmark
+    public CU16Parser.Status schedulerStatus() throws Exception {
+        return scheduled.getStatusAsync(1, 5).get();
+    }
+
+    @Benchmark
+    public CU16Parser.Status nioStatus() throws Exception {
+        return nio.getStatusAsync(1, 5).get();
+    }
+
+    /** 16 status requests pipelined on one connection; one op = all 16 answered. */
+    @Benchmark
+    public Object schedulerPipelined16() throws Exception {
+        return pipelined(scheduled);
+    }
+
+    @Benchmark
+    public Object nioPipelined16() throws Exception {
+        return pipelined(nio);
+    }
+
+    /** A whole board unlocked in a single burst. */
+    @Benchmark
+    public CU16UnlockResult schedulerUnlockBurst16() throws Exception {
+        return scheduled.unlockDoorsAsync(1, SIXTEEN_DOORS).get();
+    }
+
+    @Benchmark
+    public Object busQuery() throws Exception {
+        return scheduled.getAllBoardsStatusAsync(4).get();
+    }
+
+    private static Object pipelined(CU16MachineService machine) throws Exception {
+        List<CompletableFuture<CU16Parser.Status>> futures = new ArrayList<>(16);
+        for (int door = 0; door < 16; door++) futures.add(machine.getStatusAsync(1, door));
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get();
+    }
+}
@@ -15,4 +15,5 @@ dependencyResolutionManagement {
 
 rootProject.name = "Parcel Locker"
 include(":app")
+include(":benchmarks")
  
\ No newline at end of file